@@ -141,10 +141,10 @@ const AddGoods = () => {
           topic: announcementTitle,
           readyForOffers: !!readyOffer.length,
         },
-        photos: values.images.map((photo, index) => ({
-          id: index,
-          resource: URL.createObjectURL(photo),
-        })),
+        photos: values.images.map((photo, index) => {
+          const url = URL.createObjectURL(photo);
+          return { id: index, url, mediumUrl: url, thumbnailUrl: url };
+        }),
       },
     });
   };
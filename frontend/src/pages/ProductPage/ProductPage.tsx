@@ -101,12 +101,7 @@ const ProductPage = () => {
       setSubcategory(subcategoryValue);
       setCurrentLocation(locationValue);
       setWishes(wishesToExchange?.split(','));
-      setPhotos(
-        images.map((photo) => ({
-          ...photo,
-          resource: `data:image/jpeg;base64,${photo.resource}`,
-        }))
-      );
+      setPhotos(images);
     } catch (e) {
       showMessage.error(getErrorMessage(e));
     }
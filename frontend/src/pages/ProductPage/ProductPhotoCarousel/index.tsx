@@ -32,7 +32,7 @@ const ProductPhotoCarousel = ({ photos = [] }) => {
   if (!state.photos.length) {
     noArr = <NoPhoto noPhoto />;
   } else {
-    noArr = <Image alt='activeSlide' src={state.bigPhoto.resource} />;
+    noArr = <Image alt='activeSlide' src={state.bigPhoto.mediumUrl} />;
   }
 
   return (
@@ -19,7 +19,7 @@ const SliderOrNot = ({ photos = [], showBigImg, bigPhoto }) => {
           <div key={`index-${photo.id}`}>
             <Styles.Image
               alt={photo.id}
-              src={photo.resource}
+              src={photo.thumbnailUrl}
               selected={bigPhoto.id === photo.id}
               onClick={() => showBigImg(photo.id)}
             />
@@ -36,7 +36,7 @@ const SliderOrNot = ({ photos = [], showBigImg, bigPhoto }) => {
               <Styles.Image
                 small
                 alt={photo.id}
-                src={photo.resource}
+                src={photo.thumbnailUrl}
                 selected={bigPhoto.id === photo.id}
                 onClick={() => showBigImg(photo.id)}
               />
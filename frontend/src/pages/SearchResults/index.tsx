@@ -86,7 +86,7 @@ const SearchResults = () => {
                     key={item.advertisementId}
                     city={getCity(item.location)}
                     buttonText={getTranslatedText('button.look')}
-                    picture={`data:image/jpeg;base64,${item.image}`}
+                    picture={item.imageUrl}
                     onClick={() => moveToProductPage(item.advertisementId)}
                   />
                 ))}
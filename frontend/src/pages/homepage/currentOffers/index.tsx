@@ -51,8 +51,8 @@ const CurrentOffers = () => {
               buttonText={getTranslatedText("button.look")}
               onClick={() => moveToProductPage(offer.advertisementId)}
               picture={
-                offer.image ? (
-                  `data:image/jpeg;base64,${offer.image}`
+                offer.imageUrl ? (
+                  offer.imageUrl
                 ) : (
                   <Icon.NoPhoto />
                 )
@@ -116,7 +116,9 @@ public class SecurityConfig {
                                 ApiKey.AUTH_REGISTER,
                                 ApiKey.AUTH_REFRESH_TOKEN,
                                 ApiKey.USER_SERVICE_RESET_PASSWORD,
-                                ApiKey.ADV_FILTER).permitAll()
+                                ApiKey.ADV_FILTER,
+                                ApiKey.ADV_FILTER_SCROLL,
+                                ApiKey.ADV_FILTER_FACETS).permitAll()
                         .requestMatchers(HttpMethod.GET,
                                 ApiKey.FRONT_LOGIN,
                                 ApiKey.FRONT_SIGN,
@@ -0,0 +1,70 @@
+package space.obminyashka.items_exchange.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import space.obminyashka.items_exchange.rest.exception.TooManyRequestsException;
+import space.obminyashka.items_exchange.service.util.UploadBudget;
+
+import java.io.IOException;
+
+/**
+ * Reserves the {@link UploadBudget} for every multipart request by its {@code Content-Length} before the body is
+ * read, so an upload which doesn't fit is rejected without spooling it to disk. The reservation is held until the
+ * request is handled. A request without the length reserves as much as the largest allowed request.
+ * <p>
+ * The filter precedes the security chain, since any filter reading request parameters parses the multipart body.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class UploadBudgetFilter extends OncePerRequestFilter {
+
+    private final UploadBudget uploadBudget;
+    private final long maxRequestSize;
+    private final HandlerExceptionResolver exceptionResolver;
+
+    public UploadBudgetFilter(UploadBudget uploadBudget,
+                              MultipartProperties multipartProperties,
+                              @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver) {
+        this.uploadBudget = uploadBudget;
+        this.maxRequestSize = multipartProperties.getMaxRequestSize().toBytes();
+        this.exceptionResolver = exceptionResolver;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        final var contentType = request.getContentType();
+        return contentType == null || !contentType.toLowerCase().startsWith(MediaType.MULTIPART_FORM_DATA_VALUE);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        final var contentLength = request.getContentLengthLong();
+        if (maxRequestSize >= 0 && contentLength > maxRequestSize) {
+            exceptionResolver.resolveException(request, response, null, new MaxUploadSizeExceededException(maxRequestSize));
+            return;
+        }
+
+        final UploadBudget.Reservation reservation;
+        try {
+            reservation = uploadBudget.reserve(contentLength < 0 ? maxRequestSize : contentLength);
+        } catch (TooManyRequestsException e) {
+            exceptionResolver.resolveException(request, response, null, e);
+            return;
+        }
+        try (reservation) {
+            filterChain.doFilter(request, response);
+        }
+    }
+}
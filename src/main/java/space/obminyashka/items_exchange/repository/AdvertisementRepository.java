@@ -2,6 +2,7 @@ package space.obminyashka.items_exchange.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -9,8 +10,12 @@ import org.springframework.data.querydsl.QuerydslPredicateExecutor;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import space.obminyashka.items_exchange.repository.enums.Status;
 import space.obminyashka.items_exchange.repository.model.Advertisement;
+import space.obminyashka.items_exchange.repository.projection.AdvertisementFacetProjection;
+import space.obminyashka.items_exchange.repository.projection.AdvertisementTextProjection;
 import space.obminyashka.items_exchange.repository.projection.AdvertisementTitleProjection;
+import space.obminyashka.items_exchange.repository.projection.ImageResourceProjection;
 
 import java.util.Collection;
 import java.util.List;
@@ -19,10 +24,13 @@ import java.util.UUID;
 
 @Repository
 @Transactional
-public interface AdvertisementRepository extends JpaRepository<Advertisement, UUID>, QuerydslPredicateExecutor<Advertisement> {
+public interface AdvertisementRepository extends JpaRepository<Advertisement, UUID>, QuerydslPredicateExecutor<Advertisement>,
+        AdvertisementRepositoryCustom {
 
     boolean existsAdvertisementByIdAndUserUsername(UUID id, String username);
 
+    boolean existsAdvertisementByIdAndUserUsernameAndImagesId(UUID id, String username, UUID imageId);
+
     boolean existsAdvertisementById(UUID id);
 
     @Modifying
@@ -35,13 +43,16 @@ public interface AdvertisementRepository extends JpaRepository<Advertisement, UU
     @Query("SELECT a FROM Advertisement a WHERE LOWER(a.topic) IN :topics")
     Page<Advertisement> search(@Param("topics") Set<String> topics, Pageable pageable);
 
-    @Query("SELECT a.id AS id, a.defaultPhoto AS defaultPhoto, fa.user.id AS userId, a.topic AS topic, a.location AS location " +
+    @Query("SELECT a.id AS id, a.defaultPhotoHash AS defaultPhotoHash, " +
+            "CASE WHEN a.defaultPhoto IS NOT NULL THEN true ELSE false END AS legacyDefaultPhoto, " +
+            "fa.user.id AS userId, a.topic AS topic, a.location AS location " +
             "FROM User u JOIN Advertisement a ON u.id = a.user.id " +
             "LEFT JOIN u.favoriteAdvertisements fa ON a.id = fa.id AND u.id = fa.user.id " +
             "WHERE u.username = :username")
     Collection<AdvertisementTitleProjection> findAllByUserUsername(String username);
 
-    @Query("SELECT a.id AS id, a.defaultPhoto AS defaultPhoto, " +
+    @Query("SELECT a.id AS id, a.defaultPhotoHash AS defaultPhotoHash, " +
+            "CASE WHEN a.defaultPhoto IS NOT NULL THEN true ELSE false END AS legacyDefaultPhoto, " +
             "a.user.id AS userId, a.topic AS topic, a.location AS location " +
             "FROM User u JOIN u.favoriteAdvertisements a " +
             "WHERE u.username = :username")
@@ -69,4 +80,26 @@ public interface AdvertisementRepository extends JpaRepository<Advertisement, UU
     @Query("SELECT a FROM Advertisement a WHERE a.subcategory.category.id = :categoryId")
     Page<Advertisement> findAdvertisementByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
 
+    @Query("SELECT a.id AS id, a.topic AS topic, a.description AS description FROM Advertisement a " +
+            "WHERE :afterId IS NULL OR a.id > :afterId ORDER BY a.id")
+    Slice<AdvertisementTextProjection> findTextsAfter(UUID afterId, Pageable pageable);
+
+    @Query("SELECT a.id AS id, a.gender AS gender, a.season AS season, a.age AS age, a.size AS size, " +
+            "s.id AS subcategoryId, s.category.id AS categoryId, l.id AS locationId " +
+            "FROM Advertisement a LEFT JOIN a.subcategory s LEFT JOIN a.location l " +
+            "WHERE :afterId IS NULL OR a.id > :afterId ORDER BY a.id")
+    Slice<AdvertisementFacetProjection> findFacetsAfter(UUID afterId, Pageable pageable);
+
+    @Query("SELECT a.id AS id, a.defaultPhotoHash AS resourceHash, a.defaultPhoto AS resource FROM Advertisement a " +
+            "WHERE a.defaultPhotoHash IS NULL AND a.defaultPhoto IS NOT NULL")
+    List<ImageResourceProjection> findNotStoredDefaultPhotos(Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Advertisement a SET a.defaultPhotoHash = :defaultPhotoHash, a.defaultPhoto = null WHERE a.id = :id")
+    void updateDefaultPhotoHash(UUID id, String defaultPhotoHash);
+
+    @Modifying
+    @Query("UPDATE Advertisement a SET a.status = :status WHERE a.id = :id AND a.status = :currentStatus")
+    int updateStatus(UUID id, Status currentStatus, Status status);
+
 }
@@ -0,0 +1,47 @@
+package space.obminyashka.items_exchange.repository;
+
+import com.querydsl.core.types.Predicate;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import space.obminyashka.items_exchange.repository.projection.AdvertisementFacetCount;
+import space.obminyashka.items_exchange.repository.projection.AdvertisementTitleRow;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface AdvertisementRepositoryCustom {
+
+    /**
+     * Find advertisement titles matched by the predicate. Titles are fetched by a single query, the count query
+     * is executed only when the total amount can't be calculated from the page itself.
+     * @param predicate filter conditions
+     * @param pageable requested page
+     * @return page of advertisement titles
+     */
+    Page<AdvertisementTitleRow> findAllTitles(Predicate predicate, Pageable pageable);
+
+    /**
+     * Find advertisement titles by a single query
+     * @param ids advertisement IDs
+     * @return titles of existing advertisements in no particular order
+     */
+    List<AdvertisementTitleRow> findAllTitlesByIds(Collection<UUID> ids);
+
+    /**
+     * Find advertisement titles ordered from the newest to the oldest (by creation date and ID) without counting
+     * the total amount of matched records. Intended to be used with a keyset condition instead of an offset.
+     * @param predicate filter conditions including the keyset one
+     * @param size maximum amount of advertisements in the slice
+     * @return slice of advertisement titles which knows whenever there are more records after it
+     */
+    Slice<AdvertisementTitleRow> findSliceByKeyset(Predicate predicate, int size);
+
+    /**
+     * Count advertisements matched by the predicate grouped by all their filterable attributes at once
+     * @param predicate filter conditions
+     * @return amount of advertisements per each existing combination of gender, season, age, size and subcategory
+     */
+    List<AdvertisementFacetCount> countFacets(Predicate predicate);
+}
@@ -0,0 +1,98 @@
+package space.obminyashka.items_exchange.repository;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.support.PageableExecutionUtils;
+import space.obminyashka.items_exchange.repository.projection.AdvertisementFacetCount;
+import space.obminyashka.items_exchange.repository.projection.AdvertisementTitleRow;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static space.obminyashka.items_exchange.repository.model.QAdvertisement.advertisement;
+import static space.obminyashka.items_exchange.repository.model.QLocation.location;
+
+public class AdvertisementRepositoryCustomImpl implements AdvertisementRepositoryCustom {
+
+    private final JPAQueryFactory queryFactory;
+
+    public AdvertisementRepositoryCustomImpl(EntityManager entityManager) {
+        this.queryFactory = new JPAQueryFactory(entityManager);
+    }
+
+    @Override
+    public Page<AdvertisementTitleRow> findAllTitles(Predicate predicate, Pageable pageable) {
+        List<AdvertisementTitleRow> titles = selectTitles()
+                .where(predicate)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        return PageableExecutionUtils.getPage(titles, pageable, () -> queryFactory.select(advertisement.count())
+                .from(advertisement)
+                .where(predicate)
+                .fetchFirst());
+    }
+
+    @Override
+    public List<AdvertisementTitleRow> findAllTitlesByIds(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return selectTitles()
+                .where(advertisement.id.in(ids))
+                .fetch();
+    }
+
+    @Override
+    public Slice<AdvertisementTitleRow> findSliceByKeyset(Predicate predicate, int size) {
+        List<AdvertisementTitleRow> titles = selectTitles()
+                .where(predicate)
+                .orderBy(advertisement.created.desc(), advertisement.id.desc())
+                .limit(size + 1L)
+                .fetch();
+
+        boolean hasNext = titles.size() > size;
+        List<AdvertisementTitleRow> content = hasNext ? titles.subList(0, size) : titles;
+        return new SliceImpl<>(content, PageRequest.ofSize(size), hasNext);
+    }
+
+    @Override
+    public List<AdvertisementFacetCount> countFacets(Predicate predicate) {
+        return queryFactory.select(Projections.constructor(AdvertisementFacetCount.class,
+                        advertisement.gender, advertisement.season, advertisement.age, advertisement.size,
+                        advertisement.subcategory.id, advertisement.count()))
+                .from(advertisement)
+                .where(predicate)
+                .groupBy(advertisement.gender, advertisement.season, advertisement.age, advertisement.size,
+                        advertisement.subcategory.id)
+                .fetch();
+    }
+
+    private JPAQuery<AdvertisementTitleRow> selectTitles() {
+        return queryFactory.select(Projections.constructor(AdvertisementTitleRow.class,
+                        advertisement.id, advertisement.topic, advertisement.defaultPhotoHash, legacyDefaultPhoto(),
+                        advertisement.created, location))
+                .from(advertisement)
+                .leftJoin(advertisement.location, location);
+    }
+
+    /**
+     * Whether the default photo isn't moved to the image storage yet. Only the flag is selected, while the content is
+     * served by the advertisement ID until the migration
+     */
+    private static Expression<Boolean> legacyDefaultPhoto() {
+        return Expressions.booleanTemplate("case when {0} is not null then true else false end", advertisement.defaultPhoto);
+    }
+}
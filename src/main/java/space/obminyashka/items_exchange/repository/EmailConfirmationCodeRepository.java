@@ -18,4 +18,9 @@ public interface EmailConfirmationCodeRepository extends JpaRepository<EmailConf
     @Query(nativeQuery = true, value = "insert into email_confirmation_code(id, user_id, expiry_date, type)" +
             "values(:codeId, (select id from user where email = :email), :expiryData, :type)")
     void saveConfirmationCode(UUID codeId, String email, LocalDateTime expiryData, String type);
+
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = "delete from email_confirmation_code where expiry_date < :threshold limit :limit")
+    int deleteExpiredBefore(LocalDateTime threshold, int limit);
 }
@@ -1,13 +1,19 @@
 package space.obminyashka.items_exchange.repository;
 
 import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import space.obminyashka.items_exchange.repository.model.Image;
+import space.obminyashka.items_exchange.repository.projection.ImageResourceProjection;
+import space.obminyashka.items_exchange.repository.projection.PendingImageProjection;
+import space.obminyashka.items_exchange.repository.projection.StoredImageHashesProjection;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -15,11 +21,23 @@ public interface ImageRepository extends JpaRepository<Image, UUID> {
 
     List<Image> findByAdvertisementId(UUID id);
 
-    @Query("select i.resource from Image i where i.advertisement.id=:id")
-    List<byte[]> getImagesResourceByAdvertisementId(UUID id);
+    @Query("select i.id as id, i.resourceHash as resourceHash, i.resource as resource from Image i " +
+            "where i.advertisement.id=:id")
+    List<ImageResourceProjection> getImagesResourceByAdvertisementId(UUID id);
+
+    @Query("select i.id as id, i.resourceHash as resourceHash, i.resource as resource from Image i where i.id = :id")
+    Optional<ImageResourceProjection> findResourceById(UUID id);
+
+    @Query("select a.id as id, a.defaultPhotoHash as resourceHash, a.defaultPhoto as resource from Advertisement a " +
+            "where a.id = :advertisementId")
+    Optional<ImageResourceProjection> findDefaultPhotoByAdvertisementId(UUID advertisementId);
 
     void deleteAllByIdIn(List<UUID> id);
 
+    @Query("select i.resourceHash as resourceHash, i.mediumHash as mediumHash, i.thumbnailHash as thumbnailHash " +
+            "from Image i where i.id in :ids")
+    List<StoredImageHashesProjection> findStoredHashesByIdIn(Collection<UUID> ids);
+
     boolean existsAllByIdInAndAdvertisementId(List<UUID> id, UUID advertisementId);
 
     int countImageByAdvertisement_Id(UUID id);
@@ -30,7 +48,36 @@ public interface ImageRepository extends JpaRepository<Image, UUID> {
 
     @Transactional
     @Modifying
-    @Query(nativeQuery = true, value = "insert into image(id, advertisement_id, resource) " +
-            "values(:id, :advertisementId, :resource)")
-    void createImage(UUID id, UUID advertisementId, byte[] resource);
+    @Query(nativeQuery = true, value = "insert into image(id, advertisement_id, resource_hash) " +
+            "values(:id, :advertisementId, :resourceHash)")
+    void createImage(UUID id, UUID advertisementId, String resourceHash);
+
+    @Query("select i.id as id, i.resourceHash as resourceHash, i.resource as resource from Image i " +
+            "where i.resourceHash is null and i.resource is not null")
+    List<ImageResourceProjection> findNotStoredImages(Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("update Image i set i.resourceHash = :resourceHash, i.resource = null where i.id = :id")
+    void moveResourceToStorage(UUID id, String resourceHash);
+
+    @Query("select i.id as id, i.resourceHash as resourceHash, a.id as advertisementId, a.status as advertisementStatus " +
+            "from Image i join i.advertisement a where i.thumbnailHash is null and i.resourceHash is not null order by a.id")
+    List<PendingImageProjection> findPendingImages(Pageable pageable);
+
+    /**
+     * Count rows of any owner (advertisement image and its variants, default photo, user avatar) referring to the stored
+     * image, which has to be kept while there is any
+     */
+    @Query(nativeQuery = true, value = "select " +
+            "(select count(*) from image where resource_hash = :hash or medium_hash = :hash or thumbnail_hash = :hash) + " +
+            "(select count(*) from advertisement where default_photo_hash = :hash) + " +
+            "(select count(*) from user where avatar_image_hash = :hash)")
+    long countStorageReferences(String hash);
+
+    @Transactional
+    @Modifying
+    @Query("update Image i set i.resourceHash = :resourceHash, i.mediumHash = :mediumHash, " +
+            "i.thumbnailHash = :thumbnailHash where i.id = :id")
+    void updateVariantHashes(UUID id, String resourceHash, String mediumHash, String thumbnailHash);
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package space.obminyashka.items_exchange.repository;
+
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import space.obminyashka.items_exchange.repository.model.OutboxMail;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface OutboxMailRepository extends JpaRepository<OutboxMail, UUID> {
+
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = "insert into mail_outbox(id, email_to, email_type, code_id, host, language, next_attempt_at) " +
+            "values(:id, :emailTo, :emailType, :codeId, :host, :language, :nextAttemptAt)")
+    void enqueue(UUID id, String emailTo, String emailType, UUID codeId, String host, String language,
+                 LocalDateTime nextAttemptAt);
+
+    @Query("select m from mail_outbox m where m.nextAttemptAt <= :now order by m.nextAttemptAt")
+    List<OutboxMail> findDue(LocalDateTime now, Pageable pageable);
+
+    /**
+     * Take the email for sending by moving its next attempt to the end of the lease. Fails when another node has
+     * taken the email first
+     * @return {@literal 1} when the email is taken, {@literal 0} otherwise
+     */
+    @Transactional
+    @Modifying
+    @Query("update mail_outbox m set m.nextAttemptAt = :leaseUntil where m.id = :id and m.nextAttemptAt = :nextAttemptAt")
+    int claim(UUID id, LocalDateTime nextAttemptAt, LocalDateTime leaseUntil);
+
+    @Transactional
+    @Modifying
+    @Query("update mail_outbox m set m.attempts = :attempts, m.nextAttemptAt = :nextAttemptAt, m.lastError = :lastError " +
+            "where m.id = :id")
+    void reschedule(UUID id, int attempts, LocalDateTime nextAttemptAt, String lastError);
+
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = "delete from mail_outbox where next_attempt_at is null and created < :threshold limit :limit")
+    int deleteFailedBefore(LocalDateTime threshold, int limit);
+
+    @Query("select min(m.created) from mail_outbox m where m.nextAttemptAt is not null")
+    Optional<LocalDateTime> findOldestPendingCreated();
+}
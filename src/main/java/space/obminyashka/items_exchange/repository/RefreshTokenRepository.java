@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import space.obminyashka.items_exchange.repository.model.RefreshToken;
+import space.obminyashka.items_exchange.repository.projection.RefreshTokenSession;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
@@ -12,23 +13,36 @@ import java.util.UUID;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
 
-    Optional<RefreshToken> findByToken(String token);
+    @Query("select new space.obminyashka.items_exchange.repository.projection.RefreshTokenSession(" +
+            "u.id, u.username, r.name, u.language, t.expiryDate) " +
+            "from refresh_token t join t.user u join u.role r where t.tokenHash = :tokenHash")
+    Optional<RefreshTokenSession> findSessionByTokenHash(String tokenHash);
 
     @Transactional
     @Modifying
-    @Query(nativeQuery = true, value = "insert into refresh_token(id, user_id, token, expiry_date) " +
-            "values(:id, (select id from user where username = :username), :token, :expiryDate)")
-    void createRefreshToken(UUID id, String username, String token, LocalDateTime expiryDate);
+    @Query(nativeQuery = true, value = "insert into refresh_token(id, user_id, token_hash, expiry_date) " +
+            "values(:id, (select id from user where username = :username), :tokenHash, :expiryDate)")
+    void createRefreshToken(UUID id, String username, String tokenHash, LocalDateTime expiryDate);
 
-    default void createRefreshToken(String username, String token, LocalDateTime expiryDate) {
-        this.createRefreshToken(UUID.randomUUID(), username, token, expiryDate);
+    default void createRefreshToken(String username, String tokenHash, LocalDateTime expiryDate) {
+        this.createRefreshToken(UUID.randomUUID(), username, tokenHash, expiryDate);
     }
 
     @Transactional
     @Modifying
-    @Query(nativeQuery = true, value = "update refresh_token set token = :token, expiry_date = :expiryDate " +
+    @Query(nativeQuery = true, value = "update refresh_token set token_hash = :tokenHash, expiry_date = :expiryDate " +
             "where user_id = (select id from user where username = :username)")
-    void updateRefreshToken(String username, String token, LocalDateTime expiryDate);
+    void updateRefreshToken(String username, String tokenHash, LocalDateTime expiryDate);
+
+    @Transactional
+    @Modifying
+    @Query("delete from refresh_token t where t.tokenHash = :tokenHash")
+    void deleteByTokenHash(String tokenHash);
+
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = "delete from refresh_token where expiry_date < :threshold limit :limit")
+    int deleteExpiredBefore(LocalDateTime threshold, int limit);
 
     void deleteByUserUsername(String username);
 }
@@ -0,0 +1,21 @@
+package space.obminyashka.items_exchange.repository;
+
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import space.obminyashka.items_exchange.repository.model.RevokedToken;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    @Query(nativeQuery = true, value = "select jti from revoked_token where revoked_at >= :since")
+    List<String> findIdsRevokedSince(LocalDateTime since);
+
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = "delete from revoked_token where expires_at < :now")
+    int deleteExpired(LocalDateTime now);
+}
@@ -0,0 +1,17 @@
+package space.obminyashka.items_exchange.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import space.obminyashka.items_exchange.repository.model.StoredImageDeletion;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StoredImageDeletionRepository extends JpaRepository<StoredImageDeletion, String> {
+
+    @Query(nativeQuery = true, value = "select hash from stored_image_deletion where requested_at < :threshold " +
+            "order by requested_at limit :limit")
+    List<String> findHashesRequestedBefore(LocalDateTime threshold, int limit);
+}
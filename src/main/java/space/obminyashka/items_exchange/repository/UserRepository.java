@@ -1,29 +1,33 @@
 package space.obminyashka.items_exchange.repository;
 
 import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
-import space.obminyashka.items_exchange.repository.model.Advertisement;
 import space.obminyashka.items_exchange.repository.model.User;
+import space.obminyashka.items_exchange.repository.projection.ImageResourceProjection;
 import space.obminyashka.items_exchange.repository.projection.UserAuthProjection;
+import space.obminyashka.items_exchange.repository.projection.UserPrincipal;
 import space.obminyashka.items_exchange.repository.projection.UserProjection;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, UUID> {
+public interface UserRepository extends JpaRepository<User, UUID>, UserRepositoryCustom {
 
     Optional<UserAuthProjection> findAuthDataByEmailOrUsername(String email, String username);
 
     Optional<User> findByEmailOrUsername(String username, String email);
 
-    @Query("select u.advertisements from User u where u.username = :username")
-    List<Advertisement> findListAdvertisementByUsername(String username);
+    @Query("select new space.obminyashka.items_exchange.repository.projection.UserPrincipal(u.id, u.username, u.email, u.role.name) " +
+            "from User u where u.username = :usernameOrEmail or u.email = :usernameOrEmail")
+    Optional<UserPrincipal> findPrincipalByUsernameOrEmail(String usernameOrEmail);
 
     Optional<UserProjection> findUserProjectionByEmail(String email);
 
@@ -43,13 +47,22 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     @Query("select u from User u where u.username = :username")
     Optional<User> findByUsername(String username);
 
-    Optional<User> findByRefreshToken_Token(String token);
+    @Transactional
+    @Modifying
+    @Query("update User u set u.language = :language where u.id = :id")
+    void updateLanguage(UUID id, Locale language);
+
+    @Query("select u.id from User u where u.role.name = :roleName and u.updated <= :updated order by u.id")
+    List<UUID> findIdsByUpdatedLessThanEqualAndRoleName(LocalDateTime updated, String roleName, Pageable pageable);
+
+    long countByUpdatedLessThanEqualAndRoleName(LocalDateTime updated, String roleName);
 
-    List<User> findAllByUpdatedLessThanEqualAndRoleName(LocalDateTime updated, String roleName);
+    @Query("select u.avatarImageHash from User u where u.username = :username")
+    Optional<String> findAvatarImageHashByUsername(String username);
 
     @Transactional
     @Modifying
-    @Query("update User u set u.avatarImage = null where u.username = :username")
+    @Query("update User u set u.avatarImage = null, u.avatarImageHash = null where u.username = :username")
     void cleanAvatarForUserByName(String username);
 
     @Transactional
@@ -86,7 +99,16 @@ public interface UserRepository extends JpaRepository<User, UUID> {
 
     @Transactional
     @Modifying
-    @Query("update User u set u.avatarImage = :newAvatarImage where u.username = :usernameOrEmail")
-    void updateAvatarByUsername(String usernameOrEmail, byte[] newAvatarImage);
+    @Query("update User u set u.avatarImageHash = :newAvatarImageHash, u.avatarImage = null where u.username = :usernameOrEmail")
+    void updateAvatarByUsername(String usernameOrEmail, String newAvatarImageHash);
+
+    @Query("select u.id as id, u.avatarImageHash as resourceHash, u.avatarImage as resource from User u " +
+            "where u.avatarImageHash is null and u.avatarImage is not null")
+    List<ImageResourceProjection> findNotStoredAvatars(Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.avatarImageHash = :avatarImageHash, u.avatarImage = null where u.id = :id")
+    void moveAvatarToStorage(UUID id, String avatarImageHash);
 
 }
@@ -0,0 +1,16 @@
+package space.obminyashka.items_exchange.repository;
+
+import java.util.Collection;
+import java.util.UUID;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Delete users with all their rows by a fixed number of set-based statements in the foreign keys order, whatever
+     * the number of users and their advertisements is. Deals are deleted when no other user takes part in them.
+     * Advertisements of other users are kept, only the links to the deleted users are removed
+     * @param userIds IDs of users to delete
+     * @return amount of deleted users
+     */
+    int eraseAllByIds(Collection<UUID> userIds);
+}
@@ -0,0 +1,89 @@
+package space.obminyashka.items_exchange.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import space.obminyashka.items_exchange.service.util.AdvertisementsRemovedEvent;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private static final String USER_ADVERTISEMENTS = "select a.id from advertisement a where a.user_id in (:ids)";
+    private static final List<String> DEPENDENT_ROWS_DELETES = List.of(
+            "delete from favorite_advertisements where user_id in (:ids) " +
+                    "or advertisement_id in (" + USER_ADVERTISEMENTS + ")",
+            "delete from image where advertisement_id in (" + USER_ADVERTISEMENTS + ")",
+            "delete from advertisement where user_id in (:ids)",
+            "delete from phone where user_id in (:ids)",
+            "delete from child where user_id in (:ids)",
+            "delete from black_list where blocker_id in (:ids) or blocked_id in (:ids)",
+            "delete from refresh_token where user_id in (:ids)",
+            "delete from email_confirmation_code where user_id in (:ids)");
+
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Native deletes bypass the entities, so the removed advertisements and the images they referred to are announced by
+     * {@link AdvertisementsRemovedEvent} like any other removal of advertisements
+     */
+    @Override
+    @Transactional
+    public int eraseAllByIds(Collection<UUID> userIds) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        final var advertisementIds = entityManager.createQuery(
+                        "select a.id from Advertisement a where a.user.id in :ids", UUID.class)
+                .setParameter("ids", userIds)
+                .getResultList();
+        final var imageHashes = findImageHashes(userIds);
+        final var ownDealIds = entityManager.createQuery("select distinct d.id from User u join u.deals d " +
+                        "where u.id in :ids and not exists (select 1 from User other join other.deals od " +
+                        "where od.id = d.id and other.id not in :ids)", UUID.class)
+                .setParameter("ids", userIds)
+                .getResultList();
+
+        DEPENDENT_ROWS_DELETES.forEach(delete -> execute(delete, userIds));
+        execute("delete from user_deal where user_id in (:ids)", userIds);
+        if (!ownDealIds.isEmpty()) {
+            execute("delete from deal where id in (:ids)", ownDealIds);
+        }
+        final var erased = execute("delete from user where id in (:ids)", userIds);
+        eventPublisher.publishEvent(new AdvertisementsRemovedEvent(advertisementIds, imageHashes));
+        return erased;
+    }
+
+    private Set<String> findImageHashes(Collection<UUID> userIds) {
+        final var hashes = new HashSet<String>();
+        entityManager.createQuery("select i.resourceHash, i.mediumHash, i.thumbnailHash from Image i " +
+                        "where i.advertisement.user.id in :ids", Object[].class)
+                .setParameter("ids", userIds)
+                .getResultList()
+                .forEach(row -> Arrays.stream(row).map(String.class::cast).forEach(hashes::add));
+        hashes.addAll(entityManager.createQuery(
+                        "select a.defaultPhotoHash from Advertisement a where a.user.id in :ids", String.class)
+                .setParameter("ids", userIds)
+                .getResultList());
+        hashes.addAll(entityManager.createQuery("select u.avatarImageHash from User u where u.id in :ids", String.class)
+                .setParameter("ids", userIds)
+                .getResultList());
+        hashes.removeIf(Objects::isNull);
+        return hashes;
+    }
+
+    private int execute(String statement, Collection<UUID> ids) {
+        return entityManager.createNativeQuery(statement)
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+}
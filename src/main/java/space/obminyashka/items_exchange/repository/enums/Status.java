@@ -1,5 +1,5 @@
 package space.obminyashka.items_exchange.repository.enums;
 
 public enum Status {
-    NEW, UPDATED, ACTIVE, BANNED, DELETED, LOGGED_IN, LOGGED_OUT, SENT, READ
+    NEW, UPDATED, ACTIVE, BANNED, DELETED, LOGGED_IN, LOGGED_OUT, SENT, READ, PROCESSING
 }
@@ -18,7 +18,7 @@ import java.util.List;
 @AllArgsConstructor
 @Getter
 @Setter
-@EqualsAndHashCode(callSuper = true, exclude = {"defaultPhoto", "user", "subcategory", "location", "images"})
+@EqualsAndHashCode(callSuper = true, exclude = {"defaultPhoto", "defaultPhotoHash", "user", "subcategory", "location", "images"})
 public class Advertisement extends BaseEntity {
 
     private String topic;
@@ -52,6 +52,9 @@ public class Advertisement extends BaseEntity {
     @Column(name = "default_photo", length = AppConfig.COLUMN_MAX_LENGTH)
     private byte[] defaultPhoto;
 
+    @Column(name = "default_photo_hash", length = 64)
+    private String defaultPhotoHash;
+
     @ManyToOne(cascade = {CascadeType.MERGE, CascadeType.PERSIST})
     @JoinColumn(name = "subcategory_id")
     private Subcategory subcategory;
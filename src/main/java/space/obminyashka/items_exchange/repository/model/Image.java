@@ -27,12 +27,21 @@ public class Image {
     @Column(length = AppConfig.COLUMN_MAX_LENGTH)
     private byte[] resource;
 
+    @Column(name = "resource_hash", length = 64)
+    private String resourceHash;
+
+    @Column(name = "medium_hash", length = 64)
+    private String mediumHash;
+
+    @Column(name = "thumbnail_hash", length = 64)
+    private String thumbnailHash;
+
     @ManyToOne(cascade = CascadeType.PERSIST)
     @JoinColumn(name = "advertisement_id", referencedColumnName = "id")
     private Advertisement advertisement;
 
-    public Image(byte[] image, Advertisement adv) {
-        this.resource = image;
+    public Image(String resourceHash, Advertisement adv) {
+        this.resourceHash = resourceHash;
         this.advertisement = adv;
     }
 }
@@ -0,0 +1,48 @@
+package space.obminyashka.items_exchange.repository.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * An email waiting in the outbox. {@code nextAttemptAt} is empty for emails which failed all the attempts
+ */
+@Entity(name = "mail_outbox")
+@Getter
+@Setter
+@NoArgsConstructor
+public class OutboxMail {
+    @Id
+    private UUID id;
+
+    @Column(name = "email_to", nullable = false)
+    private String emailTo;
+
+    @Column(name = "email_type", nullable = false)
+    private String emailType;
+
+    @Column(name = "code_id")
+    private UUID codeId;
+
+    private String host;
+
+    private Locale language;
+
+    private int attempts;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    @Column(nullable = false, insertable = false, updatable = false)
+    private LocalDateTime created;
+}
@@ -26,9 +26,12 @@ public class RefreshToken {
     @JoinColumn(name = "user_id", referencedColumnName = "id")
     private User user;
 
-    @Column(nullable = false, unique = true)
+    /**
+     * Hex SHA-256 hash of the token, the token itself is known only to the user
+     */
+    @Column(name = "token_hash", length = 64, nullable = false, unique = true)
     @Accessors(chain = true)
-    private String token;
+    private String tokenHash;
 
     @Column(name = "expiry_date", columnDefinition = "DATE", nullable = false)
     @Accessors(chain = true)
@@ -39,8 +42,8 @@ public class RefreshToken {
     @Accessors(chain = true)
     private LocalDateTime created;
 
-    public RefreshToken(String token, LocalDateTime expiryDate) {
-        this.token = token;
+    public RefreshToken(String tokenHash, LocalDateTime expiryDate) {
+        this.tokenHash = tokenHash;
         this.expiryDate = expiryDate;
     }
 }
@@ -0,0 +1,24 @@
+package space.obminyashka.items_exchange.repository.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity(name = "stored_image_deletion")
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredImageDeletion {
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(name = "requested_at", nullable = false)
+    private LocalDateTime requestedAt;
+}
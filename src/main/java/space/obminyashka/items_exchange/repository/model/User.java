@@ -51,6 +51,9 @@ public class User extends BaseEntity implements UserDetails {
     @Builder.Default
     private byte[] avatarImage = new byte[0];
 
+    @Column(name = "avatar_image_hash", length = 64)
+    private String avatarImageHash;
+
     @Column(name = "last_online_time", columnDefinition = "TIMESTAMP", nullable = false)
     private LocalDateTime lastOnlineTime;
 
@@ -0,0 +1,11 @@
+package space.obminyashka.items_exchange.repository.projection;
+
+import space.obminyashka.items_exchange.repository.enums.AgeRange;
+import space.obminyashka.items_exchange.repository.enums.Gender;
+import space.obminyashka.items_exchange.repository.enums.Season;
+
+/**
+ * Amount of advertisements sharing the same combination of filterable attributes
+ */
+public record AdvertisementFacetCount(Gender gender, Season season, AgeRange age, String size, Long subcategoryId,
+                                      Long count) {}
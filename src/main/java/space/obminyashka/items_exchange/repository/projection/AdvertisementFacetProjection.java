@@ -0,0 +1,21 @@
+package space.obminyashka.items_exchange.repository.projection;
+
+import space.obminyashka.items_exchange.repository.enums.AgeRange;
+import space.obminyashka.items_exchange.repository.enums.Gender;
+import space.obminyashka.items_exchange.repository.enums.Season;
+
+import java.util.UUID;
+
+/**
+ * Filterable attributes of an advertisement. Used for building the in-memory facet index.
+ */
+public interface AdvertisementFacetProjection {
+    UUID getId();
+    Gender getGender();
+    Season getSeason();
+    AgeRange getAge();
+    String getSize();
+    Long getSubcategoryId();
+    Long getCategoryId();
+    UUID getLocationId();
+}
@@ -0,0 +1,13 @@
+package space.obminyashka.items_exchange.repository.projection;
+
+import java.util.UUID;
+
+/**
+ * Searchable text of an advertisement. Used for building the in-memory keyword index without loading
+ * the whole entity graph (images, location, user etc.).
+ */
+public interface AdvertisementTextProjection {
+    UUID getId();
+    String getTopic();
+    String getDescription();
+}
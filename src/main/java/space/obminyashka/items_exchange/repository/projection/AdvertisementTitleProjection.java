@@ -6,7 +6,12 @@ import java.util.UUID;
 
 public interface AdvertisementTitleProjection {
     UUID getId();
-    byte[] getDefaultPhoto();
+    String getDefaultPhotoHash();
+
+    /**
+     * @return whether the default photo content is still kept in the advertisement row instead of the image storage
+     */
+    boolean isLegacyDefaultPhoto();
     UUID getUserId();
     String getTopic();
     Location getLocation();
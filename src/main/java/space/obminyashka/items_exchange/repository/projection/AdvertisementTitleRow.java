@@ -0,0 +1,28 @@
+package space.obminyashka.items_exchange.repository.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import space.obminyashka.items_exchange.repository.model.Location;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Advertisement title fetched by a single query for listings. Favorite flag isn't resolved, so {@link #getUserId()}
+ * is always null.
+ */
+@Getter
+@AllArgsConstructor
+public class AdvertisementTitleRow implements AdvertisementTitleProjection {
+    private UUID id;
+    private String topic;
+    private String defaultPhotoHash;
+    private boolean legacyDefaultPhoto;
+    private LocalDateTime created;
+    private Location location;
+
+    @Override
+    public UUID getUserId() {
+        return null;
+    }
+}
@@ -0,0 +1,13 @@
+package space.obminyashka.items_exchange.repository.projection;
+
+import java.util.UUID;
+
+/**
+ * Reference to an image of any owner (advertisement image, default photo, user avatar). The hash points to the image
+ * storage, while the resource keeps the content of images that aren't moved to the storage yet.
+ */
+public interface ImageResourceProjection {
+    UUID getId();
+    String getResourceHash();
+    byte[] getResource();
+}
@@ -0,0 +1,15 @@
+package space.obminyashka.items_exchange.repository.projection;
+
+import space.obminyashka.items_exchange.repository.enums.Status;
+
+import java.util.UUID;
+
+/**
+ * Advertisement image stored as the original, which has no processed variants yet
+ */
+public interface PendingImageProjection {
+    UUID getId();
+    String getResourceHash();
+    UUID getAdvertisementId();
+    Status getAdvertisementStatus();
+}
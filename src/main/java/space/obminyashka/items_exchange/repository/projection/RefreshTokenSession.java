@@ -0,0 +1,15 @@
+package space.obminyashka.items_exchange.repository.projection;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Everything a refresh of the access token needs, read with the refresh token in one query
+ */
+public record RefreshTokenSession(UUID userId, String username, String role, Locale language, LocalDateTime expiryDate) {
+
+    public boolean isExpired() {
+        return expiryDate.isBefore(LocalDateTime.now());
+    }
+}
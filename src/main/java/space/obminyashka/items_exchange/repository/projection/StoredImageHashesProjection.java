@@ -0,0 +1,16 @@
+package space.obminyashka.items_exchange.repository.projection;
+
+import java.util.stream.Stream;
+
+/**
+ * Hashes of the stored original and variants of an advertisement image
+ */
+public interface StoredImageHashesProjection {
+    String getResourceHash();
+    String getMediumHash();
+    String getThumbnailHash();
+
+    default Stream<String> hashes() {
+        return Stream.of(getResourceHash(), getMediumHash(), getThumbnailHash());
+    }
+}
@@ -1,5 +1,6 @@
 package space.obminyashka.items_exchange.repository.projection;
 
+import space.obminyashka.items_exchange.repository.enums.Status;
 import space.obminyashka.items_exchange.repository.model.RefreshToken;
 import space.obminyashka.items_exchange.repository.model.Role;
 
@@ -10,10 +11,13 @@ public interface UserAuthProjection {
     UUID getId();
     String getEmail();
     String getUsername();
+    String getPassword();
+    Status getStatus();
     String getFirstName();
     String getLastName();
     Locale getLanguage();
     Role getRole();
     RefreshToken getRefreshToken();
     byte[] getAvatarImage();
+    String getAvatarImageHash();
 }
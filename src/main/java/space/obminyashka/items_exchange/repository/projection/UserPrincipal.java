@@ -0,0 +1,10 @@
+package space.obminyashka.items_exchange.repository.projection;
+
+import java.util.UUID;
+
+/**
+ * Identity of an authenticated user without the profile, avatar and relations, cheap enough to be cached between
+ * requests
+ */
+public record UserPrincipal(UUID id, String username, String email, String role) {
+}
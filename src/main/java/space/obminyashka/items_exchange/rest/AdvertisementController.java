@@ -28,7 +28,6 @@ import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
-import space.obminyashka.items_exchange.repository.model.Advertisement;
 import space.obminyashka.items_exchange.repository.model.User;
 import space.obminyashka.items_exchange.rest.api.ApiKey;
 import space.obminyashka.items_exchange.rest.dto.AdvertisementModificationDto;
@@ -37,6 +36,8 @@ import space.obminyashka.items_exchange.rest.exception.bad_request.BadRequestExc
 import space.obminyashka.items_exchange.rest.exception.bad_request.IllegalIdentifierException;
 import space.obminyashka.items_exchange.rest.request.AdvertisementFilterRequest;
 import space.obminyashka.items_exchange.rest.response.AdvertisementDisplayView;
+import space.obminyashka.items_exchange.rest.response.AdvertisementFacetsView;
+import space.obminyashka.items_exchange.rest.response.AdvertisementScrollView;
 import space.obminyashka.items_exchange.rest.response.AdvertisementTitleView;
 import space.obminyashka.items_exchange.rest.response.message.ResponseMessagesHandler;
 import space.obminyashka.items_exchange.service.AdvertisementService;
@@ -99,6 +100,32 @@ public class AdvertisementController {
         return advertisements;
     }
 
+    @PostMapping(value = ApiKey.ADV_FILTER_SCROLL, produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Find advertisements by multiple params for infinite scrolling. Newest advertisements go first",
+            description = "Pass 'nextCursor' value from the response as 'cursor' to receive the next slice. Page and random parameters are ignored")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "400", description = "BAD REQUEST")})
+    @ResponseStatus(HttpStatus.OK)
+    public AdvertisementScrollView scrollAdvertisementBySearchParameters(@Valid @RequestBody AdvertisementFilterRequest advertisementFilterRequest) {
+        AdvertisementScrollView advertisements = advertisementService.scrollAdvertisementBySearchParameters(advertisementFilterRequest);
+        log.info("[filter-scroll] Response count: {}", advertisements.content().size());
+        return advertisements;
+    }
+
+    @PostMapping(value = ApiKey.ADV_FILTER_FACETS, produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Count advertisements matched by multiple params per each gender, season, age, size and subcategory",
+            description = "Counts are calculated within the filtered advertisements. Page, size and random parameters are ignored")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "400", description = "BAD REQUEST")})
+    @ResponseStatus(HttpStatus.OK)
+    public AdvertisementFacetsView countAdvertisementFacetsBySearchParameters(@Valid @RequestBody AdvertisementFilterRequest advertisementFilterRequest) {
+        AdvertisementFacetsView facets = advertisementService.countAdvertisementFacetsBySearchParameters(advertisementFilterRequest);
+        log.info("[filter-facets] Response total: {}", facets.total());
+        return facets;
+    }
+
     @PreAuthorize("hasAnyRole('USER', 'ADMIN', 'MODERATOR')")
     @PostMapping(value = ApiKey.ADV,
             consumes = {
@@ -121,13 +148,8 @@ public class AdvertisementController {
         isValidSize(dto.getSubcategoryId(), dto.getSize());
         validateInternalEntityIds(dto.getSubcategoryId(), dto.getLocationId());
         final var owner = getUser(authentication.getName());
-        final var compressedImages = images.parallelStream()
-                .map(imageService::compress)
-                .toList();
-        byte[] scaledTitleImage = images.stream().findFirst()
-                .map(imageService::scale)
-                .orElse(compressedImages.getFirst());
-        return advertisementService.createAdvertisement(dto, owner, compressedImages, scaledTitleImage);
+        final var imageHashes = imageService.storeOriginals(images);
+        return advertisementService.createAdvertisement(dto, owner, imageHashes);
     }
 
     private void isValidSize(long subcategoryId, String size) {
@@ -194,18 +216,12 @@ public class AdvertisementController {
             @Parameter(name = "advertisementId", description = "ID of existed advertisement") @PathVariable UUID advertisementId,
             @Parameter(name = "imageId", description = "ID of existed image") @PathVariable UUID imageId,
             @Parameter(hidden = true) Authentication authentication) throws BadRequestException {
-        List<Advertisement> listAdvertisementByUser = getListAdvertisementByUser(authentication.getName());
-        if (!advertisementService.isUserHasAdvertisementAndItHasImageWithId(advertisementId, imageId, listAdvertisementByUser)) {
+        if (!advertisementService.isUserHasAdvertisementAndItHasImageWithId(advertisementId, imageId, authentication.getName())) {
             throw new BadRequestException(getMessageSource(
                     ResponseMessagesHandler.ExceptionMessage.ADVERTISEMENT_IMAGE_ID_NOT_FOUND));
         }
 
-        Advertisement advertisementByUser = listAdvertisementByUser.parallelStream()
-            .filter(advertisement -> advertisement.getId().equals(advertisementId))
-            .findFirst()
-            .orElseThrow(() -> new RuntimeException("Can`t find advertisement by id"));
-
-        advertisementService.setDefaultImage(advertisementByUser, imageId);
+        advertisementService.setDefaultImage(advertisementId, imageId);
     }
 
     private void validateInternalEntityIds(long subcategoryId, UUID locationId) throws IllegalIdentifierException {
@@ -222,12 +238,8 @@ public class AdvertisementController {
     }
 
     private User getUser(String userNameOrEmail) {
-        return userService.findByUsernameOrEmail(userNameOrEmail)
+        return userService.findReferenceByUsernameOrEmail(userNameOrEmail)
                 .orElseThrow(() -> new UsernameNotFoundException(getMessageSource(
                         ResponseMessagesHandler.ExceptionMessage.USER_NOT_FOUND)));
     }
-
-    private List<Advertisement> getListAdvertisementByUser(String usernameOrEmail) {
-        return userService.findListAdvertisementByUsername(usernameOrEmail);
-    }
 }
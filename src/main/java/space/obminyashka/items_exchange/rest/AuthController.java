@@ -14,9 +14,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.authentication.logout.SecurityContextLogoutHandler;
@@ -31,11 +29,8 @@ import space.obminyashka.items_exchange.rest.response.RefreshTokenResponse;
 import space.obminyashka.items_exchange.rest.response.UserLoginResponse;
 import space.obminyashka.items_exchange.service.AuthService;
 import space.obminyashka.items_exchange.service.JwtTokenService;
-import space.obminyashka.items_exchange.service.MailService;
 import space.obminyashka.items_exchange.service.UserService;
-import space.obminyashka.items_exchange.service.util.EmailType;
 
-import java.util.UUID;
 
 import static liquibase.util.StringUtil.escapeHtml;
 import static space.obminyashka.items_exchange.rest.response.message.MessageSourceProxy.getMessageSource;
@@ -48,10 +43,8 @@ import static space.obminyashka.items_exchange.rest.response.message.ResponseMes
 @Validated
 public class AuthController {
 
-    private final AuthenticationManager authenticationManager;
     private final UserService userService;
     private final AuthService authService;
-    private final MailService mailService;
 
     @PostMapping(value = ApiKey.AUTH_LOGIN, produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Login in a registered user")
@@ -62,11 +55,7 @@ public class AuthController {
 
         try {
             final var username = escapeHtml(userLoginRequest.getUsernameOrEmail());
-            var userLoginResponseDto = userService.findAuthDataByUsernameOrEmail(username);
-            userLoginResponseDto = authService.finalizeAuthData(userLoginResponseDto);
-            authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(
-                    userLoginResponseDto.getUsername(), userLoginRequest.getPassword()));
-            return userLoginResponseDto;
+            return authService.login(username, userLoginRequest.getPassword());
         } catch (AuthenticationException e) {
             log.warn("[AuthController] An exception occurred while authorization for '{}'", userLoginRequest.getUsernameOrEmail(), e);
             throw new BadCredentialsException(getMessageSource(INVALID_USERNAME_PASSWORD));
@@ -98,10 +87,7 @@ public class AuthController {
             return ResponseEntity.status(HttpStatus.CONFLICT).body(getMessageSource(USERNAME_EMAIL_DUPLICATE));
         }
 
-        UUID codeId = mailService.sendEmailTemplateAndGenerateConfrimationCode(userRegistrationRequest.getEmail(), EmailType.REGISTRATION, host);
-
-        if (userService.registerNewUser(userRegistrationRequest, codeId)) {
-            log.info("[AuthController] User with email validation code '{}' is successfully registered", codeId);
+        if (userService.registerNewUser(userRegistrationRequest, host)) {
             return ResponseEntity.status(HttpStatus.CREATED).body(getMessageSource(USER_CREATED));
         }
 
@@ -119,9 +105,7 @@ public class AuthController {
     public RefreshTokenResponse refreshToken(
             @Parameter(required = true)
             @RequestHeader("refresh") String refreshToken) throws RefreshTokenException {
-        final var resolvedToken = JwtTokenService.resolveToken(refreshToken);
-        userService.updatePreferableLanguage(resolvedToken);
-        return authService.renewAccessTokenByRefresh(resolvedToken);
+        return authService.renewAccessTokenByRefresh(JwtTokenService.resolveToken(refreshToken));
     }
 
     @PostMapping(value = ApiKey.AUTH_OAUTH2_SUCCESS, produces = MediaType.APPLICATION_JSON_VALUE)
@@ -17,7 +17,6 @@ import space.obminyashka.items_exchange.rest.exception.not_found.EmailValidation
 import space.obminyashka.items_exchange.rest.request.ValidationEmailRequest;
 import space.obminyashka.items_exchange.service.MailService;
 import space.obminyashka.items_exchange.service.UserService;
-import space.obminyashka.items_exchange.service.util.EmailType;
 
 import java.util.UUID;
 
@@ -58,8 +57,7 @@ public class EmailController {
             @ApiResponse(responseCode = "406", description = "NOT ACCEPTABLE")})
     @ResponseStatus(HttpStatus.OK)
     public String resendEmailCode(@Valid @RequestBody ValidationEmailRequest email, @RequestHeader(HttpHeaders.HOST) String host) {
-        var uuid = mailService.sendEmailTemplateAndGenerateConfrimationCode(email.email(), EmailType.REGISTRATION, host);
-        userService.resendValidateCode(email.email(), uuid);
+        userService.resendValidateCode(email.email(), host);
         return getMessageSource(EMAIL_RESEND_CODE);
     }
 }
@@ -10,7 +10,11 @@ import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -27,9 +31,12 @@ import space.obminyashka.items_exchange.rest.exception.not_found.EntityIdNotFoun
 import space.obminyashka.items_exchange.rest.response.ImageView;
 import space.obminyashka.items_exchange.service.AdvertisementService;
 import space.obminyashka.items_exchange.service.ImageService;
+import space.obminyashka.items_exchange.service.util.ImageContent;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import static space.obminyashka.items_exchange.rest.response.message.MessageSourceProxy.getMessageSource;
 import static space.obminyashka.items_exchange.rest.response.message.MessageSourceProxy.getParametrizedMessageSource;
@@ -41,6 +48,8 @@ import static space.obminyashka.items_exchange.rest.response.message.ResponseMes
 @Validated
 @Slf4j
 public class ImageController {
+    private static final long IMAGE_CACHE_DAYS = 365;
+
     private final ImageService imageService;
     private final AdvertisementService advertisementService;
 
@@ -62,6 +71,70 @@ public class ImageController {
         return imagesResourceByAdvertisementId;
     }
 
+    @GetMapping(ApiKey.IMAGE_CONTENT)
+    @Operation(summary = "Stream an image content by its hash. Supports conditional and partial (Range) requests")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "206", description = "PARTIAL CONTENT"),
+            @ApiResponse(responseCode = "304", description = "NOT MODIFIED"),
+            @ApiResponse(responseCode = "404", description = "NOT FOUND")})
+    public ResponseEntity<Resource> getImageContent(
+            @Parameter(name = "hash", description = "Hash of the image content taken from an image URL", required = true)
+            @PathVariable("hash") String hash,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        // Content never changes for the same hash, so it may be cached forever, but separately for every format
+        return toResponse(imageService.findContentByHash(hash, parseAcceptedTypes(accept)),
+                CacheControl.maxAge(IMAGE_CACHE_DAYS, TimeUnit.DAYS).cachePublic().immutable());
+    }
+
+    @GetMapping(ApiKey.IMAGE_LEGACY_CONTENT)
+    @Operation(summary = "Stream an image content which isn't moved to the image storage yet by the image ID")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "304", description = "NOT MODIFIED"),
+            @ApiResponse(responseCode = "404", description = "NOT FOUND")})
+    public ResponseEntity<Resource> getLegacyImageContent(
+            @Parameter(name = "image_id", description = "ID of the image taken from an image URL", required = true)
+            @PathVariable("image_id") UUID imageId,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        // The same URL serves the image after the migration moves it, so clients have to revalidate it
+        return toResponse(imageService.findLegacyContent(imageId, parseAcceptedTypes(accept)), CacheControl.noCache());
+    }
+
+    @GetMapping(ApiKey.IMAGE_LEGACY_DEFAULT_PHOTO)
+    @Operation(summary = "Stream a default photo of an advertisement which isn't moved to the image storage yet")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "304", description = "NOT MODIFIED"),
+            @ApiResponse(responseCode = "404", description = "NOT FOUND")})
+    public ResponseEntity<Resource> getLegacyDefaultPhoto(
+            @Parameter(name = "advertisement_id", description = "ID of the Advertisement taken from an image URL", required = true)
+            @PathVariable("advertisement_id") UUID advertisementId,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        // The URL is kept by the advertisement while its default photo may be replaced, so clients have to revalidate it
+        return toResponse(imageService.findDefaultPhotoContent(advertisementId, parseAcceptedTypes(accept)),
+                CacheControl.noCache());
+    }
+
+    private static ResponseEntity<Resource> toResponse(Optional<ImageContent> imageContent, CacheControl cacheControl) {
+        return imageContent
+                .map(content -> ResponseEntity.ok()
+                        .eTag(content.eTag())
+                        .cacheControl(cacheControl)
+                        .varyBy(HttpHeaders.ACCEPT)
+                        .contentType(content.mediaType())
+                        .body(content.resource()))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private static List<MediaType> parseAcceptedTypes(String accept) {
+        try {
+            return accept == null ? List.of() : MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return List.of();
+        }
+    }
+
     @GetMapping(value = ApiKey.IMAGE_BY_ADV_ID, produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Find all images for an existed advertisement by its ID")
     @ApiResponses(value = {
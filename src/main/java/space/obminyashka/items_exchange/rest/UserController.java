@@ -36,9 +36,7 @@ import space.obminyashka.items_exchange.rest.response.MyUserInfoView;
 import space.obminyashka.items_exchange.rest.response.message.ResponseMessagesHandler;
 import space.obminyashka.items_exchange.service.AdvertisementService;
 import space.obminyashka.items_exchange.service.ImageService;
-import space.obminyashka.items_exchange.service.MailService;
 import space.obminyashka.items_exchange.service.UserService;
-import space.obminyashka.items_exchange.service.util.EmailType;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -59,7 +57,6 @@ public class UserController {
     private final UserService userService;
     private final ImageService imageService;
     private final AdvertisementService advService;
-    private final MailService mailService;
 
     @GetMapping(value = ApiKey.USER_MY_INFO, produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Find a registered requested user's data")
@@ -176,8 +173,7 @@ public class UserController {
         var email = verifyEmailRequest.email();
         var resultMessage = getMessageSource(ResponseMessagesHandler.PositiveMessage.RESET_PASSWORD);
         if (userService.existsByEmail(email)) {
-            UUID codeId = mailService.sendEmailTemplateAndGenerateConfrimationCode(email, EmailType.RESET, host);
-            userService.saveCodeForResetPassword(email, codeId);
+            userService.saveCodeForResetPassword(email, host);
             return new ResponseEntity<>(resultMessage, HttpStatus.OK);
         }
         return new ResponseEntity<>(getMessageSource(RESET_PASSWORD), HttpStatus.OK);
@@ -212,8 +208,7 @@ public class UserController {
             return new ResponseEntity<>(getMessageSource(ResponseMessagesHandler.ValidationMessage.DUPLICATE_EMAIL), HttpStatus.CONFLICT);
         }
 
-        UUID codeId = mailService.sendEmailTemplateAndGenerateConfrimationCode(email, EmailType.CHANGING, host);
-        userService.updateUserEmail(username, email, codeId);
+        userService.updateUserEmail(username, email, host);
         return new ResponseEntity<>(getMessageSource(ResponseMessagesHandler.PositiveMessage.CHANGED_USER_EMAIL), HttpStatus.ACCEPTED);
     }
 
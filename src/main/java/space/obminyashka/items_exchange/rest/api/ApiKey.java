@@ -10,6 +10,8 @@ public class ApiKey {
     public static final String ADV_DEFAULT_IMAGE = ADV + "/default-image/{advertisementId}/{imageId}";
     public static final String ADV_ID = ADV + "/{advertisement_id}";
     public static final String ADV_FILTER = ADV + "/filter";
+    public static final String ADV_FILTER_SCROLL = ADV_FILTER + "/scroll";
+    public static final String ADV_FILTER_FACETS = ADV_FILTER + "/facets";
     public static final String ADV_TOTAL = ADV + "/total-amount";
     // Authorization API
     public static final String AUTH = API + "/auth";
@@ -33,6 +35,9 @@ public class ApiKey {
     public static final String IMAGE_BY_ADV_ID = IMAGE + "/{advertisement_id}";
     public static final String IMAGE_RESOURCE = IMAGE_BY_ADV_ID + "/resource";
     public static final String IMAGE_IN_ADV_COUNT = IMAGE_BY_ADV_ID + "/total";
+    public static final String IMAGE_CONTENT = IMAGE + "/content/{hash}";
+    public static final String IMAGE_LEGACY_CONTENT = IMAGE + "/legacy/content/{image_id}";
+    public static final String IMAGE_LEGACY_DEFAULT_PHOTO = IMAGE + "/legacy/default-photo/{advertisement_id}";
     // Location API
     public static final String LOCATION = API + "/location";
     public static final String LOCATION_ID = LOCATION + "/{location_id}";
@@ -11,6 +11,7 @@ import space.obminyashka.items_exchange.repository.enums.AgeRange;
 import space.obminyashka.items_exchange.repository.enums.DealType;
 import space.obminyashka.items_exchange.repository.enums.Gender;
 import space.obminyashka.items_exchange.repository.enums.Season;
+import space.obminyashka.items_exchange.repository.enums.Status;
 
 import java.util.UUID;
 
@@ -21,12 +22,16 @@ import static space.obminyashka.items_exchange.rest.response.message.ResponseMes
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@EqualsAndHashCode(exclude = {"id"})
+@EqualsAndHashCode(exclude = {"id", "status"})
 public class AdvertisementModificationDto {
 
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private UUID id;
 
+    @Schema(description = "PROCESSING until uploaded images are processed")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Status status;
+
     @Schema(requiredMode = Schema.RequiredMode.REQUIRED)
     @NotBlank(message = "{" + BLANK_TOPIC + "}")
     @Size(min = 3, max = 70, message = "{" + INVALID_SIZE + "}")
@@ -4,6 +4,7 @@ import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.ServletException;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.event.Level;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -15,6 +16,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import space.obminyashka.items_exchange.rest.exception.*;
 import space.obminyashka.items_exchange.rest.exception.bad_request.BadRequestException;
 import space.obminyashka.items_exchange.rest.exception.not_found.CategorySizeNotFoundException;
@@ -28,6 +30,7 @@ import java.util.stream.Collectors;
 @RestControllerAdvice
 @Slf4j
 public class GlobalExceptionHandler {
+    private static final String RETRY_AFTER_SECONDS = "5";
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
@@ -94,6 +97,26 @@ public class GlobalExceptionHandler {
         return logAndGetErrorMessage(request, ex, Level.ERROR);
     }
 
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    @ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+    public ErrorMessageResponse handleMaxUploadSizeExceededException(Exception ex, ServletWebRequest request) {
+        return logAndGetErrorMessage(request, ex, Level.WARN);
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorMessageResponse> handleTooManyRequestsException(Exception ex, ServletWebRequest request) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(logAndGetErrorMessage(request, ex, Level.WARN));
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorMessageResponse> handleServiceUnavailableException(Exception ex, ServletWebRequest request) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(logAndGetErrorMessage(request, ex, Level.WARN));
+    }
+
     @ExceptionHandler(UndeclaredThrowableException.class)
     public ResponseEntity<ErrorMessageResponse> handleSneakyThrownException(UndeclaredThrowableException ex, ServletWebRequest request) {
         final var cause = ex.getCause();
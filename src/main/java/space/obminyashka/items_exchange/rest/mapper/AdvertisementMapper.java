@@ -13,11 +13,11 @@ import java.util.List;
 
 @Mapper(componentModel = "spring",
         unmappedTargetPolicy = ReportingPolicy.IGNORE,
-        uses = {ImageMapper.class, LocationMapper.class, SubcategoryMapper.class})
+        uses = {ImageMapper.class, LocationMapper.class, SubcategoryMapper.class, StoredImageMapper.class})
 public interface AdvertisementMapper {
 
     @Mapping(target = "phone", ignore = true)
-    @Mapping(source = "user.avatarImage", target = "ownerAvatar")
+    @Mapping(source = "user", target = "ownerAvatar", qualifiedByName = "userAvatar")
     @Mapping(source = "user.username", target = "ownerName")
     @Mapping(source = "subcategory.category", target = "category")
     @Mapping(source = "id", target = "advertisementId")
@@ -39,7 +39,7 @@ public interface AdvertisementMapper {
     Advertisement toModel(AdvertisementModificationDto dto);
 
     @Mapping(source = "id", target = "advertisementId")
-    @Mapping(source = "defaultPhoto", target = "image")
+    @Mapping(source = ".", target = "imageUrl", qualifiedByName = "titlePhotoUrl")
     @Mapping(source = "topic", target = "title")
     @Mapping(source = ".", target = "isFavorite", conditionExpression = "java(isFavoriteByUserId(projection))")
     AdvertisementTitleView toAdvertisementTitleDto(AdvertisementTitleProjection projection);
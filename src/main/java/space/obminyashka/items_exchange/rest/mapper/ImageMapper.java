@@ -7,11 +7,18 @@ import space.obminyashka.items_exchange.rest.response.ImageView;
 
 import java.util.List;
 
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", uses = StoredImageMapper.class)
 public interface ImageMapper {
+    @Mapping(source = ".", target = "url", qualifiedByName = "imageUrl")
+    @Mapping(source = ".", target = "mediumUrl", qualifiedByName = "mediumUrl")
+    @Mapping(source = ".", target = "thumbnailUrl", qualifiedByName = "thumbnailUrl")
     ImageView toDto(Image model);
 
     @Mapping(target = "advertisement", ignore = true)
+    @Mapping(target = "resource", ignore = true)
+    @Mapping(target = "resourceHash", ignore = true)
+    @Mapping(target = "mediumHash", ignore = true)
+    @Mapping(target = "thumbnailHash", ignore = true)
     Image toModel(ImageView dto);
 
     List<ImageView> toDtoList(List<Image> modelList);
@@ -0,0 +1,66 @@
+package space.obminyashka.items_exchange.rest.mapper;
+
+import lombok.RequiredArgsConstructor;
+import org.mapstruct.Named;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+import space.obminyashka.items_exchange.repository.model.Image;
+import space.obminyashka.items_exchange.repository.model.User;
+import space.obminyashka.items_exchange.repository.projection.AdvertisementTitleProjection;
+import space.obminyashka.items_exchange.repository.projection.UserAuthProjection;
+import space.obminyashka.items_exchange.rest.api.ApiKey;
+import space.obminyashka.items_exchange.service.ImageStorage;
+
+/**
+ * Resolves images of entities through the {@link ImageStorage}. Images that aren't migrated yet are linked by the ID
+ * of their row, so mapping never writes to the storage.
+ */
+@Component
+@RequiredArgsConstructor
+public class StoredImageMapper {
+    private final ImageStorage imageStorage;
+
+    @Named("imageUrl")
+    public String toUrl(Image image) {
+        if (image.getResourceHash() == null && image.getResource() != null && image.getResource().length > 0) {
+            return UriComponentsBuilder.fromPath(ApiKey.IMAGE_LEGACY_CONTENT).buildAndExpand(image.getId()).toUriString();
+        }
+        return toUrl(image.getResourceHash());
+    }
+
+    @Named("mediumUrl")
+    public String toMediumUrl(Image image) {
+        return image.getMediumHash() != null ? toUrl(image.getMediumHash()) : toUrl(image);
+    }
+
+    @Named("thumbnailUrl")
+    public String toThumbnailUrl(Image image) {
+        return image.getThumbnailHash() != null ? toUrl(image.getThumbnailHash()) : toUrl(image);
+    }
+
+    @Named("titlePhotoUrl")
+    public String toTitlePhotoUrl(AdvertisementTitleProjection projection) {
+        if (projection.getDefaultPhotoHash() == null && projection.isLegacyDefaultPhoto()) {
+            return UriComponentsBuilder.fromPath(ApiKey.IMAGE_LEGACY_DEFAULT_PHOTO).buildAndExpand(projection.getId())
+                    .toUriString();
+        }
+        return toUrl(projection.getDefaultPhotoHash());
+    }
+
+    @Named("userAvatar")
+    public byte[] toAvatar(User user) {
+        if (user == null) {
+            return null;
+        }
+        return imageStorage.loadOrLegacy(user.getAvatarImageHash(), user.getAvatarImage());
+    }
+
+    @Named("authAvatar")
+    public byte[] toAvatar(UserAuthProjection projection) {
+        return imageStorage.loadOrLegacy(projection.getAvatarImageHash(), projection.getAvatarImage());
+    }
+
+    private String toUrl(String hash) {
+        return hash == null ? null : UriComponentsBuilder.fromPath(ApiKey.IMAGE_CONTENT).buildAndExpand(hash).toUriString();
+    }
+}
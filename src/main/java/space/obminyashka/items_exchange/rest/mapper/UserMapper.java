@@ -15,7 +15,7 @@ import java.util.Optional;
 
 @Mapper(componentModel = "spring",
         unmappedTargetPolicy = ReportingPolicy.IGNORE,
-        uses = {PhoneMapper.class, ChildMapper.class})
+        uses = {PhoneMapper.class, ChildMapper.class, StoredImageMapper.class})
 public interface UserMapper {
     default String localeToString(Locale locale) {
         return Optional.ofNullable(locale)
@@ -31,10 +31,12 @@ public interface UserMapper {
     @Mapping(target = "refreshToken", ignore = true)
     User toModel(UserLoginResponse dto);
 
+    @Mapping(source = ".", target = "avatarImage", qualifiedByName = "userAvatar")
     MyUserInfoView toDto(User model);
 
-    @Mapping(target = "refreshToken", source = "refreshToken.token")
+    @Mapping(target = "refreshToken", source = "refreshToken.tokenHash")
     @Mapping(target = "refreshTokenExpirationDate", source = "refreshToken.expiryDate")
+    @Mapping(target = "avatarImage", source = ".", qualifiedByName = "authAvatar")
     UserLoginResponse toLoginResponseDto(UserAuthProjection userAuthProjection);
 
     User toUserFromProjection(UserProjection userProjection);
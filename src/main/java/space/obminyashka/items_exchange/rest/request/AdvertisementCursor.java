@@ -0,0 +1,51 @@
+package space.obminyashka.items_exchange.rest.request;
+
+import com.querydsl.core.types.Predicate;
+import space.obminyashka.items_exchange.repository.projection.AdvertisementTitleRow;
+import space.obminyashka.items_exchange.rest.exception.bad_request.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import static space.obminyashka.items_exchange.repository.model.QAdvertisement.advertisement;
+import static space.obminyashka.items_exchange.rest.response.message.MessageSourceProxy.getMessageSource;
+import static space.obminyashka.items_exchange.rest.response.message.ResponseMessagesHandler.ValidationMessage.INVALID_CURSOR;
+
+/**
+ * Position of the last advertisement returned to an infinite-scroll client. Serialized as an opaque token, so clients
+ * shouldn't rely on its content.
+ */
+public record AdvertisementCursor(LocalDateTime created, UUID id) {
+
+    private static final String DELIMITER = "|";
+
+    public static AdvertisementCursor of(AdvertisementTitleRow lastAdvertisement) {
+        return new AdvertisementCursor(lastAdvertisement.getCreated(), lastAdvertisement.getId());
+    }
+
+    public static AdvertisementCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int delimiterIndex = decoded.indexOf(DELIMITER);
+            return new AdvertisementCursor(LocalDateTime.parse(decoded.substring(0, delimiterIndex)),
+                    UUID.fromString(decoded.substring(delimiterIndex + 1)));
+        } catch (RuntimeException e) {
+            throw new BadRequestException(getMessageSource(INVALID_CURSOR));
+        }
+    }
+
+    public String encode() {
+        String raw = created + DELIMITER + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return condition selecting advertisements placed after this cursor in (created DESC, id DESC) order
+     */
+    public Predicate toPredicate() {
+        return advertisement.created.lt(created)
+                .or(advertisement.created.eq(created).and(advertisement.id.lt(id)));
+    }
+}
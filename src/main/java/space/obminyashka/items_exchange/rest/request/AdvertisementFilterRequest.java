@@ -21,8 +21,10 @@ import space.obminyashka.items_exchange.rest.request.predicate.QPredicate;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static space.obminyashka.items_exchange.rest.response.message.ResponseMessagesHandler.ValidationMessage.INVALID_SIZE_COMBINATION;
@@ -38,6 +40,9 @@ public class AdvertisementFilterRequest {
     @Schema(description = "Number of records per page", defaultValue = "12")
     private int size = 12;
 
+    @Schema(description = "Opaque cursor returned by the previous scroll request. Skip it to get the first slice")
+    private String cursor;
+
     @Schema(description = "Set true if you need random advertisement", defaultValue = "false")
     private boolean enableRandom = false;
 
@@ -93,21 +98,59 @@ public class AdvertisementFilterRequest {
     }
 
     public Predicate toPredicate() {
+        return toPredicate(kw -> Optional.empty());
+    }
 
+    /**
+     * Builds the filter predicate narrowing down the keyword condition with the candidates found by a keyword index
+     * @param keywordCandidates returns IDs of all advertisements that may match the keyword or empty {@link Optional}
+     *                          when only the SQL keyword condition should be used
+     * @return the predicate with all the filter conditions
+     */
+    public Predicate toPredicate(Function<String, Optional<Set<UUID>>> keywordCandidates) {
+        return toPredicate(keywordCandidates, null);
+    }
+
+    /**
+     * Builds the filter predicate without the selection of one facet, so the facet options are counted as if
+     * none of them were selected
+     * @param keywordCandidates the same as for {@link #toPredicate(Function)}
+     * @param ignored facet which selection is skipped or {@literal null} to apply all the conditions
+     * @return the predicate with all the filter conditions except the ignored one
+     */
+    public Predicate toPredicate(Function<String, Optional<Set<UUID>>> keywordCandidates, Facet ignored) {
         return QPredicate.builder()
-                .add(gender, QAdvertisement.advertisement.gender::eq)
+                .add(ignored == Facet.GENDER ? null : gender, QAdvertisement.advertisement.gender::eq)
                 .add(excludeAdvertisementId, QAdvertisement.advertisement.id::ne)
                 .add(locationId, QAdvertisement.advertisement.location.id::eq)
-                .add(season, QAdvertisement.advertisement.season::in)
-                .add(extractClothingSizeRanges(clothingSizes), QAdvertisement.advertisement.size::in)
-                .add(extractShoesSizeLengths(shoesSizes), QAdvertisement.advertisement.size::in)
-                .add(age, QAdvertisement.advertisement.age::in)
-                .add(subcategoriesIdValues, QAdvertisement.advertisement.subcategory.id::in)
+                .add(ignored == Facet.SEASON ? null : season, QAdvertisement.advertisement.season::in)
+                .add(ignored == Facet.SIZE ? null : extractClothingSizeRanges(), QAdvertisement.advertisement.size::in)
+                .add(ignored == Facet.SIZE ? null : extractShoesSizeLengths(), QAdvertisement.advertisement.size::in)
+                .add(ignored == Facet.AGE ? null : age, QAdvertisement.advertisement.age::in)
+                .add(ignored == Facet.SUBCATEGORY ? null : subcategoriesIdValues, QAdvertisement.advertisement.subcategory.id::in)
                 .add(categoryId, QAdvertisement.advertisement.subcategory.category.id::eq)
-                .add(keyword, this::createKeywordCondition)
+                .add(keyword, kw -> createKeywordCondition(kw, keywordCandidates.apply(kw)))
                 .buildAnd();
     }
 
+    public boolean isSelected(Facet facet) {
+        return switch (facet) {
+            case GENDER -> gender != null;
+            case SEASON -> CollectionUtils.isNotEmpty(season);
+            case AGE -> CollectionUtils.isNotEmpty(age);
+            case SIZE -> CollectionUtils.isNotEmpty(clothingSizes) || CollectionUtils.isNotEmpty(shoesSizes);
+            case SUBCATEGORY -> CollectionUtils.isNotEmpty(subcategoriesIdValues);
+        };
+    }
+
+    private BooleanExpression createKeywordCondition(String keyword, Optional<Set<UUID>> candidates) {
+        return candidates
+                .map(ids -> ids.isEmpty()
+                        ? Expressions.asBoolean(false).isTrue()
+                        : QAdvertisement.advertisement.id.in(ids).and(createKeywordCondition(keyword)))
+                .orElseGet(() -> createKeywordCondition(keyword));
+    }
+
     private BooleanExpression createKeywordCondition(String keyword) {
         keyword = keyword.trim();
         String[] keywords = keyword.split("\\s+");
@@ -121,15 +164,23 @@ public class AdvertisementFilterRequest {
         return keywordCondition;
     }
 
-    private Set<String> extractClothingSizeRanges(Set<Size.Clothing> clothingSizes) {
+    public Set<String> extractClothingSizeRanges() {
         return clothingSizes.stream()
                 .map(Size.Clothing::getRange)
                 .collect(Collectors.toSet());
     }
 
-    private Set<String> extractShoesSizeLengths(Set<Size.Shoes> shoesSizes) {
+    public Set<String> extractShoesSizeLengths() {
         return shoesSizes.stream().map(Size.Shoes::getLength)
                 .map(String::valueOf)
                 .collect(Collectors.toSet());
     }
+
+    /**
+     * Filter parameters advertisements are counted by. The options of a facet are counted without its own selection,
+     * so selecting one option doesn't hide the rest of them
+     */
+    public enum Facet {
+        GENDER, SEASON, AGE, SIZE, SUBCATEGORY
+    }
 }
@@ -0,0 +1,14 @@
+package space.obminyashka.items_exchange.rest.response;
+
+import space.obminyashka.items_exchange.repository.enums.Gender;
+import space.obminyashka.items_exchange.repository.enums.Season;
+
+import java.util.Map;
+
+public record AdvertisementFacetsView(long total,
+                                      Map<Gender, Long> gender,
+                                      Map<Season, Long> season,
+                                      Map<String, Long> age,
+                                      Map<String, Long> clothingSizes,
+                                      Map<String, Long> shoesSizes,
+                                      Map<Long, Long> subcategories) {}
@@ -0,0 +1,5 @@
+package space.obminyashka.items_exchange.rest.response;
+
+import java.util.List;
+
+public record AdvertisementScrollView(List<AdvertisementTitleView> content, boolean hasNext, String nextCursor) {}
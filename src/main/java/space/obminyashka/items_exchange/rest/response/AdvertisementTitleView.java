@@ -13,7 +13,7 @@ import java.util.UUID;
 @EqualsAndHashCode(exclude = {"advertisementId"})
 public class AdvertisementTitleView {
     private UUID advertisementId;
-    private byte[] image;
+    private String imageUrl;
     private boolean isFavorite;
     private String title;
     private LocationDto location;
@@ -16,5 +16,8 @@ import static space.obminyashka.items_exchange.rest.response.message.ResponseMes
 @Setter
 public class ImageView {
     private UUID id;
-    private byte @NotNull(message = "{" + INVALID_NOT_NULL + "}") [] resource;
+    @NotNull(message = "{" + INVALID_NOT_NULL + "}")
+    private String url;
+    private String mediumUrl;
+    private String thumbnailUrl;
 }
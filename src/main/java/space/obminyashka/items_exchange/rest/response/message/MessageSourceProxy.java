@@ -7,6 +7,8 @@ import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.stereotype.Component;
 
+import java.util.Locale;
+
 @Component
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class MessageSourceProxy {
@@ -28,6 +30,10 @@ public class MessageSourceProxy {
                 LocaleContextHolder.getLocale());
     }
 
+    public static String getLocalizedMessageSource(String message, Locale locale) {
+        return mSource.getMessage(message, null, locale);
+    }
+
     public static String getExceptionMessageSourceWithId(long id, String message) {
         return getMessageSource(message) + id;
     }
@@ -43,6 +43,7 @@ public class ResponseMessagesHandler {
         public static final String INVALID_LOCATION_ID = "invalid.location.id";
         public static final String INVALID_TOKEN = "invalid.token";
         public static final String INVALID_REFRESH_TOKEN = "refresh.token.invalid";
+        public static final String INVALID_CURSOR = "invalid.cursor";
         public static final String USER_NOT_REGISTERED = "user.not-registered";
         public static final String USER_NOT_OWNER = "user.not-owner";
         public static final String USER_CREATED = "user.created";
@@ -73,6 +74,8 @@ public class ResponseMessagesHandler {
         public static final String NOT_IMPLEMENTED = "exception.not-implemented";
         public static final String IMAGE_BY_ADV_NOT_FOUND = "exception.image.not-found-by-existed-adv";
         public static final String RESET_PASSWORD = "exception.reset-password";
+        public static final String UPLOAD_BUDGET_EXHAUSTED = "exception.upload.budget.exhausted";
+        public static final String SERVICE_BUSY = "exception.service.busy";
     }
 
     @NoArgsConstructor(access = AccessLevel.PRIVATE)
@@ -3,12 +3,13 @@ package space.obminyashka.items_exchange.service;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import space.obminyashka.items_exchange.repository.model.Advertisement;
 import space.obminyashka.items_exchange.repository.model.User;
 import space.obminyashka.items_exchange.rest.dto.AdvertisementModificationDto;
 import space.obminyashka.items_exchange.rest.exception.IllegalOperationException;
 import space.obminyashka.items_exchange.rest.request.AdvertisementFilterRequest;
 import space.obminyashka.items_exchange.rest.response.AdvertisementDisplayView;
+import space.obminyashka.items_exchange.rest.response.AdvertisementFacetsView;
+import space.obminyashka.items_exchange.rest.response.AdvertisementScrollView;
 import space.obminyashka.items_exchange.rest.response.AdvertisementTitleView;
 
 import java.util.List;
@@ -62,6 +63,21 @@ public interface AdvertisementService {
      */
     Page<AdvertisementTitleView> filterAdvertisementBySearchParameters(AdvertisementFilterRequest request);
 
+    /**
+     * Filter advertisements by search parameters from AdvertisementFilterRequest continuing from its cursor
+     * (newest advertisements first). Total amount of records isn't calculated.
+     * @param request an object that contains all parameters to search and the cursor returned by a previous call
+     * @return advertisements after the cursor and the cursor for the next call
+     */
+    AdvertisementScrollView scrollAdvertisementBySearchParameters(AdvertisementFilterRequest request);
+
+    /**
+     * Count advertisements matched by search parameters from AdvertisementFilterRequest per each filter option
+     * @param request an object that contains all parameters to search
+     * @return amounts of matched advertisements per gender, season, age, size and subcategory
+     */
+    AdvertisementFacetsView countAdvertisementFacetsBySearchParameters(AdvertisementFilterRequest request);
+
     /**
      * Check whenever user has an advertisement with selected id
      *
@@ -72,15 +88,15 @@ public interface AdvertisementService {
     void validateUserAsAdvertisementOwner(UUID id, String username) throws IllegalOperationException, EntityNotFoundException;
 
     /**
-     * Create a new advertisement
+     * Create a new advertisement in the {@link space.obminyashka.items_exchange.repository.enums.Status#PROCESSING}
+     * status. Images are compressed and the title image is made in the background afterward
      * @param modificationDto DTO for converting and saving
      * @param user owner of a new advertisement
-     * @param compressedImages images related to an advertisement
-     * @param titleImage scaled title image
+     * @param imageHashes hashes of original images related to an advertisement, the first one is the title image
      * @return saved advertisement DTO with updated id
      */
     AdvertisementModificationDto createAdvertisement(AdvertisementModificationDto modificationDto, User user,
-                                                     List<byte[]> compressedImages, byte[] titleImage);
+                                                     List<String> imageHashes);
 
     /**
      * Update existed advertisement
@@ -97,20 +113,19 @@ public interface AdvertisementService {
 
     /**
      * Set an image as title image of an advertisement
-     * @param advertisement advertisement for setting the title image
+     * @param advertisementId id of the advertisement for setting the title image
      * @param imageId id of an image that planned to be set as title image
      */
-    void setDefaultImage(Advertisement advertisement, UUID imageId);
+    void setDefaultImage(UUID advertisementId, UUID imageId);
 
     /**
      * Check if a user owns such advertisement, and it has selected image
      * @param advertisementId id of selected advertisement to check
      * @param imageId id of an image to check into the advertisement
-     * @param advertisements check the advertisement and the image
+     * @param username login of the user to check
      * @return result of the check
      */
-    boolean isUserHasAdvertisementAndItHasImageWithId(UUID advertisementId, UUID imageId,
-                                                        List<Advertisement> advertisements);
+    boolean isUserHasAdvertisementAndItHasImageWithId(UUID advertisementId, UUID imageId, String username);
 
     /**
      * Returns whether an advertisement with the given id exists.
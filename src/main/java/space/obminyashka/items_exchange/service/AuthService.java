@@ -6,6 +6,16 @@ import space.obminyashka.items_exchange.rest.response.UserLoginResponse;
 
 public interface AuthService {
 
+    /**
+     * Check the credentials and create tokens for the user. The password is checked before any token is created
+     *
+     * @param usernameOrEmail login or email of the user
+     * @param password raw password received from the user
+     * @return response on /login endpoint represented as {@link UserLoginResponse}
+     * @throws org.springframework.security.core.AuthenticationException when the credentials are wrong
+     */
+    UserLoginResponse login(String usernameOrEmail, String password);
+
     /**
      * Creates {@link UserLoginResponse} from {@param username} is user exists in the database
      *
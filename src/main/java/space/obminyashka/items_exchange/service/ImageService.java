@@ -1,15 +1,21 @@
 package space.obminyashka.items_exchange.service;
 
 import lombok.SneakyThrows;
+import org.springframework.http.MediaType;
 import org.springframework.web.multipart.MultipartFile;
 import space.obminyashka.items_exchange.repository.model.Image;
 import space.obminyashka.items_exchange.rest.exception.ElementsNumberExceedException;
 import space.obminyashka.items_exchange.rest.exception.UnsupportedMediaTypeException;
 import space.obminyashka.items_exchange.rest.response.ImageView;
+import space.obminyashka.items_exchange.service.util.EncodedImage;
+import space.obminyashka.items_exchange.service.util.ImageContent;
+import space.obminyashka.items_exchange.service.util.ImageVariant;
 import space.obminyashka.items_exchange.service.util.SupportedMediaTypes;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface ImageService {
@@ -20,6 +26,33 @@ public interface ImageService {
      */
     List<byte[]> getImagesResourceByAdvertisementId(UUID advertisementId);
 
+    /**
+     * Find stored image content by its hash in the best format accepted by a client. Alternative formats are chosen
+     * only when the client names them explicitly, otherwise the image is returned in its original format
+     * @param hash SHA-256 hash of the image content
+     * @param acceptedTypes media types from the {@literal Accept} header of the client
+     * @return streamable image content or empty {@link Optional} when there is no image with the hash
+     */
+    Optional<ImageContent> findContentByHash(String hash, List<MediaType> acceptedTypes);
+
+    /**
+     * Find content of an advertisement image which may still be kept in the image row. The content is read as is, so
+     * image URLs don't have to move it to the storage before the migration does
+     * @param imageId ID of the image
+     * @param acceptedTypes media types from the {@literal Accept} header of the client
+     * @return streamable image content or empty {@link Optional} when there is no image with the ID
+     */
+    Optional<ImageContent> findLegacyContent(UUID imageId, List<MediaType> acceptedTypes);
+
+    /**
+     * Find the default photo of an advertisement which may still be kept in the advertisement row. The content is read
+     * as is, so listings don't have to move it to the storage before the migration does
+     * @param advertisementId ID of the advertisement
+     * @param acceptedTypes media types from the {@literal Accept} header of the client
+     * @return streamable image content or empty {@link Optional} when the advertisement doesn't have a default photo
+     */
+    Optional<ImageContent> findDefaultPhotoContent(UUID advertisementId, List<MediaType> acceptedTypes);
+
     /**
      * Return all Image DTO for received Advertisement ID
      * @param advertisementId Advertisement ID
@@ -39,7 +72,26 @@ public interface ImageService {
     byte[] compress(MultipartFile image);
 
     /**
-     * Create new entity for each received image, link them to the Advertisement using its ID and store them to the DB
+     * Make in-memory compressing (30% of basic quality) of already validated image bytes
+     * @param image bytes of the image for further compression
+     * @return compresses image's bytes or the received bytes when the image type can't be compressed
+     */
+    byte[] compress(byte[] image);
+
+    /**
+     * Validate types of received images and put them to the image storage as is, without any processing
+     * @param images images to store
+     * @return hashes of the stored images in the same order
+     * @apiNote throw {@link IOException} in cases when received image can't be read AND
+     * throw {@link UnsupportedMediaTypeException} in case receiving unsupported types
+     * @see SupportedMediaTypes supported media types
+     */
+    @SneakyThrows({IOException.class, UnsupportedMediaTypeException.class})
+    List<String> storeOriginals(List<MultipartFile> images);
+
+    /**
+     * Create new entity for each received image, link them to the Advertisement using its ID and store them to the DB.
+     * Images are saved as they are received and compressed in the background afterward
      *
      * @param advertisementId to link images with
      * @param images          list of images that need to be linked with the Advertisement and saved to the DB
@@ -81,6 +133,23 @@ public interface ImageService {
      */
     byte[] scale(byte[] bytes);
 
+    /**
+     * Makes scaled image from given image bytes, images which already fit the edge are returned as is
+     * @param bytes bytes representative of image to scale
+     * @param edge size in pixels the smaller side of the image is scaled to
+     * @return scaled image bytes
+     */
+    byte[] scale(byte[] bytes, int edge);
+
+    /**
+     * Make all the variants of an uploaded image together with their alternative encodings configured by
+     * {@code app.image.variant.<variant>.alternative.types}. An image which can't be decoded is kept as uploaded for
+     * every variant
+     * @param original bytes of the image as it was uploaded
+     * @return encoded image of every {@link ImageVariant}
+     */
+    Map<ImageVariant, EncodedImage> createVariants(byte[] original);
+
     /**
      * Making count of all images into an advertisement by its ID
      * @param id advertisement ID
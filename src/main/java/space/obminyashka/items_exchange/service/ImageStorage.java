@@ -0,0 +1,95 @@
+package space.obminyashka.items_exchange.service;
+
+import org.springframework.core.io.Resource;
+
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Content-addressed storage of image bytes. Images are identified by the hex SHA-256 hash of their content, so the same
+ * image is stored only once and only its hash has to be kept in the DB.
+ */
+public interface ImageStorage {
+
+    /**
+     * Store image content unless the same content is already stored. Storing content which is already stored refreshes
+     * its {@link #lastStored(String)} time
+     * @param content image bytes
+     * @return hex SHA-256 hash of the content to be used as the image reference
+     */
+    String store(byte[] content);
+
+    /**
+     * Store image content read from the stream unless the same content is already stored. The content is copied through
+     * a small buffer, so it is never held in memory as a whole
+     * @param content stream of image bytes, it is read to the end but not closed
+     * @return hex SHA-256 hash of the content to be used as the image reference
+     */
+    String store(InputStream content);
+
+    /**
+     * Read image content by its hash
+     * @param hash hash returned by {@link #store(byte[])}
+     * @return image bytes or empty {@link Optional} when there is no image with the hash
+     */
+    Optional<byte[]> load(String hash);
+
+    /**
+     * Get image content by its hash as a resource which can be streamed without reading the whole image into memory
+     * @param hash hash returned by {@link #store(byte[])}
+     * @return image resource or empty {@link Optional} when there is no image with the hash
+     */
+    Optional<Resource> loadAsResource(String hash);
+
+    /**
+     * Store the same image encoded into another format next to the image with the hash. An alternative never changes,
+     * as the image it is made of never changes too
+     * @param hash hash returned by {@link #store(byte[])} for the original encoding
+     * @param format lowercase name of the alternative format, e.g. {@literal webp}
+     * @param content image bytes in the alternative format
+     */
+    void storeAlternative(String hash, String format, byte[] content);
+
+    /**
+     * Get an alternative encoding of an image as a resource
+     * @param hash hash returned by {@link #store(byte[])} for the original encoding
+     * @param format lowercase name of the alternative format
+     * @return image resource or empty {@link Optional} when there is no such alternative
+     */
+    Optional<Resource> loadAlternativeAsResource(String hash, String format);
+
+    /**
+     * Remove an image together with all its alternative encodings. A missing image is ignored
+     * @param hash hash returned by {@link #store(byte[])}
+     */
+    void delete(String hash);
+
+    /**
+     * Get the time the image was stored last, so an image stored again for a new owner isn't deleted before the owner
+     * refers to it
+     * @param hash hash returned by {@link #store(byte[])}
+     * @return the time or empty {@link Optional} when there is no image with the hash
+     */
+    Optional<Instant> lastStored(String hash);
+
+    /**
+     * Check whether an image with the hash is stored
+     * @param hash hash returned by {@link #store(byte[])}
+     * @return {@literal true} if the image exists
+     */
+    boolean exists(String hash);
+
+    /**
+     * Resolve image content of an entity that may not be migrated to the storage yet
+     * @param hash image hash or {@literal null} for legacy entities
+     * @param legacyContent bytes kept in the DB before the image storage was introduced
+     * @return stored content, legacy content or an empty array when the entity has no image
+     */
+    default byte[] loadOrLegacy(String hash, byte[] legacyContent) {
+        if (hash != null) {
+            return load(hash).orElseGet(() -> legacyContent != null ? legacyContent : new byte[0]);
+        }
+        return legacyContent != null ? legacyContent : new byte[0];
+    }
+}
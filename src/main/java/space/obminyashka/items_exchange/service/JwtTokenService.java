@@ -9,14 +9,19 @@ import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
 import org.springframework.security.oauth2.jwt.*;
 import org.springframework.stereotype.Service;
 import space.obminyashka.items_exchange.repository.model.Role;
-import space.obminyashka.items_exchange.service.util.InvalidatedTokensHolder;
+import space.obminyashka.items_exchange.service.util.RevokedTokenFilter;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Date;
+import java.util.Base64;
+import java.util.HexFormat;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -27,7 +32,10 @@ public class JwtTokenService implements OAuth2TokenValidator<Jwt> {
 
     private static final String BEARER_PREFIX = "Bearer ";
     private static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
-    private final InvalidatedTokensHolder invalidatedTokensHolder;
+    private static final int REFRESH_TOKEN_BYTES = 32;
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+    private final TokenRevocationStore tokenRevocationStore;
+    private final RevokedTokenFilter revokedTokenFilter;
     private final JwtEncoder tokenEncoder;
     private final JwtDecoder tokenDecoder;
 
@@ -39,33 +47,97 @@ public class JwtTokenService implements OAuth2TokenValidator<Jwt> {
     @Override
     public OAuth2TokenValidatorResult validate(Jwt token) {
         final var isTokenValid = Instant.now().isBefore(token.getExpiresAt())
-                && !invalidatedTokensHolder.isInvalidated(token.getTokenValue());
+                && !isRevoked(getTokenId(token));
         return isTokenValid
                 ? OAuth2TokenValidatorResult.success()
                 : OAuth2TokenValidatorResult.failure(new OAuth2Error("Token is expired"));
     }
 
     public String createAccessToken(String username, Role role) {
+        return issueAccessToken(username, role).value();
+    }
+
+    /**
+     * Create an access token and return it with its expiration time, so the token doesn't have to be decoded back
+     * @param username subject of the token
+     * @param role role to be put into the token scope
+     * @return new access token
+     */
+    public AccessToken issueAccessToken(String username, Role role) {
+        return issueAccessToken(username, role.getName());
+    }
+
+    /**
+     * Create an access token for the role name, so the token can be issued without loading the {@link Role} entity
+     * @param username subject of the token
+     * @param roleName name of the role to be put into the token scope
+     * @return new access token
+     */
+    public AccessToken issueAccessToken(String username, String roleName) {
         final var now = Instant.now();
         final var expiresAt = now.plusMillis(jwtAccessTokenExpirationMillis);
         final var claims = JwtClaimsSet.builder()
                 .issuer("self")
+                .id(UUID.randomUUID().toString())
                 .subject(username)
-                .claim("scope", role.getName())
+                .claim("scope", roleName)
                 .issuedAt(now)
                 .expiresAt(expiresAt)
                 .build();
-        return this.tokenEncoder.encode(JwtEncoderParameters.from(JwsHeader.with(() -> "HS256").build(), claims))
+        final var value = this.tokenEncoder.encode(JwtEncoderParameters.from(JwsHeader.with(() -> "HS256").build(), claims))
                 .getTokenValue();
+        return new AccessToken(value, toLocalDateTime(expiresAt));
     }
 
     public void invalidateAccessToken(String token) {
-        Instant expirationDate = tokenDecoder.decode(token).getExpiresAt();
-        invalidatedTokensHolder.invalidate(token, Date.from(expirationDate));
+        final var jwt = tokenDecoder.decode(token);
+        final var tokenId = getTokenId(jwt);
+        tokenRevocationStore.revoke(tokenId, jwt.getExpiresAt());
+        revokedTokenFilter.put(tokenId);
+    }
+
+    /**
+     * The filter rejects almost every valid token, so the store is asked only about revoked ones
+     */
+    private boolean isRevoked(String tokenId) {
+        return revokedTokenFilter.mightContain(tokenId) && tokenRevocationStore.isRevoked(tokenId);
+    }
+
+    /**
+     * Tokens issued before the {@code jti} claim was introduced are identified by the SHA-256 hash of their value
+     */
+    private static String getTokenId(Jwt token) {
+        return Optional.ofNullable(token.getId())
+                .orElseGet(() -> sha256(token.getTokenValue()));
     }
 
-    public String generateRefreshToken(String username) {
-        return String.format("%s%s", username, UUID.randomUUID());
+    private static String sha256(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    /**
+     * Create an opaque refresh token of {@value #REFRESH_TOKEN_BYTES} random bytes. Only its hash is stored, see
+     * {@link #hashRefreshToken(String)}
+     * @return URL-safe Base64 encoded token
+     */
+    public String generateRefreshToken() {
+        final var token = new byte[REFRESH_TOKEN_BYTES];
+        SECURE_RANDOM.nextBytes(token);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+
+    /**
+     * Refresh tokens are random, so a plain SHA-256 hash is enough to keep them useless for whoever reads the DB
+     * @param refreshToken token returned by {@link #generateRefreshToken()}
+     * @return hex SHA-256 hash of fixed 64 characters length
+     */
+    public static String hashRefreshToken(String refreshToken) {
+        return sha256(refreshToken);
     }
 
     public LocalDateTime generateRefreshTokenExpirationTime() {
@@ -74,11 +146,14 @@ public class JwtTokenService implements OAuth2TokenValidator<Jwt> {
 
     public LocalDateTime getAccessTokenExpiration(String accessToken) {
         return Optional.ofNullable(tokenDecoder.decode(accessToken).getExpiresAt())
-                .map(instant -> instant.atZone(ZoneId.of("Europe/Kiev")))
-                .map(ZonedDateTime::toLocalDateTime)
+                .map(JwtTokenService::toLocalDateTime)
                 .orElse(LocalDateTime.now());
     }
 
+    private static LocalDateTime toLocalDateTime(Instant instant) {
+        return instant.atZone(ZoneId.of("Europe/Kiev")).toLocalDateTime();
+    }
+
     public String getRefreshTokenExpiration(ZonedDateTime zonedDateTime) {
         return zonedDateTime.plusSeconds(jwtRefreshTokenExpirationSeconds)
                 .format(DateTimeFormatter.ofPattern(DATE_FORMAT));
@@ -90,4 +165,7 @@ public class JwtTokenService implements OAuth2TokenValidator<Jwt> {
                 .map(it -> it.substring(BEARER_PREFIX.length()))
                 .orElse(token);
     }
+
+    public record AccessToken(String value, LocalDateTime expirationDate) {
+    }
 }
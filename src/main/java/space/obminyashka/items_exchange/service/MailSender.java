@@ -0,0 +1,40 @@
+package space.obminyashka.items_exchange.service;
+
+import space.obminyashka.items_exchange.rest.exception.EmailSendingException;
+import space.obminyashka.items_exchange.service.util.OutgoingMail;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delivers emails taken from the outbox. The implementation is chosen by the {@code app.mail.sender} property
+ */
+public interface MailSender {
+
+    /**
+     * Send an email with the template of its type
+     *
+     * @param mail the email to send
+     * @throws EmailSendingException when the email isn't accepted for the delivery
+     */
+    void send(OutgoingMail mail);
+
+    /**
+     * Send emails in bulk. A failure of some emails doesn't stop sending the others
+     *
+     * @param mails the emails to send
+     * @return emails which aren't accepted for the delivery with the reason, keyed by the given instances
+     */
+    default Map<OutgoingMail, EmailSendingException> sendAll(List<OutgoingMail> mails) {
+        final Map<OutgoingMail, EmailSendingException> failed = new IdentityHashMap<>();
+        for (OutgoingMail mail : mails) {
+            try {
+                send(mail);
+            } catch (EmailSendingException e) {
+                failed.put(mail, e);
+            }
+        }
+        return failed;
+    }
+}
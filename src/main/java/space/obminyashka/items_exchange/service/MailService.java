@@ -1,22 +1,26 @@
 package space.obminyashka.items_exchange.service;
 
-import org.springframework.scheduling.annotation.Scheduled;
 import space.obminyashka.items_exchange.rest.exception.not_found.EmailValidationCodeNotFoundException;
 import space.obminyashka.items_exchange.service.util.EmailType;
 
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface MailService {
 
     /**
-     * Send a simple email to an end-user with provided locale
+     * Generate a confirmation code, save it and queue an email with it to an end-user with the current locale. The code
+     * and the email are saved in one transaction, so an email is never sent for a code which wasn't saved. The email is
+     * sent in background once the transaction is committed
      *
      * @param emailTo   a receiver email address
      * @param emailType one of the supported email types to be sent
      * @param host domain name url
+     * @param codeSaver saves the generated code, it runs in the transaction and has to be quick
      * @return generated code for confirming email
      */
-    UUID sendEmailTemplateAndGenerateConfrimationCode(String emailTo, EmailType emailType, String host);
+    UUID sendEmailTemplateAndGenerateConfrimationCode(String emailTo, EmailType emailType, String host,
+                                                      Consumer<UUID> codeSaver);
 
     /**
      * Validate users' email by previously generated UUID code
@@ -24,10 +28,4 @@ public interface MailService {
      * @throws EmailValidationCodeNotFoundException when the code isn't found
      */
     void validateEmail(UUID validationCode) throws EmailValidationCodeNotFoundException;
-
-    /**
-     * Scheduled job which checks emails that needs to be removed from DB after exhaustion of the grace period
-     */
-    @Scheduled(cron = "${cron.expression.once_per_day_at_3am}")
-    void permanentlyDeleteEmailConfirmationCode();
 }
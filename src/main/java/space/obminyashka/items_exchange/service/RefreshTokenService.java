@@ -1,19 +1,20 @@
 package space.obminyashka.items_exchange.service;
 
 import space.obminyashka.items_exchange.repository.model.RefreshToken;
+import space.obminyashka.items_exchange.repository.projection.RefreshTokenSession;
 
 import java.util.Optional;
 
 public interface RefreshTokenService {
 
     /**
-     * Creates a {@link RefreshToken} by logged-in User`s username
+     * Creates a {@link RefreshToken} by logged-in User`s username. Only the token hash is stored
      *
      * @param refreshToken previous refresh token of user
      * @param username is a username of user which wants to create or update refresh token
-     * @return the created {@link RefreshToken}
+     * @return the created token to be returned to the user
      */
-    RefreshToken createRefreshToken(String refreshToken, String username);
+    String createRefreshToken(String refreshToken, String username);
 
     /**
      * Removes a {@link RefreshToken} by logged-in User`s username
@@ -23,11 +24,11 @@ public interface RefreshTokenService {
     void deleteByUsername(String username);
 
     /**
-     * Regenerates a new Access JWT Token by Refresh token
+     * Finds the user the refresh token belongs to. Expired tokens are removed
      *
-     * @param refreshToken is a value of {@link RefreshToken#getToken()}
-     * @return an Optional {@link String} as a new Access JWT Token
-     * if Refresh Token exists in the database and not expired, {@link Optional#empty()} otherwise
+     * @param refreshToken token returned by {@link #createRefreshToken(String, String)}
+     * @return an Optional {@link RefreshTokenSession} if Refresh Token exists in the database and not expired,
+     * {@link Optional#empty()} otherwise
      */
-    Optional<String> renewAccessTokenByRefresh(String refreshToken);
+    Optional<RefreshTokenSession> findSession(String refreshToken);
 }
@@ -0,0 +1,29 @@
+package space.obminyashka.items_exchange.service;
+
+public interface RetentionService {
+
+    /**
+     * Scheduled job which removes expired refresh tokens, email confirmation codes after exhaustion of the grace
+     * period and outbox emails which failed all the attempts. Rows are deleted in chunks, so no table is read into
+     * memory or locked for long
+     */
+    void purgeExpired();
+
+    /**
+     * Remove refresh tokens which are expired
+     * @return amount of removed tokens
+     */
+    int purgeExpiredRefreshTokens();
+
+    /**
+     * Remove email confirmation codes expired longer than the grace period ago
+     * @return amount of removed codes
+     */
+    int purgeExpiredEmailConfirmationCodes();
+
+    /**
+     * Remove outbox emails which failed all the attempts and were queued longer than the grace period ago
+     * @return amount of removed emails
+     */
+    int purgeFailedOutboxMails();
+}
@@ -0,0 +1,31 @@
+package space.obminyashka.items_exchange.service;
+
+import java.time.Instant;
+
+/**
+ * Keeps identifiers ({@code jti} claims) of revoked access tokens until the tokens expire. Only the identifier is kept,
+ * so a revocation costs the same whatever the token size is. Implementations are chosen by
+ * {@code app.access.jwt.revocation.store}: {@literal memory} for a single node or {@literal database} when several
+ * nodes have to share logouts.
+ */
+public interface TokenRevocationStore {
+
+    /**
+     * Revoke a token until it expires. Revoking the same token again has no effect
+     * @param tokenId {@code jti} claim of the token
+     * @param expiresAt expiration time of the token, the revocation is forgotten after it
+     */
+    void revoke(String tokenId, Instant expiresAt);
+
+    /**
+     * Check whether a token is revoked
+     * @param tokenId {@code jti} claim of the token
+     * @return {@literal true} if the token was revoked and has not expired yet
+     */
+    boolean isRevoked(String tokenId);
+
+    /**
+     * Forget revocations of expired tokens, as expired tokens are rejected anyway
+     */
+    void removeExpired();
+}
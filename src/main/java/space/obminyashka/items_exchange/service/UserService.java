@@ -1,10 +1,10 @@
 package space.obminyashka.items_exchange.service;
 
-import java.util.List;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
-import space.obminyashka.items_exchange.repository.model.Advertisement;
 import space.obminyashka.items_exchange.repository.model.User;
+import space.obminyashka.items_exchange.repository.projection.RefreshTokenSession;
+import space.obminyashka.items_exchange.repository.projection.UserPrincipal;
 import space.obminyashka.items_exchange.rest.request.MyUserInfoUpdateRequest;
 import space.obminyashka.items_exchange.rest.request.UserRegistrationRequest;
 import space.obminyashka.items_exchange.rest.response.MyUserInfoView;
@@ -23,7 +23,21 @@ public interface UserService {
      */
     Optional<User> findByUsernameOrEmail(String usernameOrEmail);
 
-    List<Advertisement> findListAdvertisementByUsername(String username);
+    /**
+     * Find identity of a user by either username or email. Principals are cached for a short time, so authenticated
+     * requests don't load the whole user every time
+     * @param usernameOrEmail login or email of the user
+     * @return {@link Optional} with the principal as the result
+     */
+    Optional<UserPrincipal> findPrincipalByUsernameOrEmail(String usernameOrEmail);
+
+    /**
+     * Get a reference to a user by either username or email to be set into relations of other entities. The user data
+     * is loaded only when the reference is accessed
+     * @param usernameOrEmail login or email of the user
+     * @return {@link Optional} with the user reference as the result
+     */
+    Optional<User> findReferenceByUsernameOrEmail(String usernameOrEmail);
 
     /**
      * Find a user into DB by checking gained param either username or email columns
@@ -33,6 +47,17 @@ public interface UserService {
      */
     UserLoginResponse findAuthDataByUsernameOrEmail(String usernameOrEmail);
 
+    /**
+     * Find a user by either username or email and check the password with the same query result. A password hash made
+     * with weaker settings than the current ones is replaced
+     * @param usernameOrEmail login or email of the user
+     * @param password raw password received from the user
+     * @return the user login response dto without tokens
+     * @throws org.springframework.security.core.AuthenticationException when there is no such user, the password
+     * doesn't match or the account is banned or deleted
+     */
+    UserLoginResponse authenticate(String usernameOrEmail, String password);
+
     /**
      * Find a user into DB by checking gained username and convert it into DTO
      * @param username login of the user
@@ -41,19 +66,19 @@ public interface UserService {
     Optional<MyUserInfoView> findByUsername(String username);
 
     /**
-     * Register new user and create email confirmation code
+     * Register new user, create email confirmation code and queue the confirmation email
      * @param userRegistrationRequest DTO which contains all required data for registration the user
-     * @param codeId UUID for confirmation email
+     * @param host domain name url for the link in the email
      * @return result of registration
      */
-    boolean registerNewUser(UserRegistrationRequest userRegistrationRequest, UUID codeId);
+    boolean registerNewUser(UserRegistrationRequest userRegistrationRequest, String host);
 
     /**
      * resend validate code one more time
      * @param email to which the code will be sent
-     * @param codeId UUID for confirmation email
+     * @param host domain name url for the link in the email
      */
-    void resendValidateCode(String email, UUID codeId);
+    void resendValidateCode(String email, String host);
 
     /**
      * Update an existed user with new data
@@ -78,19 +103,19 @@ public interface UserService {
     void updateUserPassword(String  username, String password);
 
     /**
-     * Save new record for request reset user password.
+     * Save new record for request reset user password and queue the email with it.
      * @param email requested email address to reset your password.
-     * @param codeId UUID for confirmation email.
+     * @param host domain name url for the link in the email.
      */
-    void saveCodeForResetPassword(String email, UUID codeId);
+    void saveCodeForResetPassword(String email, String host);
 
     /**
-     * Update the email for the user with the given username.
+     * Update the email for the user with the given username and queue the confirmation email.
      * @param username The username of the user whose email you want to update.
      * @param email The new email for the user.
-     * @param codeId The code for confirmation email.
+     * @param host domain name url for the link in the email.
      */
-    void updateUserEmail(String username, String email, UUID codeId);
+    void updateUserEmail(String username, String email, String host);
 
     /**
      * Request from a user to remove them account with time limit
@@ -178,9 +203,9 @@ public interface UserService {
     /**
      * Get {@link org.springframework.http.HttpHeaders#ACCEPT_LANGUAGE} and compare with stored language setting
      * and update if they aren't equals
-     * @param refreshToken token linked with stored user in the DB
+     * @param session user of a refresh token with the stored language
      */
-    void updatePreferableLanguage(String refreshToken);
+    void updatePreferableLanguage(RefreshTokenSession session);
 
     /**
      * Find {@link User} from OAuth2User credentials, register if user is new
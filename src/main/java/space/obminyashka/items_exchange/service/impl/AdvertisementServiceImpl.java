@@ -1,42 +1,65 @@
 package space.obminyashka.items_exchange.service.impl;
 
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import space.obminyashka.items_exchange.repository.AdvertisementRepository;
+import space.obminyashka.items_exchange.repository.ImageRepository;
 import space.obminyashka.items_exchange.repository.enums.AgeRange;
 import space.obminyashka.items_exchange.repository.enums.Status;
 import space.obminyashka.items_exchange.repository.model.Advertisement;
 import space.obminyashka.items_exchange.repository.model.Image;
 import space.obminyashka.items_exchange.repository.model.User;
+import space.obminyashka.items_exchange.repository.projection.AdvertisementFacetCount;
+import space.obminyashka.items_exchange.repository.projection.AdvertisementTitleRow;
 import space.obminyashka.items_exchange.rest.dto.AdvertisementModificationDto;
 import space.obminyashka.items_exchange.rest.exception.IllegalOperationException;
 import space.obminyashka.items_exchange.rest.exception.bad_request.BadRequestException;
 import space.obminyashka.items_exchange.rest.exception.not_found.EntityIdNotFoundException;
 import space.obminyashka.items_exchange.rest.mapper.AdvertisementMapper;
 import space.obminyashka.items_exchange.rest.mapper.CategoryMapper;
-import space.obminyashka.items_exchange.rest.mapper.LocationMapper;
+import space.obminyashka.items_exchange.rest.request.AdvertisementCursor;
 import space.obminyashka.items_exchange.rest.request.AdvertisementFilterRequest;
+import space.obminyashka.items_exchange.rest.request.AdvertisementFilterRequest.Facet;
 import space.obminyashka.items_exchange.rest.response.AdvertisementDisplayView;
+import space.obminyashka.items_exchange.rest.response.AdvertisementFacetsView;
+import space.obminyashka.items_exchange.rest.response.AdvertisementScrollView;
 import space.obminyashka.items_exchange.rest.response.AdvertisementTitleView;
 import space.obminyashka.items_exchange.service.AdvertisementService;
 import space.obminyashka.items_exchange.service.ImageService;
+import space.obminyashka.items_exchange.service.ImageStorage;
 import space.obminyashka.items_exchange.service.LocationService;
 import space.obminyashka.items_exchange.service.SubcategoryService;
+import space.obminyashka.items_exchange.service.util.AdvertisementFacetCounter;
+import space.obminyashka.items_exchange.service.util.AdvertisementFacetIndex;
+import space.obminyashka.items_exchange.service.util.AdvertisementImagesUploadedEvent;
+import space.obminyashka.items_exchange.service.util.AdvertisementImagesUploadedEvent.UploadedImage;
+import space.obminyashka.items_exchange.service.util.AdvertisementKeywordIndex;
+import space.obminyashka.items_exchange.service.util.AdvertisementRandomSampler;
+import space.obminyashka.items_exchange.service.util.AdvertisementsRemovedEvent;
 
 import java.time.format.DateTimeFormatter;
-import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Random;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static java.util.function.Predicate.not;
 import static space.obminyashka.items_exchange.rest.response.message.MessageSourceProxy.getParametrizedMessageSource;
@@ -56,8 +79,13 @@ public class AdvertisementServiceImpl implements AdvertisementService {
     private final SubcategoryService subcategoryService;
     private final CategoryMapper categoryMapper;
     private final LocationService locationService;
-    private final LocationMapper locationMapper;
     private final ImageService imageService;
+    private final ImageStorage imageStorage;
+    private final ImageRepository imageRepository;
+    private final AdvertisementKeywordIndex advertisementKeywordIndex;
+    private final AdvertisementFacetIndex advertisementFacetIndex;
+    private final AdvertisementRandomSampler advertisementRandomSampler;
+    private final ApplicationEventPublisher eventPublisher;
     private final Random random = new Random();
 
     @Value("${display.adv.date.format}")
@@ -100,9 +128,57 @@ public class AdvertisementServiceImpl implements AdvertisementService {
     @Override
     public Page<AdvertisementTitleView> filterAdvertisementBySearchParameters(AdvertisementFilterRequest request) throws BadRequestException {
         validateAllSubcategoriesExistsInCategory(request.getCategoryId(), request.getSubcategoriesIdValues());
-        PageRequest pageRequest = PageRequest.of(preparePage(request), request.getSize());
-        return advertisementRepository.findAll(request.toPredicate(), pageRequest)
-                .map(this::buildAdvertisementTitle);
+        return advertisementRandomSampler.sample(request)
+                .or(() -> advertisementFacetIndex.findIds(request, totalRecords -> preparePage(request, totalRecords)))
+                .map(this::findAllTitlesByIds)
+                .orElseGet(() -> advertisementRepository.findAllTitles(request.toPredicate(advertisementKeywordIndex::findCandidates),
+                        PageRequest.of(preparePage(request), request.getSize())))
+                .map(advertisementMapper::toAdvertisementTitleDto);
+    }
+
+    @Override
+    public AdvertisementFacetsView countAdvertisementFacetsBySearchParameters(AdvertisementFilterRequest request) throws BadRequestException {
+        validateAllSubcategoriesExistsInCategory(request.getCategoryId(), request.getSubcategoriesIdValues());
+        return advertisementFacetIndex.countFacets(request)
+                .orElseGet(() -> countFacetsInDatabase(request))
+                .toView();
+    }
+
+    private AdvertisementFacetCounter countFacetsInDatabase(AdvertisementFilterRequest request) {
+        List<AdvertisementFacetCount> matched =
+                advertisementRepository.countFacets(request.toPredicate(advertisementKeywordIndex::findCandidates));
+        AdvertisementFacetCounter counter = new AdvertisementFacetCounter();
+        matched.forEach(facetCount -> counter.addTotal(facetCount.count()));
+        for (Facet facet : Facet.values()) {
+            List<AdvertisementFacetCount> facetCounts = request.isSelected(facet)
+                    ? advertisementRepository.countFacets(request.toPredicate(advertisementKeywordIndex::findCandidates, facet))
+                    : matched;
+            facetCounts.forEach(facetCount -> counter.add(facetCount, facet));
+        }
+        return counter;
+    }
+
+    private Page<AdvertisementTitleRow> findAllTitlesByIds(Page<UUID> ids) {
+        Map<UUID, AdvertisementTitleRow> titlesById = advertisementRepository.findAllTitlesByIds(ids.getContent()).stream()
+                .collect(Collectors.toMap(AdvertisementTitleRow::getId, Function.identity()));
+        List<AdvertisementTitleRow> titles = ids.stream()
+                .map(titlesById::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(titles, ids.getPageable(), ids.getTotalElements());
+    }
+
+    @Override
+    public AdvertisementScrollView scrollAdvertisementBySearchParameters(AdvertisementFilterRequest request) throws BadRequestException {
+        validateAllSubcategoriesExistsInCategory(request.getCategoryId(), request.getSubcategoriesIdValues());
+        Predicate predicate = Optional.ofNullable(request.getCursor())
+                .map(AdvertisementCursor::decode)
+                .map(cursor -> ExpressionUtils.and(request.toPredicate(advertisementKeywordIndex::findCandidates), cursor.toPredicate()))
+                .orElseGet(() -> request.toPredicate(advertisementKeywordIndex::findCandidates));
+
+        Slice<AdvertisementTitleRow> slice = advertisementRepository.findSliceByKeyset(predicate, Math.max(request.getSize(), 1));
+        String nextCursor = slice.hasNext() ? AdvertisementCursor.of(slice.getContent().getLast()).encode() : null;
+        return new AdvertisementScrollView(slice.map(advertisementMapper::toAdvertisementTitleDto).getContent(), slice.hasNext(), nextCursor);
     }
 
     private void validateAllSubcategoriesExistsInCategory(Long categoryId, List<Long> subcategoriesIdValues) throws BadRequestException {
@@ -131,7 +207,13 @@ public class AdvertisementServiceImpl implements AdvertisementService {
 
         long totalRecords = advertisementRepository.countByIdNotAndSubcategoryId(
                 request.getExcludeAdvertisementId(), subcategoriesIdValues);
+        return preparePage(request, totalRecords);
+    }
 
+    private int preparePage(AdvertisementFilterRequest request, long totalRecords) {
+        if (!request.isEnableRandom()) {
+            return request.getPage();
+        }
         int bound = (int) (totalRecords / request.getSize());
         return bound > 0 ? random.nextInt(bound) : 0;
     }
@@ -147,15 +229,22 @@ public class AdvertisementServiceImpl implements AdvertisementService {
     }
 
     @Override
-    public AdvertisementModificationDto createAdvertisement(AdvertisementModificationDto dto, User owner, List<byte[]> compressedImages, byte[] titleImage) {
+    public AdvertisementModificationDto createAdvertisement(AdvertisementModificationDto dto, User owner, List<String> imageHashes) {
         Advertisement adv = advertisementMapper.toModel(dto);
         adv.setUser(owner);
-        adv.setStatus(Status.NEW);
-        adv.setImages(compressedImages.stream().map(image -> new Image(image, adv)).toList());
-        adv.setDefaultPhoto(titleImage);
+        adv.setStatus(Status.PROCESSING);
+        adv.setImages(imageHashes.stream().map(hash -> new Image(hash, adv)).toList());
         updateSubcategory(adv, dto.getSubcategoryId());
         updateLocation(adv, dto.getLocationId());
-        return advertisementMapper.toModificationDto(advertisementRepository.save(adv));
+        Advertisement savedAdvertisement = advertisementRepository.save(adv);
+        advertisementKeywordIndex.index(savedAdvertisement.getId(), savedAdvertisement.getTopic(), savedAdvertisement.getDescription());
+        advertisementFacetIndex.index(savedAdvertisement);
+        eventPublisher.publishEvent(new AdvertisementImagesUploadedEvent(savedAdvertisement.getId(),
+                savedAdvertisement.getImages().stream()
+                        .map(image -> new UploadedImage(image.getId(), image.getResourceHash()))
+                        .toList(),
+                true));
+        return advertisementMapper.toModificationDto(savedAdvertisement);
     }
 
     @Override
@@ -169,6 +258,8 @@ public class AdvertisementServiceImpl implements AdvertisementService {
         updateLocation(fromDB, toUpdate.getLocation().getId());
         fromDB.setStatus(Status.UPDATED);
         Advertisement updatedAdvertisement = advertisementRepository.saveAndFlush(fromDB);
+        advertisementKeywordIndex.index(updatedAdvertisement.getId(), updatedAdvertisement.getTopic(), updatedAdvertisement.getDescription());
+        advertisementFacetIndex.index(updatedAdvertisement);
         return advertisementMapper.toModificationDto(updatedAdvertisement);
     }
 
@@ -196,30 +287,37 @@ public class AdvertisementServiceImpl implements AdvertisementService {
     @Override
     @CacheEvict(key = "#id")
     public void remove(UUID id) {
+        final var imageHashes = new HashSet<String>();
+        imageRepository.findByAdvertisementId(id).forEach(image -> {
+            imageHashes.add(image.getResourceHash());
+            imageHashes.add(image.getMediumHash());
+            imageHashes.add(image.getThumbnailHash());
+        });
+        advertisementRepository.findById(id).map(Advertisement::getDefaultPhotoHash).ifPresent(imageHashes::add);
+        imageHashes.remove(null);
+
         advertisementRepository.deleteAdvertisementById(id);
         advertisementRepository.flush();
+        eventPublisher.publishEvent(new AdvertisementsRemovedEvent(List.of(id), imageHashes));
     }
 
     @Override
-    public void setDefaultImage(Advertisement advertisement, UUID imageId) {
-        advertisement.getImages().stream()
-                .filter(img -> img.getId().equals(imageId))
-                .findFirst()
-                .map(Image::getResource)
-                .map(imageService::scale)
-                .ifPresent(advertisement::setDefaultPhoto);
+    public void setDefaultImage(UUID advertisementId, UUID imageId) {
+        imageRepository.findById(imageId)
+                .map(image -> Optional.ofNullable(image.getThumbnailHash()).orElseGet(() -> scaleToThumbnail(image)))
+                .ifPresent(hash -> advertisementRepository.updateDefaultPhotoHash(advertisementId, hash));
+    }
 
-        advertisementRepository.saveAndFlush(advertisement);
+    /**
+     * Only images uploaded before the variants were introduced don't have a thumbnail yet
+     */
+    private String scaleToThumbnail(Image image) {
+        return imageStorage.store(imageService.scale(imageStorage.loadOrLegacy(image.getResourceHash(), image.getResource())));
     }
 
     @Override
-    public boolean isUserHasAdvertisementAndItHasImageWithId(UUID advertisementId, UUID imageId,
-                                                             List<Advertisement> advertisements) {
-        return advertisements.stream()
-                .filter(adv -> adv.getId().equals(advertisementId))
-                .map(Advertisement::getImages)
-                .flatMap(Collection::stream)
-                .anyMatch(image -> image.getId().equals(imageId));
+    public boolean isUserHasAdvertisementAndItHasImageWithId(UUID advertisementId, UUID imageId, String username) {
+        return advertisementRepository.existsAdvertisementByIdAndUserUsernameAndImagesId(advertisementId, username, imageId);
     }
 
     @Override
@@ -232,22 +330,12 @@ public class AdvertisementServiceImpl implements AdvertisementService {
         return advertisementRepository.existsBySubcategoryId(id);
     }
 
-    private AdvertisementTitleView buildAdvertisementTitle(Advertisement advertisement) {
-        return AdvertisementTitleView.builder()
-                .advertisementId(advertisement.getId())
-                .image(getImage(advertisement))
-                .title(advertisement.getTopic())
-                .location(locationMapper.toDto(advertisement.getLocation()))
-                .build();
-    }
-
     private AdvertisementDisplayView buildAdvertisementDisplayDto(Advertisement advertisement) {
         String createdDate = advertisement.getCreated().format(DateTimeFormatter.ofPattern(dateFormat));
         String age = Optional.ofNullable(advertisement.getAge()).map(AgeRange::getValue).orElse("");
         AdvertisementDisplayView displayDto = AdvertisementDisplayView.builder()
                 .advertisementId(advertisement.getId())
                 .ownerName(getOwnerFullName(advertisement.getUser()))
-                .ownerAvatar(advertisement.getUser().getAvatarImage())
                 .age(age)
                 .phone(getOwnerPhone(advertisement.getUser()))
                 .category(categoryMapper.toNameDto(advertisement.getSubcategory().getCategory()))
@@ -268,14 +356,6 @@ public class AdvertisementServiceImpl implements AdvertisementService {
                 .orElse("");
     }
 
-    private byte[] getImage(Advertisement advertisement) {
-        return Optional.ofNullable(advertisement.getDefaultPhoto())
-                .orElseGet(() -> advertisement.getImages().stream()
-                        .findFirst()
-                        .map(Image::getResource)
-                        .orElse(new byte[0]));
-    }
-
     private String getOwnerFullName(User user) {
         String formatted = String.format("%s %s", user.getFirstName(), user.getLastName());
         return formatted.isBlank() ? user.getUsername() : formatted.trim();
@@ -10,9 +10,11 @@ import space.obminyashka.items_exchange.rest.response.message.ResponseMessagesHa
 import space.obminyashka.items_exchange.service.AuthService;
 import space.obminyashka.items_exchange.service.JwtTokenService;
 import space.obminyashka.items_exchange.service.RefreshTokenService;
+import space.obminyashka.items_exchange.service.UserService;
 
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.Optional;
 import java.util.function.Predicate;
 
 import static space.obminyashka.items_exchange.rest.response.message.MessageSourceProxy.getParametrizedMessageSource;
@@ -26,12 +28,19 @@ public class AuthServiceImpl implements AuthService {
 
     private final RefreshTokenService refreshTokenService;
     private final JwtTokenService jwtTokenService;
+    private final UserService userService;
+
+    @Override
+    public UserLoginResponse login(String usernameOrEmail, String password) {
+        return finalizeAuthData(userService.authenticate(usernameOrEmail, password));
+    }
 
     public UserLoginResponse finalizeAuthData(UserLoginResponse userDto) {
-        userDto.setAccessToken(jwtTokenService.createAccessToken(userDto.getUsername(), userDto.getRole()))
-                .setAccessTokenExpirationDate(jwtTokenService.getAccessTokenExpiration(userDto.getAccessToken()))
+        final var accessToken = jwtTokenService.issueAccessToken(userDto.getUsername(), userDto.getRole());
+        userDto.setAccessToken(accessToken.value())
+                .setAccessTokenExpirationDate(accessToken.expirationDate())
                 .setRefreshToken(refreshTokenService
-                        .createRefreshToken(userDto.getRefreshToken(), userDto.getUsername()).getToken())
+                        .createRefreshToken(userDto.getRefreshToken(), userDto.getUsername()))
                 .setRefreshTokenExpirationDate(jwtTokenService
                         .getRefreshTokenExpiration(ZonedDateTime.now(ZoneId.of(TIMEZONE_KIEV))));
 
@@ -49,11 +58,15 @@ public class AuthServiceImpl implements AuthService {
 
     @Override
     public RefreshTokenResponse renewAccessTokenByRefresh(String refreshToken) throws RefreshTokenException {
-        return refreshTokenService.renewAccessTokenByRefresh(refreshToken)
+        return Optional.ofNullable(refreshToken)
                 .filter(Predicate.not(String::isEmpty))
-                .map(accessToken -> new RefreshTokenResponse(accessToken, refreshToken,
-                        jwtTokenService.getAccessTokenExpiration(accessToken),
-                        jwtTokenService.getRefreshTokenExpiration(ZonedDateTime.now(ZoneId.of(TIMEZONE_KIEV)))))
+                .flatMap(refreshTokenService::findSession)
+                .map(session -> {
+                    userService.updatePreferableLanguage(session);
+                    final var accessToken = jwtTokenService.issueAccessToken(session.username(), session.role());
+                    return new RefreshTokenResponse(accessToken.value(), refreshToken, accessToken.expirationDate(),
+                            jwtTokenService.getRefreshTokenExpiration(ZonedDateTime.now(ZoneId.of(TIMEZONE_KIEV))));
+                })
                 .orElseThrow(() -> new RefreshTokenException(getParametrizedMessageSource(
                         ResponseMessagesHandler.ValidationMessage.INVALID_REFRESH_TOKEN, refreshToken)));
     }
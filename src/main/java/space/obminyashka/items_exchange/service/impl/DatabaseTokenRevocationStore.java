@@ -0,0 +1,79 @@
+package space.obminyashka.items_exchange.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import space.obminyashka.items_exchange.repository.RevokedTokenRepository;
+import space.obminyashka.items_exchange.repository.model.RevokedToken;
+import space.obminyashka.items_exchange.service.TokenRevocationStore;
+import space.obminyashka.items_exchange.service.util.RevokedTokenFilter;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Keeps revoked token ids in the {@code revoked_token} table, so a logout on one node rejects the token on every node.
+ * Times are kept in UTC.
+ * <p>
+ * Tokens are checked against the DB only when the {@link RevokedTokenFilter} may contain them, so revocations made by
+ * other nodes are fetched into the filter every {@code app.access.jwt.revocation.sync.ms}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.access.jwt.revocation.store", havingValue = "database")
+public class DatabaseTokenRevocationStore implements TokenRevocationStore {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final RevokedTokenFilter revokedTokenFilter;
+
+    @Value("${app.access.jwt.expiration.time.ms}")
+    private long jwtAccessTokenExpirationMillis;
+    @Value("${app.access.jwt.revocation.sync.ms}")
+    private long syncMillis;
+    private LocalDateTime lastSync;
+
+    @Override
+    public void revoke(String tokenId, Instant expiresAt) {
+        try {
+            revokedTokenRepository.save(new RevokedToken(tokenId,
+                    LocalDateTime.ofInstant(expiresAt, ZoneOffset.UTC), LocalDateTime.now(ZoneOffset.UTC)));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("[DatabaseTokenRevocationStore] Token {} was revoked concurrently", tokenId);
+        }
+    }
+
+    @Override
+    public boolean isRevoked(String tokenId) {
+        return revokedTokenRepository.existsById(tokenId);
+    }
+
+    /**
+     * The first run fetches revocations of all the tokens which may be still valid. Later runs overlap the previous one
+     * by the sync delay, which covers clock differences between nodes
+     */
+    @Scheduled(fixedDelayString = "${app.access.jwt.revocation.sync.ms}")
+    public void fetchRevocations() {
+        final var now = LocalDateTime.now(ZoneOffset.UTC);
+        final var since = lastSync == null
+                ? now.minus(jwtAccessTokenExpirationMillis, ChronoUnit.MILLIS)
+                : lastSync.minus(syncMillis, ChronoUnit.MILLIS);
+        revokedTokenRepository.findIdsRevokedSince(since).forEach(revokedTokenFilter::put);
+        lastSync = now;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.access.jwt.expiration.time.ms}")
+    public void removeExpired() {
+        final int removed = revokedTokenRepository.deleteExpired(LocalDateTime.now(ZoneOffset.UTC));
+        if (removed > 0) {
+            log.debug("[DatabaseTokenRevocationStore] Removed {} expired token revocations", removed);
+        }
+    }
+}
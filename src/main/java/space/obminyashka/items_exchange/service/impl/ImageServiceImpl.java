@@ -1,19 +1,33 @@
 package space.obminyashka.items_exchange.service.impl;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.transaction.Transactional;
-import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import space.obminyashka.items_exchange.repository.ImageRepository;
+import space.obminyashka.items_exchange.repository.projection.ImageResourceProjection;
+import space.obminyashka.items_exchange.repository.projection.StoredImageHashesProjection;
 import space.obminyashka.items_exchange.rest.exception.ElementsNumberExceedException;
 import space.obminyashka.items_exchange.rest.exception.UnsupportedMediaTypeException;
 import space.obminyashka.items_exchange.rest.mapper.ImageMapper;
 import space.obminyashka.items_exchange.rest.response.ImageView;
 import space.obminyashka.items_exchange.service.ImageService;
+import space.obminyashka.items_exchange.service.ImageStorage;
+import space.obminyashka.items_exchange.service.util.AdvertisementImagesUploadedEvent;
+import space.obminyashka.items_exchange.service.util.AdvertisementImagesUploadedEvent.UploadedImage;
+import space.obminyashka.items_exchange.service.util.EncodedImage;
+import space.obminyashka.items_exchange.service.util.ImageContent;
+import space.obminyashka.items_exchange.service.util.ImageScaler;
+import space.obminyashka.items_exchange.service.util.ImageVariant;
+import space.obminyashka.items_exchange.service.util.StoredImagesReleasedEvent;
 import space.obminyashka.items_exchange.service.util.SupportedMediaTypes;
 
 import javax.imageio.IIOImage;
@@ -24,37 +38,131 @@ import javax.imageio.stream.ImageOutputStream;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.*;
-import java.net.URLConnection;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-import static java.awt.Image.SCALE_REPLICATE;
-import static java.awt.Image.SCALE_SMOOTH;
 import static space.obminyashka.items_exchange.rest.response.message.MessageSourceProxy.getParametrizedMessageSource;
 import static space.obminyashka.items_exchange.rest.response.message.ResponseMessagesHandler.ExceptionMessage.EXCEED_IMAGES_NUMBER;
 
 @Slf4j
 @Service
 @Transactional
-@RequiredArgsConstructor
 public class ImageServiceImpl implements ImageService {
     private final ImageMapper imageMapper;
     private final ImageRepository imageRepository;
+    private final ImageStorage imageStorage;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DistributionSummary decodedBytes;
     private final Set<String> supportedTypes = Arrays.stream(SupportedMediaTypes.values())
             .map(SupportedMediaTypes::getMediaType)
             .collect(Collectors.toSet());
     @Value("${app.image.thumbnail.edge.px}")
     private int thumbnailEdge;
+    @Value("${app.image.medium.edge.px}")
+    private int mediumEdge;
+    @Value("${app.image.variant.thumbnail.quality}")
+    private float thumbnailQuality;
+    @Value("${app.image.variant.medium.quality}")
+    private float mediumQuality;
+    @Value("${app.image.variant.full.quality}")
+    private float fullQuality;
+    @Value("${app.image.variant.thumbnail.alternative.types}")
+    private List<String> thumbnailAlternativeTypes;
+    @Value("${app.image.variant.medium.alternative.types}")
+    private List<String> mediumAlternativeTypes;
+    @Value("${app.image.variant.full.alternative.types}")
+    private List<String> fullAlternativeTypes;
     @Value("${max.images.amount}")
     private int maxImagesAmount;
 
+    public ImageServiceImpl(ImageMapper imageMapper,
+                            ImageRepository imageRepository,
+                            ImageStorage imageStorage,
+                            ApplicationEventPublisher eventPublisher,
+                            MeterRegistry meterRegistry) {
+        this.imageMapper = imageMapper;
+        this.imageRepository = imageRepository;
+        this.imageStorage = imageStorage;
+        this.eventPublisher = eventPublisher;
+        this.decodedBytes = DistributionSummary.builder("image.decoded.bytes")
+                .description("Size of every decoded image, the count shows how many times images are decoded")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
     @Override
     public List<byte[]> getImagesResourceByAdvertisementId(UUID advertisementId) {
-        return imageRepository.getImagesResourceByAdvertisementId(advertisementId);
+        return imageRepository.getImagesResourceByAdvertisementId(advertisementId).stream()
+                .map(image -> imageStorage.loadOrLegacy(image.getResourceHash(), image.getResource()))
+                .toList();
+    }
+
+    @Override
+    public Optional<ImageContent> findContentByHash(String hash, List<MediaType> acceptedTypes) {
+        return findAlternative(hash, acceptedTypes)
+                .or(() -> imageStorage.loadAsResource(hash)
+                        .map(resource -> new ImageContent(resource, detectMediaType(resource), hash)));
+    }
+
+    @Override
+    public Optional<ImageContent> findLegacyContent(UUID imageId, List<MediaType> acceptedTypes) {
+        return imageRepository.findResourceById(imageId)
+                .flatMap(image -> findLegacyContent(image, acceptedTypes));
+    }
+
+    @Override
+    public Optional<ImageContent> findDefaultPhotoContent(UUID advertisementId, List<MediaType> acceptedTypes) {
+        return imageRepository.findDefaultPhotoByAdvertisementId(advertisementId)
+                .flatMap(photo -> findLegacyContent(photo, acceptedTypes));
+    }
+
+    /**
+     * The row may be migrated after its URL was given to a client, so the stored content is served then
+     */
+    private Optional<ImageContent> findLegacyContent(ImageResourceProjection image, List<MediaType> acceptedTypes) {
+        if (image.getResourceHash() != null) {
+            return findContentByHash(image.getResourceHash(), acceptedTypes);
+        }
+        return Optional.ofNullable(image.getResource())
+                .filter(content -> content.length > 0)
+                .map(ByteArrayResource::new)
+                .map(resource -> new ImageContent(resource, detectMediaType(resource), image.getId().toString()));
+    }
+
+    private Optional<ImageContent> findAlternative(String hash, List<MediaType> acceptedTypes) {
+        return Stream.of(fullAlternativeTypes, mediumAlternativeTypes, thumbnailAlternativeTypes)
+                .flatMap(List::stream)
+                .distinct()
+                .map(MediaType::parseMediaType)
+                // Wildcards are sent by clients which may not support the type, so only explicitly named types are chosen
+                .filter(alternative -> acceptedTypes.stream().anyMatch(accepted -> !accepted.isWildcardSubtype()
+                        && accepted.getQualityValue() > 0 && accepted.includes(alternative)))
+                .flatMap(alternative -> imageStorage.loadAlternativeAsResource(hash, alternative.getSubtype())
+                        .map(resource -> new ImageContent(resource, alternative, hash + "." + alternative.getSubtype()))
+                        .stream())
+                .findFirst();
+    }
+
+    private MediaType detectMediaType(Resource content) {
+        try (InputStream is = content.getInputStream()) {
+            return SupportedMediaTypes.detect(is.readNBytes(SupportedMediaTypes.HEADER_LENGTH))
+                    .map(type -> MediaType.parseMediaType(type.getMediaType()))
+                    .orElse(MediaType.APPLICATION_OCTET_STREAM);
+        } catch (IOException e) {
+            log.warn("[ImageServiceImpl] Unable to detect a media type of {}", content.getDescription(), e);
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
     }
 
     @Override
@@ -66,34 +174,32 @@ public class ImageServiceImpl implements ImageService {
     @Override
     public byte[] compress(MultipartFile image) {
         validateImagesTypes(List.of(image));
+        return compress(image.getBytes());
+    }
 
-        try (InputStream is = new BufferedInputStream(image.getInputStream());
-             ByteArrayOutputStream baos = new ByteArrayOutputStream();
-             BufferedOutputStream bos = new BufferedOutputStream(baos);
-             ImageOutputStream ios = ImageIO.createImageOutputStream(bos)) {
-
-            // Getting original file's type from stream instead of the file's name type
-            final var contentType = URLConnection.guessContentTypeFromStream(is);
-            if (contentType == null || contentType.equals(MediaType.IMAGE_GIF_VALUE)) {
-                return image.getBytes();
-            }
-
-            ImageWriter writer = ImageIO.getImageWritersByMIMEType(contentType).next();
-            writer.setOutput(ios);
-            ImageWriteParam param = writer.getDefaultWriteParam();
+    @SneakyThrows(IOException.class)
+    @Override
+    public byte[] compress(byte[] image) {
+        // Getting original file's type from its header instead of the file's name type
+        final var type = SupportedMediaTypes.detect(image).orElse(null);
+        if (type == null || type == SupportedMediaTypes.GIF) {
+            return image;
+        }
+        return encode(decode(image), type, fullQuality);
+    }
 
-            if (param.canWriteCompressed()) {
-                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
-                float quality = 0.30f; //percents
-                param.setCompressionQuality(quality);
+    @SneakyThrows({IOException.class, UnsupportedMediaTypeException.class})
+    @Override
+    public List<String> storeOriginals(List<MultipartFile> images) {
+        validateImagesTypes(images);
+        final var hashes = new ArrayList<String>(images.size());
+        for (MultipartFile image : images) {
+            // Parts are spooled to disk by the container, so they are copied to the storage without reading them into memory
+            try (InputStream content = image.getInputStream()) {
+                hashes.add(imageStorage.store(content));
             }
-
-            BufferedImage bufferedImage = ImageIO.read(image.getInputStream());
-            writer.write(null, new IIOImage(bufferedImage, null, null), param);
-            writer.dispose();
-
-            return baos.toByteArray();
         }
+        return hashes;
     }
 
     @Override
@@ -101,9 +207,11 @@ public class ImageServiceImpl implements ImageService {
             throws ElementsNumberExceedException {
         validateMaxImagesAmount(advertisementId, images.size());
 
-        images.parallelStream()
-                .map(this::compress)
-                .forEach(compress -> imageRepository.createImage(UUID.randomUUID(), advertisementId, compress));
+        final var uploadedImages = storeOriginals(images).stream()
+                .map(hash -> new UploadedImage(UUID.randomUUID(), hash))
+                .toList();
+        uploadedImages.forEach(image -> imageRepository.createImage(image.id(), advertisementId, image.originalHash()));
+        eventPublisher.publishEvent(new AdvertisementImagesUploadedEvent(advertisementId, uploadedImages, false));
     }
 
     @Override
@@ -113,12 +221,24 @@ public class ImageServiceImpl implements ImageService {
 
     @Override
     public void removeById(List<UUID> imageIdList) {
+        final var hashes = findStoredHashes(imageIdList);
         imageRepository.deleteAllByIdIn(imageIdList);
+        eventPublisher.publishEvent(new StoredImagesReleasedEvent(hashes));
     }
 
     @Override
     public void removeById(UUID imageId) {
+        final var hashes = findStoredHashes(List.of(imageId));
         imageRepository.deleteById(imageId);
+        eventPublisher.publishEvent(new StoredImagesReleasedEvent(hashes));
+    }
+
+    private List<String> findStoredHashes(List<UUID> imageIds) {
+        return imageRepository.findStoredHashesByIdIn(imageIds).stream()
+                .flatMap(StoredImageHashesProjection::hashes)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
     }
 
     private void validateImagesTypes(List<MultipartFile> images) throws UnsupportedMediaTypeException {
@@ -150,25 +270,156 @@ public class ImageServiceImpl implements ImageService {
 
     @Override
     public byte[] scale(byte[] bytes) {
-        try (ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
-             ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+        return scale(bytes, thumbnailEdge);
+    }
 
-            BufferedImage originImage = ImageIO.read(bais);
-            if (originImage != null) {
-                Dimension newSize = calculatePreferThumbnailSize(
-                        new Dimension(originImage.getWidth(), originImage.getHeight()));
-                BufferedImage scaledImage = getScaled(newSize, originImage);
-                String type = URLConnection.guessContentTypeFromStream(
-                        new ByteArrayInputStream(bytes)).replace("image/", "");
-                ImageIO.write(scaledImage, type, baos);
+    @Override
+    public byte[] scale(byte[] bytes, int edge) {
+        try {
+            final var type = SupportedMediaTypes.detect(bytes).orElse(null);
+            final var originImage = type == null ? null : decode(bytes);
+            if (originImage == null) {
+                return new byte[0];
             }
-            return baos.toByteArray();
+            final var scaledImage = scaleDown(originImage, edge);
+            return scaledImage == originImage ? bytes : encode(scaledImage, type, null);
         } catch (IOException e) {
             log.error("[ImageServiceImpl] An error occurred while scale an image", e);
             return bytes;
         }
     }
 
+    /**
+     * Decoding and encoding take long and don't need the DB, so no connection is held meanwhile
+     */
+    @Override
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public Map<ImageVariant, EncodedImage> createVariants(byte[] original) {
+        try {
+            final var type = SupportedMediaTypes.detect(original).orElse(null);
+            final var originImage = type == null ? null : decode(original);
+            if (originImage != null) {
+                return createVariants(original, originImage, type);
+            }
+        } catch (IOException e) {
+            // e.g. CMYK JPEGs aren't supported by ImageIO, such images are served as uploaded
+            log.warn("[ImageServiceImpl] Unable to make variants of an image, the original is kept instead", e);
+        }
+        final var variants = new EnumMap<ImageVariant, EncodedImage>(ImageVariant.class);
+        Arrays.stream(ImageVariant.values()).forEach(variant -> variants.put(variant, new EncodedImage(original, Map.of())));
+        return variants;
+    }
+
+    private Map<ImageVariant, EncodedImage> createVariants(byte[] original, BufferedImage originImage,
+                                                           SupportedMediaTypes type) throws IOException {
+        final var variants = new EnumMap<ImageVariant, EncodedImage>(ImageVariant.class);
+        if (type == SupportedMediaTypes.GIF) {
+            // Only the first frame is decoded, so an animation is kept as is and has no alternatives
+            variants.put(ImageVariant.FULL, new EncodedImage(original, Map.of()));
+        } else {
+            variants.put(ImageVariant.FULL, encodeVariant(ImageVariant.FULL, originImage, type));
+        }
+
+        // Every variant is made of the single decoded image, the thumbnail is scaled from the smaller medium one
+        final var mediumImage = scaleDown(originImage, mediumEdge);
+        final var thumbnailImage = scaleDown(mediumImage, thumbnailEdge);
+        // Small images aren't scaled, the compressed full image is the better choice for them
+        variants.put(ImageVariant.MEDIUM, mediumImage == originImage
+                ? variants.get(ImageVariant.FULL)
+                : encodeVariant(ImageVariant.MEDIUM, mediumImage, type));
+        variants.put(ImageVariant.THUMBNAIL, thumbnailImage == originImage
+                ? variants.get(ImageVariant.FULL)
+                : encodeVariant(ImageVariant.THUMBNAIL, thumbnailImage, type));
+        return variants;
+    }
+
+    private EncodedImage encodeVariant(ImageVariant variant, BufferedImage image, SupportedMediaTypes type) throws IOException {
+        final var content = encode(image, type, quality(variant));
+        final var alternatives = new HashMap<String, byte[]>();
+        for (String alternativeType : alternativeTypes(variant)) {
+            if (alternativeType.equals(type.getMediaType())) {
+                continue;
+            }
+            final var writer = writerFor(alternativeType);
+            if (writer.isEmpty()) {
+                log.warn("[ImageServiceImpl] There is no ImageIO writer for {}", alternativeType);
+                continue;
+            }
+            final var alternative = encode(image, writer.get(), quality(variant));
+            // An alternative which isn't smaller than the original encoding only wastes the storage
+            if (alternative.length < content.length) {
+                alternatives.put(MediaType.parseMediaType(alternativeType).getSubtype(), alternative);
+            }
+        }
+        return new EncodedImage(content, alternatives);
+    }
+
+    private float quality(ImageVariant variant) {
+        return switch (variant) {
+            case THUMBNAIL -> thumbnailQuality;
+            case MEDIUM -> mediumQuality;
+            case FULL -> fullQuality;
+        };
+    }
+
+    private List<String> alternativeTypes(ImageVariant variant) {
+        return switch (variant) {
+            case THUMBNAIL -> thumbnailAlternativeTypes;
+            case MEDIUM -> mediumAlternativeTypes;
+            case FULL -> fullAlternativeTypes;
+        };
+    }
+
+    private BufferedImage decode(byte[] image) throws IOException {
+        decodedBytes.record(image.length);
+        return ImageIO.read(new ByteArrayInputStream(image));
+    }
+
+    private static Optional<ImageWriter> writerFor(String mediaType) {
+        final var writers = ImageIO.getImageWritersByMIMEType(mediaType);
+        return writers.hasNext() ? Optional.of(writers.next()) : Optional.empty();
+    }
+
+    private static byte[] encode(BufferedImage image, SupportedMediaTypes type, Float quality) throws IOException {
+        return encode(image, writerFor(type.getMediaType()).orElseThrow(), quality);
+    }
+
+    /**
+     * @param quality compression quality from 0 to 1 or {@literal null} to use the writer's default one
+     */
+    private static byte[] encode(BufferedImage image, ImageWriter writer, Float quality) throws IOException {
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
+             ImageOutputStream ios = ImageIO.createImageOutputStream(baos)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+
+            if (quality != null && param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                if (param.getCompressionType() == null && param.getCompressionTypes() != null) {
+                    param.setCompressionType(param.getCompressionTypes()[0]);
+                }
+                param.setCompressionQuality(quality);
+            }
+
+            writer.write(null, new IIOImage(image, null, null), param);
+            ios.flush();
+            return baos.toByteArray();
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * @return scaled image or the same image when it already fits the edge
+     */
+    private static BufferedImage scaleDown(BufferedImage image, int edge) {
+        Dimension newSize = calculatePreferSize(new Dimension(image.getWidth(), image.getHeight()), edge);
+        if (newSize.width >= image.getWidth()) {
+            return image;
+        }
+        return ImageScaler.scale(image, newSize.width, newSize.height);
+    }
+
     @Override
     public int countImagesForAdvertisement(UUID id) {
         return imageRepository.countImageByAdvertisementId(id);
@@ -179,16 +430,9 @@ public class ImageServiceImpl implements ImageService {
         return imageRepository.getImagesIdByAdvertisementId(advertisementId);
     }
 
-    private BufferedImage getScaled(Dimension d, BufferedImage originImage) {
-        java.awt.Image scaledInstance = originImage.getScaledInstance(d.width, d.height, SCALE_SMOOTH);
-        BufferedImage resizedImage = new BufferedImage(d.width, d.height, SCALE_REPLICATE);
-        resizedImage.getGraphics().drawImage(scaledInstance, 0, 0, d.width, d.height, Color.WHITE, null);
-        return resizedImage;
-    }
-
-    private Dimension calculatePreferThumbnailSize(Dimension origin) {
-        double tumbWidth = 1.0 * thumbnailEdge / origin.width;
-        double tumbHeight = 1.0 * thumbnailEdge / origin.height;
+    private static Dimension calculatePreferSize(Dimension origin, int edge) {
+        double tumbWidth = 1.0 * edge / origin.width;
+        double tumbHeight = 1.0 * edge / origin.height;
         double ratio = Math.max(tumbWidth, tumbHeight);
         return new Dimension((int) (origin.width * ratio), (int) (origin.height * ratio));
     }
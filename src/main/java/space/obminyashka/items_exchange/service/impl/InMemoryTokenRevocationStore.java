@@ -0,0 +1,77 @@
+package space.obminyashka.items_exchange.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import space.obminyashka.items_exchange.service.TokenRevocationStore;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Keeps revoked token ids of a single node. Ids are grouped into buckets by their expiration time rounded up to
+ * {@code app.access.jwt.revocation.bucket.ms}, so the cleanup drops whole expired buckets without scanning the tokens
+ * which are still valid. Each run removes only the tokens expired since the previous one, so the work after a mass
+ * logout is spread over the token lifetime instead of a single sweep of the whole map.
+ * <p>
+ * The number of kept revocations and evictions are exposed as {@code jwt.revocations.size} and
+ * {@code jwt.revocations.evicted}.
+ */
+@Service
+@ConditionalOnProperty(name = "app.access.jwt.revocation.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryTokenRevocationStore implements TokenRevocationStore {
+
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final NavigableMap<Long, Set<String>> expirationBuckets = new ConcurrentSkipListMap<>();
+    private final long bucketMillis;
+    private final Counter evicted;
+
+    public InMemoryTokenRevocationStore(@Value("${app.access.jwt.revocation.bucket.ms}") long bucketMillis,
+                                        MeterRegistry meterRegistry) {
+        this.bucketMillis = bucketMillis;
+        Gauge.builder("jwt.revocations.size", revokedTokens, Map::size)
+                .description("Revoked access tokens which have not expired yet")
+                .register(meterRegistry);
+        this.evicted = Counter.builder("jwt.revocations.evicted")
+                .description("Revocations dropped after their tokens expired")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void revoke(String tokenId, Instant expiresAt) {
+        if (!expiresAt.isAfter(Instant.now())) {
+            return;
+        }
+        // The bucket ends at or after the expiration, so it is never dropped while the token is valid
+        final long bucket = Math.ceilDiv(expiresAt.toEpochMilli(), bucketMillis);
+        if (revokedTokens.putIfAbsent(tokenId, bucket) == null) {
+            expirationBuckets.computeIfAbsent(bucket, key -> ConcurrentHashMap.newKeySet()).add(tokenId);
+        }
+    }
+
+    @Override
+    public boolean isRevoked(String tokenId) {
+        return revokedTokens.containsKey(tokenId);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.access.jwt.revocation.bucket.ms}")
+    public void removeExpired() {
+        final long currentBucket = Math.floorDiv(System.currentTimeMillis(), bucketMillis);
+        Map.Entry<Long, Set<String>> expiredBucket;
+        while ((expiredBucket = expirationBuckets.firstEntry()) != null && expiredBucket.getKey() <= currentBucket) {
+            expirationBuckets.remove(expiredBucket.getKey());
+            final var tokenIds = expiredBucket.getValue();
+            tokenIds.forEach(revokedTokens::remove);
+            evicted.increment(tokenIds.size());
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package space.obminyashka.items_exchange.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import space.obminyashka.items_exchange.service.ImageStorage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps images on the local file system as {@code <root>/ab/cd/abcd...} where the name is the SHA-256 hash of the content.
+ * Two levels of sharding keep directories small even for millions of images. Alternative encodings of an image are kept
+ * next to it as {@code abcd....webp}. The modification time of an image is the time it was stored last.
+ */
+@Slf4j
+@Service
+public class LocalFileImageStorage implements ImageStorage {
+
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    private static final Pattern FORMAT_PATTERN = Pattern.compile("[a-z0-9]{1,10}");
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    private final Path root;
+
+    public LocalFileImageStorage(@Value("${app.image.storage.local.root}") String root) {
+        this.root = Path.of(root).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public String store(byte[] content) {
+        String hash = hash(content);
+        Path target = resolve(hash);
+        if (!Files.exists(target) || !touch(target)) {
+            write(target, hash, content);
+        }
+        return hash;
+    }
+
+    @Override
+    public String store(InputStream content) {
+        try {
+            Files.createDirectories(root);
+            // The hash is known only at the end of the stream, so the content is spooled next to the shard directories
+            Path temporary = Files.createTempFile(root, "upload", ".tmp");
+            try {
+                MessageDigest digest = newDigest();
+                try (OutputStream output = Files.newOutputStream(temporary)) {
+                    new DigestInputStream(content, digest).transferTo(output);
+                }
+                String hash = HexFormat.of().formatHex(digest.digest());
+                Path target = resolve(hash);
+                if (!Files.exists(target) || !touch(target)) {
+                    move(temporary, target);
+                }
+                return hash;
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to store uploaded image", e);
+        }
+    }
+
+    @Override
+    public void storeAlternative(String hash, String format, byte[] content) {
+        if (!isValid(hash) || !FORMAT_PATTERN.matcher(format).matches()) {
+            throw new IllegalArgumentException("Invalid alternative " + format + " of image " + hash);
+        }
+        Path target = resolve(hash, format);
+        if (!Files.exists(target)) {
+            write(target, hash, content);
+        }
+    }
+
+    @Override
+    public Optional<byte[]> load(String hash) {
+        if (!isValid(hash)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Files.readAllBytes(resolve(hash)));
+        } catch (NoSuchFileException e) {
+            log.warn("[LocalFileImageStorage] Image {} is missing", hash);
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read image " + hash, e);
+        }
+    }
+
+    @Override
+    public Optional<Resource> loadAsResource(String hash) {
+        return exists(hash) ? Optional.of(new FileSystemResource(resolve(hash))) : Optional.empty();
+    }
+
+    @Override
+    public Optional<Resource> loadAlternativeAsResource(String hash, String format) {
+        if (!isValid(hash) || format == null || !FORMAT_PATTERN.matcher(format).matches()) {
+            return Optional.empty();
+        }
+        Path alternative = resolve(hash, format);
+        return Files.exists(alternative) ? Optional.of(new FileSystemResource(alternative)) : Optional.empty();
+    }
+
+    @Override
+    public void delete(String hash) {
+        if (!isValid(hash)) {
+            return;
+        }
+        final var image = resolve(hash);
+        if (!Files.isDirectory(image.getParent())) {
+            return;
+        }
+        try (DirectoryStream<Path> alternatives = Files.newDirectoryStream(image.getParent(), hash + ".*")) {
+            for (Path alternative : alternatives) {
+                Files.deleteIfExists(alternative);
+            }
+            Files.deleteIfExists(image);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to delete image " + hash, e);
+        }
+    }
+
+    @Override
+    public Optional<Instant> lastStored(String hash) {
+        if (!isValid(hash)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Files.getLastModifiedTime(resolve(hash)).toInstant());
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read image " + hash, e);
+        }
+    }
+
+    @Override
+    public boolean exists(String hash) {
+        return isValid(hash) && Files.exists(resolve(hash));
+    }
+
+    private void write(Path target, String hash, byte[] content) {
+        try {
+            Files.createDirectories(target.getParent());
+            // Write to a temporary file first, so a reader never sees a partially written image
+            Path temporary = Files.createTempFile(target.getParent(), hash, ".tmp");
+            try {
+                Files.write(temporary, content);
+                move(temporary, target);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to store image " + target.getFileName(), e);
+        }
+    }
+
+    /**
+     * @return {@literal false} when the image has been deleted concurrently and has to be written again
+     */
+    private static boolean touch(Path target) {
+        try {
+            Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to refresh image " + target.getFileName(), e);
+        }
+    }
+
+    private static void move(Path temporary, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            log.debug("[LocalFileImageStorage] Image {} was stored concurrently", target.getFileName());
+        }
+    }
+
+    private Path resolve(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private Path resolve(String hash, String format) {
+        return resolve(hash).resolveSibling(hash + "." + format);
+    }
+
+    private static boolean isValid(String hash) {
+        return hash != null && HASH_PATTERN.matcher(hash).matches();
+    }
+
+    private static String hash(byte[] content) {
+        return HexFormat.of().formatHex(newDigest().digest(content));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(HASH_ALGORITHM + " is not supported", e);
+        }
+    }
+}
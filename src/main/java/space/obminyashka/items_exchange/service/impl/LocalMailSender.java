@@ -0,0 +1,42 @@
+package space.obminyashka.items_exchange.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import space.obminyashka.items_exchange.service.MailSender;
+import space.obminyashka.items_exchange.service.util.OutgoingMail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Stub sender for local runs and tests. Emails are only logged and the latest {@value #MAX_KEPT_MAILS} of them are
+ * kept in memory to be checked
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.mail.sender", havingValue = "local")
+public class LocalMailSender implements MailSender {
+
+    private static final int MAX_KEPT_MAILS = 100;
+
+    private final ConcurrentLinkedDeque<OutgoingMail> sentMails = new ConcurrentLinkedDeque<>();
+
+    @Override
+    public void send(OutgoingMail mail) {
+        log.info("[LocalMailSender] {} email to {} with the code '{}'", mail.emailType(), mail.emailTo(), mail.codeId());
+        sentMails.addLast(mail);
+        while (sentMails.size() > MAX_KEPT_MAILS) {
+            sentMails.pollFirst();
+        }
+    }
+
+    public List<OutgoingMail> getSentMails() {
+        return new ArrayList<>(sentMails);
+    }
+
+    public void clear() {
+        sentMails.clear();
+    }
+}
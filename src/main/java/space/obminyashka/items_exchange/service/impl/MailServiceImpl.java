@@ -0,0 +1,57 @@
+package space.obminyashka.items_exchange.service.impl;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.stereotype.Service;
+import space.obminyashka.items_exchange.repository.EmailConfirmationCodeRepository;
+import space.obminyashka.items_exchange.repository.OutboxMailRepository;
+import space.obminyashka.items_exchange.repository.UserRepository;
+import space.obminyashka.items_exchange.repository.model.EmailConfirmationCode;
+import space.obminyashka.items_exchange.rest.exception.not_found.EmailValidationCodeNotFoundException;
+import space.obminyashka.items_exchange.rest.response.message.ResponseMessagesHandler;
+import space.obminyashka.items_exchange.service.MailService;
+import space.obminyashka.items_exchange.service.util.EmailType;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static space.obminyashka.items_exchange.rest.response.message.MessageSourceProxy.getMessageSource;
+
+/**
+ * Emails are written to the outbox in the transaction which saves their confirmation codes and sent by
+ * {@link space.obminyashka.items_exchange.service.util.MailOutboxDispatcher}, so a request never waits for the mail
+ * provider and an email is never sent for a confirmation code which was rolled back.
+ */
+@Service
+@RequiredArgsConstructor
+public class MailServiceImpl implements MailService {
+
+    private final OutboxMailRepository outboxMailRepository;
+    private final EmailConfirmationCodeRepository emailRepository;
+    private final UserRepository userRepository;
+
+    @Override
+    @Transactional
+    public UUID sendEmailTemplateAndGenerateConfrimationCode(String emailTo, EmailType emailType, String host,
+                                                             Consumer<UUID> codeSaver) {
+        UUID codeId = UUID.randomUUID();
+        codeSaver.accept(codeId);
+        outboxMailRepository.enqueue(UUID.randomUUID(), emailTo, emailType.name(), codeId, host,
+                LocaleContextHolder.getLocale().toString(), LocalDateTime.now());
+        return codeId;
+    }
+
+    @Override
+    public void validateEmail(UUID validationCode) throws EmailValidationCodeNotFoundException {
+        emailRepository.findById(validationCode)
+                .filter(emailConfirmationCode -> LocalDateTime.now().isBefore(emailConfirmationCode.getExpiryDate()))
+                .map(EmailConfirmationCode::getId)
+                .ifPresentOrElse(userRepository::setValidatedEmailToUserByEmailId, this::throwNotFoundException);
+    }
+
+    private void throwNotFoundException() throws EmailValidationCodeNotFoundException {
+        throw new EmailValidationCodeNotFoundException(getMessageSource(ResponseMessagesHandler.ExceptionMessage.EMAIL_NOT_FOUND_OR_EXPIRED));
+    }
+}
@@ -4,13 +4,12 @@ import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import space.obminyashka.items_exchange.repository.RefreshTokenRepository;
-import space.obminyashka.items_exchange.repository.model.RefreshToken;
+import space.obminyashka.items_exchange.repository.projection.RefreshTokenSession;
 import space.obminyashka.items_exchange.service.JwtTokenService;
 import space.obminyashka.items_exchange.service.RefreshTokenService;
+import space.obminyashka.items_exchange.service.util.RefreshTokenCache;
 
-import java.time.LocalDateTime;
 import java.util.Optional;
-import java.util.function.Predicate;
 
 @Service
 @RequiredArgsConstructor
@@ -18,39 +17,41 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
 
     private final JwtTokenService jwtTokenService;
     private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenCache refreshTokenCache;
 
     @Override
-    public RefreshToken createRefreshToken(String createdRefreshToken, String username) {
-        final String token = jwtTokenService.generateRefreshToken(username);
+    public String createRefreshToken(String createdRefreshToken, String username) {
+        final String token = jwtTokenService.generateRefreshToken();
+        final String tokenHash = JwtTokenService.hashRefreshToken(token);
         final var tokenExpirationTime = jwtTokenService.generateRefreshTokenExpirationTime();
 
         if (createdRefreshToken != null) {
-            refreshTokenRepository.updateRefreshToken(username, token, tokenExpirationTime);
+            refreshTokenRepository.updateRefreshToken(username, tokenHash, tokenExpirationTime);
+            refreshTokenCache.evictOwner(username);
         } else {
-            refreshTokenRepository.createRefreshToken(username, token, tokenExpirationTime);
+            refreshTokenRepository.createRefreshToken(username, tokenHash, tokenExpirationTime);
         }
 
-        return new RefreshToken(token, tokenExpirationTime);
-    }
-
-    private boolean isRefreshTokenExpired(RefreshToken refreshToken) {
-        if (refreshToken.getExpiryDate().isBefore(LocalDateTime.now())) {
-            refreshTokenRepository.delete(refreshToken);
-            return true;
-        }
-        return false;
+        return token;
     }
 
     @Transactional
     public void deleteByUsername(String username) {
         refreshTokenRepository.deleteByUserUsername(username);
+        refreshTokenCache.evictOwner(username);
     }
 
     @Override
-    public Optional<String> renewAccessTokenByRefresh(String refreshToken) {
-        return refreshTokenRepository.findByToken(refreshToken)
-                .filter(Predicate.not(this::isRefreshTokenExpired))
-                .map(RefreshToken::getUser)
-                .map(user -> jwtTokenService.createAccessToken(user.getUsername(), user.getRole()));
+    public Optional<RefreshTokenSession> findSession(String refreshToken) {
+        final String tokenHash = JwtTokenService.hashRefreshToken(refreshToken);
+        return refreshTokenCache.get(tokenHash, refreshTokenRepository::findSessionByTokenHash)
+                .filter(session -> {
+                    if (session.isExpired()) {
+                        refreshTokenRepository.deleteByTokenHash(tokenHash);
+                        refreshTokenCache.evict(tokenHash);
+                        return false;
+                    }
+                    return true;
+                });
     }
 }
@@ -0,0 +1,117 @@
+package space.obminyashka.items_exchange.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import space.obminyashka.items_exchange.repository.EmailConfirmationCodeRepository;
+import space.obminyashka.items_exchange.repository.OutboxMailRepository;
+import space.obminyashka.items_exchange.repository.RefreshTokenRepository;
+import space.obminyashka.items_exchange.service.RetentionService;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Every chunk is a single {@code DELETE ... LIMIT} statement driven by the expiry date index and committed on its own,
+ * so locks are held only for one chunk. The pause between chunks leaves the DB to the requests.
+ */
+@Slf4j
+@Service
+public class RetentionServiceImpl implements RetentionService {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final EmailConfirmationCodeRepository emailConfirmationCodeRepository;
+    private final OutboxMailRepository outboxMailRepository;
+    private final MeterRegistry meterRegistry;
+    private final int chunkSize;
+    private final long chunkPauseMillis;
+    private final int numberOfDaysToKeepDeletedEmails;
+    private final int numberOfDaysToKeepFailedMails;
+
+    public RetentionServiceImpl(RefreshTokenRepository refreshTokenRepository,
+                                EmailConfirmationCodeRepository emailConfirmationCodeRepository,
+                                OutboxMailRepository outboxMailRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.retention.chunk.size}") int chunkSize,
+                                @Value("${app.retention.chunk.pause.ms}") long chunkPauseMillis,
+                                @Value("${number.of.days.to.keep.deleted.email.confirmation.token}") int numberOfDaysToKeepDeletedEmails,
+                                @Value("${app.mail.outbox.failed.days.to.keep}") int numberOfDaysToKeepFailedMails) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.emailConfirmationCodeRepository = emailConfirmationCodeRepository;
+        this.outboxMailRepository = outboxMailRepository;
+        this.meterRegistry = meterRegistry;
+        this.chunkSize = chunkSize;
+        this.chunkPauseMillis = chunkPauseMillis;
+        this.numberOfDaysToKeepDeletedEmails = numberOfDaysToKeepDeletedEmails;
+        this.numberOfDaysToKeepFailedMails = numberOfDaysToKeepFailedMails;
+    }
+
+    @Override
+    @Scheduled(cron = "${cron.expression.once_per_day_at_3am}")
+    public void purgeExpired() {
+        purgeExpiredRefreshTokens();
+        purgeExpiredEmailConfirmationCodes();
+        purgeFailedOutboxMails();
+    }
+
+    @Override
+    public int purgeExpiredRefreshTokens() {
+        final var threshold = LocalDateTime.now();
+        return deleteInChunks("refresh_token",
+                () -> refreshTokenRepository.deleteExpiredBefore(threshold, chunkSize));
+    }
+
+    @Override
+    public int purgeExpiredEmailConfirmationCodes() {
+        final var threshold = LocalDateTime.now().minusDays(numberOfDaysToKeepDeletedEmails);
+        return deleteInChunks("email_confirmation_code",
+                () -> emailConfirmationCodeRepository.deleteExpiredBefore(threshold, chunkSize));
+    }
+
+    @Override
+    public int purgeFailedOutboxMails() {
+        final var threshold = LocalDateTime.now().minusDays(numberOfDaysToKeepFailedMails);
+        return deleteInChunks("mail_outbox",
+                () -> outboxMailRepository.deleteFailedBefore(threshold, chunkSize));
+    }
+
+    private int deleteInChunks(String table, IntSupplier deleteChunk) {
+        final var deletedRows = Counter.builder("retention.deleted")
+                .description("Rows removed by the retention jobs")
+                .tag("table", table)
+                .register(meterRegistry);
+        final long started = System.nanoTime();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = deleteChunk.getAsInt();
+            total += deleted;
+            deletedRows.increment(deleted);
+        } while (deleted == chunkSize && pause());
+
+        log.info("[RetentionServiceImpl] {} rows are removed from '{}' in {} ms", total, table,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return total;
+    }
+
+    /**
+     * @return {@literal false} when the job is interrupted and has to stop
+     */
+    private boolean pause() {
+        if (chunkPauseMillis <= 0) {
+            return true;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(chunkPauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("[RetentionServiceImpl] Interrupted, the rest of expired rows is left for the next run");
+            return false;
+        }
+    }
+}
@@ -1,38 +1,56 @@
 package space.obminyashka.items_exchange.service.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sendgrid.Method;
 import com.sendgrid.Request;
+import com.sendgrid.Response;
 import com.sendgrid.SendGrid;
 import com.sendgrid.helpers.mail.Mail;
 import com.sendgrid.helpers.mail.objects.Email;
 import com.sendgrid.helpers.mail.objects.Personalization;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import space.obminyashka.items_exchange.repository.EmailConfirmationCodeRepository;
-import space.obminyashka.items_exchange.repository.UserRepository;
-import space.obminyashka.items_exchange.repository.model.EmailConfirmationCode;
 import space.obminyashka.items_exchange.rest.exception.EmailSendingException;
-import space.obminyashka.items_exchange.rest.exception.not_found.EmailValidationCodeNotFoundException;
 import space.obminyashka.items_exchange.rest.response.message.ResponseMessagesHandler;
-import space.obminyashka.items_exchange.service.MailService;
+import space.obminyashka.items_exchange.service.MailSender;
 import space.obminyashka.items_exchange.service.util.EmailType;
+import space.obminyashka.items_exchange.service.util.OutgoingMail;
 
 import java.io.IOException;
-import java.time.Duration;
-import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
+import static space.obminyashka.items_exchange.rest.response.message.MessageSourceProxy.getLocalizedMessageSource;
 import static space.obminyashka.items_exchange.rest.response.message.MessageSourceProxy.getMessageSource;
 
+/**
+ * Emails of the same type and locale are sent by a single {@code mail/send} request with up to
+ * {@value #MAX_PERSONALIZATIONS} personalizations, the limit of SendGrid. The template texts are resolved once per
+ * type and locale and reused for every next email.
+ * <p>
+ * A request rejected because of its personalizations (e.g. an invalid address) is split in halves which are resent,
+ * until the rejected emails are found one by one. So an invalid address fails only its own email instead of the whole
+ * request. Any other rejection, like an unknown template, fails the whole request at once as every part of it would be
+ * rejected the same way.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class SendGridService implements MailService {
+@ConditionalOnProperty(name = "app.mail.sender", havingValue = "sendgrid", matchIfMissing = true)
+public class SendGridService implements MailSender {
 
+    public static final int MAX_PERSONALIZATIONS = 1000;
     public static final Map<String, String> EMAIL_TEMPLATE_KEYS = Map.of(
             "subject", "topic",
             "header", "email.header",
@@ -44,63 +62,123 @@ public class SendGridService implements MailService {
             "confirm", "email.confirm.button",
             "footer", "email.footer"
     );
-    private final EmailConfirmationCodeRepository emailRepository;
+    private static final String PERSONALIZATIONS_FIELD = "personalizations";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
     private final SendGrid sendGrid;
     private final Email sender;
-    private final UserRepository userRepository;
+    private final Map<TemplateKey, Map<String, String>> templateParameters = new ConcurrentHashMap<>();
 
-    @Value("${number.of.days.to.keep.deleted.email.confirmation.token}")
-    private int numberOfDaysToKeepDeletedEmails;
+    @Override
+    public void send(OutgoingMail mail) {
+        final var templateKey = new TemplateKey(mail.emailType(), mail.locale());
+        sendMail(templateKey, List.of(createPersonalization(mail, getTemplateParameters(templateKey))));
+    }
 
     @Override
-    public UUID sendEmailTemplateAndGenerateConfrimationCode(String emailTo, EmailType emailType, String host) {
+    public Map<OutgoingMail, EmailSendingException> sendAll(List<OutgoingMail> mails) {
+        final Map<OutgoingMail, EmailSendingException> failed = new IdentityHashMap<>();
+        final var mailsByTemplate = mails.stream()
+                .collect(Collectors.groupingBy(mail -> new TemplateKey(mail.emailType(), mail.locale()),
+                        LinkedHashMap::new, Collectors.toList()));
+
+        mailsByTemplate.forEach((templateKey, group) -> {
+            final var parameters = getTemplateParameters(templateKey);
+            for (int from = 0; from < group.size(); from += MAX_PERSONALIZATIONS) {
+                sendChunk(templateKey, parameters,
+                        group.subList(from, Math.min(group.size(), from + MAX_PERSONALIZATIONS)), failed);
+            }
+        });
+        return failed;
+    }
+
+    private void sendChunk(TemplateKey templateKey, Map<String, String> parameters, List<OutgoingMail> chunk,
+                           Map<OutgoingMail, EmailSendingException> failed) {
+        try {
+            sendMail(templateKey, chunk.stream()
+                    .map(mail -> createPersonalization(mail, parameters))
+                    .toList());
+        } catch (RejectedRequestException e) {
+            if (chunk.size() == 1) {
+                failed.put(chunk.get(0), e);
+                return;
+            }
+            final var middle = chunk.size() / 2;
+            sendChunk(templateKey, parameters, chunk.subList(0, middle), failed);
+            sendChunk(templateKey, parameters, chunk.subList(middle, chunk.size()), failed);
+        } catch (EmailSendingException e) {
+            chunk.forEach(mail -> failed.put(mail, e));
+        }
+    }
+
+    private void sendMail(TemplateKey templateKey, List<Personalization> personalizations) {
+        final var emailType = templateKey.emailType();
         var mail2send = new Mail();
         mail2send.setFrom(sender);
         mail2send.setTemplateId(emailType.template);
+        personalizations.forEach(mail2send::addPersonalization);
 
-        UUID codeId = UUID.randomUUID();
-        final var personalization = createPersonalizationAndSetParameters(emailType, codeId, host);
-        personalization.addTo(new Email(emailTo));
-        mail2send.addPersonalization(personalization);
-
+        final Response response;
         try {
             Request request = createMailRequest(mail2send);
-            final var response = sendGrid.api(request);
-            final var statusCode = response.getStatusCode();
-
-            log.debug("[SendGridService] A sent email result. STATUS: {} BODY: {}", statusCode, response.getBody());
+            response = sendGrid.api(request);
         } catch (IOException e) {
-            log.error("[SendGridService] Error while sending {} email", emailType.name(), e);
-            throw new EmailSendingException(getMessageSource(ResponseMessagesHandler.ExceptionMessage.EMAIL_SENDING));
+            log.error("[SendGridService] Error while sending {} {} emails", personalizations.size(), emailType.name(), e);
+            throw new EmailSendingException(getMessageSource(ResponseMessagesHandler.ExceptionMessage.EMAIL_SENDING), e);
         }
 
-        return codeId;
+        final var statusCode = response.getStatusCode();
+        log.debug("[SendGridService] A sent {} emails result. STATUS: {} BODY: {}", personalizations.size(),
+                statusCode, response.getBody());
+        if (statusCode >= HttpStatus.BAD_REQUEST.value()) {
+            final var error = new IOException("STATUS: " + statusCode + " BODY: " + response.getBody());
+            final var message = getMessageSource(ResponseMessagesHandler.ExceptionMessage.EMAIL_SENDING);
+            throw isRejectedForSomeEmails(statusCode, response.getBody())
+                    ? new RejectedRequestException(message, error)
+                    : new EmailSendingException(message, error);
+        }
     }
 
+    /**
+     * SendGrid names the invalid field of every error, so a request is worth splitting only when all of them point
+     * at personalizations. A too large request is split as well, as its halves are smaller
+     */
+    private static boolean isRejectedForSomeEmails(int statusCode, String body) {
+        if (statusCode == HttpStatus.PAYLOAD_TOO_LARGE.value()) {
+            return true;
+        }
+        if (statusCode != HttpStatus.BAD_REQUEST.value() || body == null || body.isBlank()) {
+            return false;
+        }
+        try {
+            final var errors = OBJECT_MAPPER.readTree(body).path("errors");
+            return !errors.isEmpty() && StreamSupport.stream(errors.spliterator(), false)
+                    .allMatch(error -> error.path("field").asText().startsWith(PERSONALIZATIONS_FIELD));
+        } catch (JsonProcessingException e) {
+            log.warn("[SendGridService] Unable to read a rejection body: {}", body);
+            return false;
+        }
+    }
 
-    private static Personalization createPersonalizationAndSetParameters(EmailType emailType, UUID codeId, String host) {
-        var personalization = new Personalization();
-
-        EMAIL_TEMPLATE_KEYS.forEach((key, value) -> {
-            var parameterSource = emailType.name().toLowerCase().concat(".").concat(value);
-            personalization.addDynamicTemplateData(key, getMessageSource(parameterSource));
+    private Map<String, String> getTemplateParameters(TemplateKey templateKey) {
+        return templateParameters.computeIfAbsent(templateKey, key -> {
+            final Map<String, String> parameters = new HashMap<>();
+            EMAIL_TEMPLATE_KEYS.forEach((parameter, value) -> {
+                var parameterSource = key.emailType().name().toLowerCase().concat(".").concat(value);
+                parameters.put(parameter, getLocalizedMessageSource(parameterSource, key.locale()));
+            });
+            return parameters;
         });
-
-        personalization.addDynamicTemplateData("url", "https://" + host.concat(emailType.callbackEndpoint.replace("{code}", codeId.toString())));
-
-        return personalization;
     }
 
-    @Override
-    public void validateEmail(UUID validationCode) throws EmailValidationCodeNotFoundException {
-        emailRepository.findById(validationCode)
-                .filter(emailConfirmationCode -> LocalDateTime.now().isBefore(emailConfirmationCode.getExpiryDate()))
-                .map(EmailConfirmationCode::getId)
-                .ifPresentOrElse(userRepository::setValidatedEmailToUserByEmailId, this::throwNotFoundException);
-    }
+    private static Personalization createPersonalization(OutgoingMail mail, Map<String, String> parameters) {
+        var personalization = new Personalization();
+        parameters.forEach(personalization::addDynamicTemplateData);
+
+        final var emailType = mail.emailType();
+        personalization.addDynamicTemplateData("url", "https://" + mail.host().concat(emailType.callbackEndpoint.replace("{code}", mail.codeId().toString())));
+        personalization.addTo(new Email(mail.emailTo()));
 
-    private void throwNotFoundException() throws EmailValidationCodeNotFoundException {
-        throw new EmailValidationCodeNotFoundException(getMessageSource(ResponseMessagesHandler.ExceptionMessage.EMAIL_NOT_FOUND_OR_EXPIRED));
+        return personalization;
     }
 
     private Request createMailRequest(Mail mail) throws IOException {
@@ -111,17 +189,16 @@ public class SendGridService implements MailService {
         return request;
     }
 
-    @Override
-    @Scheduled(cron = "${cron.expression.once_per_day_at_3am}")
-    public void permanentlyDeleteEmailConfirmationCode() {
-        emailRepository.findAll().stream()
-                .filter(this::isDurationMoreThanNumberOfDaysToKeepDeletedEmail)
-                .forEach(emailRepository::delete);
+    private record TemplateKey(EmailType emailType, Locale locale) {
     }
 
-    private boolean isDurationMoreThanNumberOfDaysToKeepDeletedEmail(EmailConfirmationCode email) {
-        Duration duration = Duration.between(email.getExpiryDate(), LocalDateTime.now());
+    /**
+     * The request is refused because of its content, so some of its emails will never be accepted as they are
+     */
+    private static class RejectedRequestException extends EmailSendingException {
 
-        return duration.toDays() > numberOfDaysToKeepDeletedEmails;
+        RejectedRequestException(String message, Throwable cause) {
+            super(message, cause);
+        }
     }
 }
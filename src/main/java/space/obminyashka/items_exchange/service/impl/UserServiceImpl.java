@@ -1,12 +1,16 @@
 package space.obminyashka.items_exchange.service.impl;
 
-import java.util.List;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.LockedException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -15,9 +19,11 @@ import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
 import org.springframework.stereotype.Service;
 import space.obminyashka.items_exchange.repository.EmailConfirmationCodeRepository;
 import space.obminyashka.items_exchange.repository.UserRepository;
-import space.obminyashka.items_exchange.repository.model.Advertisement;
+import space.obminyashka.items_exchange.repository.enums.Status;
 import space.obminyashka.items_exchange.repository.model.EmailConfirmationCode;
 import space.obminyashka.items_exchange.repository.model.User;
+import space.obminyashka.items_exchange.repository.projection.RefreshTokenSession;
+import space.obminyashka.items_exchange.repository.projection.UserPrincipal;
 import space.obminyashka.items_exchange.rest.mapper.PhoneMapper;
 import space.obminyashka.items_exchange.rest.mapper.UserMapper;
 import space.obminyashka.items_exchange.rest.request.MyUserInfoUpdateRequest;
@@ -25,15 +31,22 @@ import space.obminyashka.items_exchange.rest.request.UserRegistrationRequest;
 import space.obminyashka.items_exchange.rest.response.MyUserInfoView;
 import space.obminyashka.items_exchange.rest.response.UserLoginResponse;
 import space.obminyashka.items_exchange.rest.response.message.ResponseMessagesHandler;
+import space.obminyashka.items_exchange.service.ImageStorage;
+import space.obminyashka.items_exchange.service.MailService;
 import space.obminyashka.items_exchange.service.RoleService;
 import space.obminyashka.items_exchange.service.UserService;
 import space.obminyashka.items_exchange.service.util.EmailType;
+import space.obminyashka.items_exchange.service.util.RefreshTokenCache;
+import space.obminyashka.items_exchange.service.util.StoredImagesReleasedEvent;
+import space.obminyashka.items_exchange.service.util.UserErasureJob;
+import space.obminyashka.items_exchange.service.util.UserPrincipalCache;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.function.Predicate;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static java.time.temporal.ChronoUnit.DAYS;
 import static space.obminyashka.items_exchange.repository.enums.Status.UPDATED;
@@ -52,7 +65,14 @@ public class UserServiceImpl implements UserService, UserDetailsService {
     private final PhoneMapper phoneMapper;
     private final RoleService roleService;
     private final UserMapper userMapper;
+    private final ImageStorage imageStorage;
+    private final UserPrincipalCache userPrincipalCache;
+    private final RefreshTokenCache refreshTokenCache;
+    private final UserErasureJob userErasureJob;
+    private final MailService mailService;
+    private final ApplicationEventPublisher eventPublisher;
 
+    private volatile String userNotFoundPassword;
 
     @Value("${number.of.days.to.keep.deleted.users}")
     private int numberOfDaysToKeepDeletedUsers;
@@ -76,8 +96,14 @@ public class UserServiceImpl implements UserService, UserDetailsService {
     }
 
     @Override
-    public List<Advertisement> findListAdvertisementByUsername(String username) {
-        return userRepository.findListAdvertisementByUsername(username);
+    public Optional<UserPrincipal> findPrincipalByUsernameOrEmail(String usernameOrEmail) {
+        return userPrincipalCache.get(usernameOrEmail, userRepository::findPrincipalByUsernameOrEmail);
+    }
+
+    @Override
+    public Optional<User> findReferenceByUsernameOrEmail(String usernameOrEmail) {
+        return findPrincipalByUsernameOrEmail(usernameOrEmail)
+                .map(principal -> userRepository.getReferenceById(principal.id()));
     }
 
     @Override
@@ -88,17 +114,55 @@ public class UserServiceImpl implements UserService, UserDetailsService {
     }
 
     @Override
-    public boolean registerNewUser(UserRegistrationRequest userRegistrationRequest, UUID codeId) {
+    public UserLoginResponse authenticate(String usernameOrEmail, String password) {
+        final var authData = userRepository.findAuthDataByEmailOrUsername(usernameOrEmail, usernameOrEmail);
+        if (authData.isEmpty()) {
+            // Spend the same time as for an existing user, so response time doesn't tell whether the user exists
+            bCryptPasswordEncoder.matches(password, getUserNotFoundPassword());
+            throw new BadCredentialsException("User " + usernameOrEmail + " is not found");
+        }
+        final var user = authData.get();
+        if (user.getStatus() == Status.BANNED) {
+            throw new LockedException("User " + user.getId() + " is banned");
+        }
+        if (user.getStatus() == Status.DELETED) {
+            throw new DisabledException("User " + user.getId() + " is deleted");
+        }
+        if (!bCryptPasswordEncoder.matches(password, user.getPassword())) {
+            throw new BadCredentialsException("Invalid password of User " + user.getId());
+        }
+        if (bCryptPasswordEncoder.upgradeEncoding(user.getPassword())) {
+            updateUserPassword(user.getUsername(), password);
+            log.info("[UserServiceImpl] Password hash of User '{}' is upgraded", user.getId());
+        }
+        return userMapper.toLoginResponseDto(user);
+    }
+
+    private String getUserNotFoundPassword() {
+        if (userNotFoundPassword == null) {
+            userNotFoundPassword = bCryptPasswordEncoder.encode(UUID.randomUUID().toString());
+        }
+        return userNotFoundPassword;
+    }
+
+    @Override
+    public boolean registerNewUser(UserRegistrationRequest userRegistrationRequest, String host) {
+        // The password is hashed before the transaction, so no DB connection is held while bcrypt runs
         User userToRegister = userRegistrationDtoToUser(userRegistrationRequest);
-        EmailConfirmationCode confirmationCode = new EmailConfirmationCode(codeId, userToRegister,
-                numberOfHoursToKeepEmailConformationCode, EmailType.REGISTRATION.name());
-        return emailConfirmationCodeRepository.save(confirmationCode).getUser().getId() != null;
+        final var savedCode = new AtomicReference<EmailConfirmationCode>();
+        final var codeId = mailService.sendEmailTemplateAndGenerateConfrimationCode(userToRegister.getEmail(),
+                EmailType.REGISTRATION, host, code -> savedCode.set(emailConfirmationCodeRepository.save(
+                        new EmailConfirmationCode(code, userToRegister, numberOfHoursToKeepEmailConformationCode,
+                                EmailType.REGISTRATION.name()))));
+        log.info("[UserServiceImpl] User with email validation code '{}' is registered", codeId);
+        return savedCode.get().getUser().getId() != null;
     }
 
     @Override
-    public void resendValidateCode(String email, UUID codeId) {
-        emailConfirmationCodeRepository.saveConfirmationCode(codeId, email,
-                LocalDateTime.now().plusHours(numberOfHoursToKeepEmailConformationCode), EmailType.REGISTRATION.name());
+    public void resendValidateCode(String email, String host) {
+        mailService.sendEmailTemplateAndGenerateConfrimationCode(email, EmailType.REGISTRATION, host,
+                codeId -> emailConfirmationCodeRepository.saveConfirmationCode(codeId, email,
+                        LocalDateTime.now().plusHours(numberOfHoursToKeepEmailConformationCode), EmailType.REGISTRATION.name()));
     }
 
 
@@ -146,35 +210,43 @@ public class UserServiceImpl implements UserService, UserDetailsService {
 
         user.setStatus(UPDATED);
         userRepository.saveAndFlush(user);
+        evictCachedUser(user.getUsername());
         return getMessageSource(ResponseMessagesHandler.PositiveMessage.CHANGED_USER_INFO);
     }
 
     @Override
     public void update(User user) {
         userRepository.saveAndFlush(user);
+        evictCachedUser(user.getUsername());
     }
 
     @Override
     public void updateUserPassword(String username, String password) {
         userRepository.saveUserPasswordByUsername(username, bCryptPasswordEncoder.encode(password));
+        evictCachedUser(username);
     }
 
     @Override
-    public void saveCodeForResetPassword(String email, UUID codeId) {
-        emailConfirmationCodeRepository.saveConfirmationCode(codeId, email,
-                LocalDateTime.now().plusHours(numberOfHoursToKeepEmailConformationCode), EmailType.RESET.name());
+    public void saveCodeForResetPassword(String email, String host) {
+        mailService.sendEmailTemplateAndGenerateConfrimationCode(email, EmailType.RESET, host,
+                codeId -> emailConfirmationCodeRepository.saveConfirmationCode(codeId, email,
+                        LocalDateTime.now().plusHours(numberOfHoursToKeepEmailConformationCode), EmailType.RESET.name()));
     }
 
     @Override
-    public void updateUserEmail(String username, String email, UUID codeId) {
-        userRepository.updateUserEmailConfirmationCodeByUsername(username, codeId,
-                LocalDateTime.now().plusHours(numberOfHoursToKeepEmailConformationCode));
-        userRepository.updateUserEmailAndConfirmationCodeByUsername(username, email);
+    public void updateUserEmail(String username, String email, String host) {
+        mailService.sendEmailTemplateAndGenerateConfrimationCode(email, EmailType.CHANGING, host, codeId -> {
+            userRepository.updateUserEmailConfirmationCodeByUsername(username, codeId,
+                    LocalDateTime.now().plusHours(numberOfHoursToKeepEmailConformationCode));
+            userRepository.updateUserEmailAndConfirmationCodeByUsername(username, email);
+        });
+        evictCachedUser(username);
     }
 
     @Override
     public void selfDeleteRequest(String username) {
         userRepository.updateUserByUsernameWithRole(username, "ROLE_SELF_REMOVING");
+        evictCachedUser(username);
         log.info("[UserServiceImpl] User '{}' is now in SELF REMOVING role", username.replaceAll(EMAIL_SUFFIX, "*"));
     }
 
@@ -193,13 +265,16 @@ public class UserServiceImpl implements UserService, UserDetailsService {
     @Scheduled(cron = "${cron.expression.once_per_day_at_3am}")
     public void permanentlyDeleteUsers() {
         final var selfRemovingNearestDate = LocalDateTime.now().minusDays(numberOfDaysToKeepDeletedUsers);
-        userRepository.deleteAll(
-                userRepository.findAllByUpdatedLessThanEqualAndRoleName(selfRemovingNearestDate, "ROLE_SELF_REMOVING"));
+        if (userErasureJob.erase("ROLE_SELF_REMOVING", selfRemovingNearestDate) > 0) {
+            userPrincipalCache.clear();
+            refreshTokenCache.clear();
+        }
     }
 
     @Override
     public void makeAccountActiveAgain(String username) {
         roleService.setUserRoleToUserByUsername(username);
+        evictCachedUser(username);
         log.info("[UserServiceImpl] User '{}' is active once again", username.replaceAll(EMAIL_SUFFIX, "*"));
     }
 
@@ -233,29 +308,45 @@ public class UserServiceImpl implements UserService, UserDetailsService {
     }
 
     @Override
+    @Transactional
     public void setUserAvatar(String username, byte[] newAvatarImage) {
-        userRepository.updateAvatarByUsername(username, newAvatarImage);
+        final var previousAvatarHash = userRepository.findAvatarImageHashByUsername(username);
+        final var newAvatarHash = imageStorage.store(newAvatarImage);
+        userRepository.updateAvatarByUsername(username, newAvatarHash);
+        previousAvatarHash
+                .filter(hash -> !hash.equals(newAvatarHash))
+                .ifPresent(hash -> eventPublisher.publishEvent(new StoredImagesReleasedEvent(List.of(hash))));
     }
 
     @Override
     public void setValidatedEmailByUsernameOrEmail(String usernameOrEmail) {
         userRepository.setValidatedEmailByUsernameOrEmail(usernameOrEmail, usernameOrEmail);
+        evictCachedUser(usernameOrEmail);
     }
 
     @Override
+    @Transactional
     public void removeUserAvatarFor(String username) {
+        final var avatarHash = userRepository.findAvatarImageHashByUsername(username);
         userRepository.cleanAvatarForUserByName(username);
+        avatarHash.ifPresent(hash -> eventPublisher.publishEvent(new StoredImagesReleasedEvent(List.of(hash))));
     }
 
     @Override
-    public void updatePreferableLanguage(String refreshToken) {
+    public void updatePreferableLanguage(RefreshTokenSession session) {
         final var locale = LocaleContextHolder.getLocale();
-        userRepository.findByRefreshToken_Token(refreshToken)
-                .filter(Predicate.not(user -> Objects.equals(user.getLanguage(), locale)))
-                .ifPresent(user -> {
-                    user.setLanguage(locale);
-                    userRepository.saveAndFlush(user);
-                    log.info("[UserServiceImpl] Preferable language was successfully updated for User: {}", user.getId());
-                });
+        if (!Objects.equals(session.language(), locale)) {
+            userRepository.updateLanguage(session.userId(), locale);
+            refreshTokenCache.evictOwner(session.username());
+            log.info("[UserServiceImpl] Preferable language was successfully updated for User: {}", session.userId());
+        }
+    }
+
+    /**
+     * Drop the cached principal and refresh token session of a changed user, since both of them carry the role
+     */
+    private void evictCachedUser(String usernameOrEmail) {
+        userPrincipalCache.evictOwner(usernameOrEmail);
+        refreshTokenCache.evictOwner(usernameOrEmail);
     }
 }
@@ -0,0 +1,93 @@
+package space.obminyashka.items_exchange.service.util;
+
+import space.obminyashka.items_exchange.repository.enums.AgeRange;
+import space.obminyashka.items_exchange.repository.enums.Gender;
+import space.obminyashka.items_exchange.repository.enums.Season;
+import space.obminyashka.items_exchange.repository.enums.Size;
+import space.obminyashka.items_exchange.repository.projection.AdvertisementFacetCount;
+import space.obminyashka.items_exchange.rest.request.AdvertisementFilterRequest.Facet;
+import space.obminyashka.items_exchange.rest.response.AdvertisementFacetsView;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Accumulates advertisement amounts per filter option. Sizes are split into clothing and shoes ones by the known
+ * {@link Size} values, unknown sizes are skipped.
+ */
+public class AdvertisementFacetCounter {
+
+    private static final Set<String> CLOTHING_SIZES = Arrays.stream(Size.Clothing.values())
+            .map(Size.Clothing::getRange)
+            .collect(Collectors.toSet());
+    private static final Set<String> SHOES_SIZES = Arrays.stream(Size.Shoes.values())
+            .map(Size.Shoes::getLength)
+            .map(String::valueOf)
+            .collect(Collectors.toSet());
+
+    private final Map<Gender, Long> genders = new EnumMap<>(Gender.class);
+    private final Map<Season, Long> seasons = new EnumMap<>(Season.class);
+    private final Map<String, Long> ages = new TreeMap<>();
+    private final Map<String, Long> clothingSizes = new TreeMap<>();
+    private final Map<String, Long> shoesSizes = new TreeMap<>();
+    private final Map<Long, Long> subcategories = new TreeMap<>();
+    private long total;
+
+    public AdvertisementFacetCounter addTotal(long count) {
+        total += count;
+        return this;
+    }
+
+    public AdvertisementFacetCounter addGender(Gender gender, long count) {
+        return add(genders, gender, count);
+    }
+
+    public AdvertisementFacetCounter addSeason(Season season, long count) {
+        return add(seasons, season, count);
+    }
+
+    public AdvertisementFacetCounter addAge(AgeRange age, long count) {
+        return add(ages, age == null ? null : age.getValue(), count);
+    }
+
+    public AdvertisementFacetCounter addSize(String size, long count) {
+        if (CLOTHING_SIZES.contains(size)) {
+            add(clothingSizes, size, count);
+        } else if (SHOES_SIZES.contains(size)) {
+            add(shoesSizes, size, count);
+        }
+        return this;
+    }
+
+    public AdvertisementFacetCounter addSubcategory(Long subcategoryId, long count) {
+        return add(subcategories, subcategoryId, count);
+    }
+
+    /**
+     * Adds a grouped row counting it for the facet attribute of the group only
+     */
+    public AdvertisementFacetCounter add(AdvertisementFacetCount facetCount, Facet facet) {
+        return switch (facet) {
+            case GENDER -> addGender(facetCount.gender(), facetCount.count());
+            case SEASON -> addSeason(facetCount.season(), facetCount.count());
+            case AGE -> addAge(facetCount.age(), facetCount.count());
+            case SIZE -> addSize(facetCount.size(), facetCount.count());
+            case SUBCATEGORY -> addSubcategory(facetCount.subcategoryId(), facetCount.count());
+        };
+    }
+
+    public AdvertisementFacetsView toView() {
+        return new AdvertisementFacetsView(total, genders, seasons, ages, clothingSizes, shoesSizes, subcategories);
+    }
+
+    private <K> AdvertisementFacetCounter add(Map<K, Long> counts, K key, long count) {
+        if (key != null && count > 0) {
+            counts.merge(key, count, Long::sum);
+        }
+        return this;
+    }
+}
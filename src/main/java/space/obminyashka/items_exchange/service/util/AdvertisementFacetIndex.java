@@ -0,0 +1,378 @@
+package space.obminyashka.items_exchange.service.util;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import space.obminyashka.items_exchange.repository.AdvertisementRepository;
+import space.obminyashka.items_exchange.repository.enums.AgeRange;
+import space.obminyashka.items_exchange.repository.enums.Gender;
+import space.obminyashka.items_exchange.repository.enums.Season;
+import space.obminyashka.items_exchange.repository.model.Advertisement;
+import space.obminyashka.items_exchange.repository.projection.AdvertisementFacetProjection;
+import space.obminyashka.items_exchange.rest.request.AdvertisementFilterRequest;
+import space.obminyashka.items_exchange.rest.request.AdvertisementFilterRequest.Facet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.LongToIntFunction;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * In-memory facet index over low-cardinality advertisement attributes (gender, season, age, size, subcategory and
+ * category). Every attribute value keeps a bitmap over dense advertisement ordinals, so a filter request becomes
+ * a few bitmap AND/OR operations and the database is queried only for the final page of IDs.
+ * <p>
+ * Locations have too many values for a bitmap per each, so they are kept as a per-ordinal column and checked only
+ * for the ordinals that have passed the bitmap filters. Requests with a keyword aren't served by the index.
+ * <p>
+ * Facet counts are the cardinalities of the filter result intersected with every value bitmap. Options of a facet
+ * with a selection are counted within the filter result without that selection.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AdvertisementFacetIndex {
+
+    private final AdvertisementRepository advertisementRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Runnable> pendingChanges = new ArrayList<>();
+
+    private Index index = new Index();
+    private boolean ready;
+    private boolean rebuilding;
+
+    @Value("${app.search.facet.index.enabled}")
+    private boolean enabled;
+    @Value("${app.search.facet.index.rebuild.batch.size}")
+    private int batchSize;
+
+    /**
+     * Find IDs of the requested page of advertisements matched by the filter
+     * @param request filter parameters
+     * @param pageResolver chooses the page number by the total amount of matched advertisements
+     * @return page of advertisement IDs or empty {@link Optional} when the request should be served by the database
+     */
+    public Optional<Page<UUID>> findIds(AdvertisementFilterRequest request, LongToIntFunction pageResolver) {
+        if (!enabled || request.getKeyword() != null) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return Optional.empty();
+            }
+            BitSet matched = index.filter(request, null);
+            long total = matched.cardinality();
+            Pageable pageable = PageRequest.of(pageResolver.applyAsInt(total), request.getSize());
+            return Optional.of(new PageImpl<>(index.idsOf(matched, pageable), pageable, total));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Count advertisements matched by the filter per each option of gender, season, age, size and subcategory
+     * @param request filter parameters
+     * @return filled counter or empty {@link Optional} when the request should be served by the database
+     */
+    public Optional<AdvertisementFacetCounter> countFacets(AdvertisementFilterRequest request) {
+        if (!enabled || request.getKeyword() != null) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return Optional.empty();
+            }
+            BitSet matched = index.filter(request, null);
+            AdvertisementFacetCounter counter = new AdvertisementFacetCounter().addTotal(matched.cardinality());
+            for (Facet facet : Facet.values()) {
+                BitSet facetMatched = request.isSelected(facet) ? index.filter(request, facet) : matched;
+                switch (facet) {
+                    case GENDER -> countOptions(index.genders, facetMatched, counter::addGender);
+                    case SEASON -> countOptions(index.seasons, facetMatched, counter::addSeason);
+                    case AGE -> countOptions(index.ages, facetMatched, counter::addAge);
+                    case SIZE -> countOptions(index.sizes, facetMatched, counter::addSize);
+                    case SUBCATEGORY -> countOptions(index.subcategories, facetMatched, counter::addSubcategory);
+                }
+            }
+            return Optional.of(counter);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Pass every indexed advertisement with its subcategory to the consumer, so other in-memory structures can be
+     * refreshed without scanning the database once more
+     * @param consumer accepts an advertisement ID and its subcategory ID or {@literal null} when there is none
+     * @return {@literal false} when the index isn't built, so nothing was passed
+     */
+    public boolean forEachAdvertisement(BiConsumer<UUID, Long> consumer) {
+        if (!enabled) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return false;
+            }
+            index.forEachAlive(consumer);
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void index(Advertisement advertisement) {
+        if (enabled) {
+            Attributes attributes = Attributes.of(advertisement);
+            applyChange(target -> target.put(attributes));
+        }
+    }
+
+    public void remove(UUID id) {
+        if (enabled) {
+            applyChange(target -> target.remove(id));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAdvertisementsRemoved(AdvertisementsRemovedEvent event) {
+        event.advertisementIds().forEach(this::remove);
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.facet.index.rebuild.ms}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        setRebuilding(true);
+        try {
+            Index rebuilt = new Index();
+            Pageable batch = PageRequest.ofSize(batchSize);
+            UUID afterId = null;
+            Slice<AdvertisementFacetProjection> slice;
+            do {
+                slice = advertisementRepository.findFacetsAfter(afterId, batch);
+                slice.forEach(facets -> rebuilt.put(Attributes.of(facets)));
+                afterId = slice.hasContent() ? slice.getContent().getLast().getId() : null;
+            } while (slice.hasNext());
+            swap(rebuilt);
+            log.info("[AdvertisementFacetIndex] Rebuilt for {} advertisements", rebuilt.alive.cardinality());
+        } catch (RuntimeException e) {
+            log.error("[AdvertisementFacetIndex] Rebuild failed, keeping the previous index", e);
+            setRebuilding(false);
+        }
+    }
+
+    private static <K> void countOptions(Map<K, BitSet> bitmaps, BitSet matched, ObjLongConsumer<K> counter) {
+        BitSet intersection = new BitSet(matched.length());
+        bitmaps.forEach((option, bitmap) -> {
+            intersection.clear();
+            intersection.or(matched);
+            intersection.and(bitmap);
+            counter.accept(option, intersection.cardinality());
+        });
+    }
+
+    private void applyChange(Consumer<Index> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(index);
+            if (rebuilding) {
+                pendingChanges.add(() -> change.accept(index));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setRebuilding(boolean rebuilding) {
+        lock.writeLock().lock();
+        try {
+            this.rebuilding = rebuilding;
+            pendingChanges.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void swap(Index rebuilt) {
+        lock.writeLock().lock();
+        try {
+            index = rebuilt;
+            pendingChanges.forEach(Runnable::run);
+            pendingChanges.clear();
+            rebuilding = false;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private record Attributes(UUID id, Gender gender, Season season, AgeRange age, String size,
+                              Long subcategoryId, Long categoryId, UUID locationId) {
+
+        static Attributes of(AdvertisementFacetProjection facets) {
+            return new Attributes(facets.getId(), facets.getGender(), facets.getSeason(), facets.getAge(),
+                    facets.getSize(), facets.getSubcategoryId(), facets.getCategoryId(), facets.getLocationId());
+        }
+
+        static Attributes of(Advertisement advertisement) {
+            var subcategory = advertisement.getSubcategory();
+            return new Attributes(advertisement.getId(), advertisement.getGender(), advertisement.getSeason(),
+                    advertisement.getAge(), advertisement.getSize(),
+                    subcategory == null ? null : subcategory.getId(),
+                    subcategory == null || subcategory.getCategory() == null ? null : subcategory.getCategory().getId(),
+                    advertisement.getLocation() == null ? null : advertisement.getLocation().getId());
+        }
+    }
+
+    /**
+     * Not thread-safe, all the access is guarded by the outer lock. Every put gets a new ordinal while the previous
+     * one is dropped from the alive bitmap, so value bitmaps never have to be cleared until the next rebuild.
+     */
+    private static class Index {
+        private static final int NO_LOCATION = -1;
+
+        private final List<UUID> ids = new ArrayList<>();
+        private final Map<UUID, Integer> ordinalsById = new HashMap<>();
+        private final BitSet alive = new BitSet();
+        private final Map<Gender, BitSet> genders = new EnumMap<>(Gender.class);
+        private final Map<Season, BitSet> seasons = new EnumMap<>(Season.class);
+        private final Map<AgeRange, BitSet> ages = new EnumMap<>(AgeRange.class);
+        private final Map<String, BitSet> sizes = new HashMap<>();
+        private final Map<Long, BitSet> subcategories = new HashMap<>();
+        private final Map<Long, BitSet> categories = new HashMap<>();
+        private final Map<UUID, Integer> locationOrdinals = new HashMap<>();
+        private int[] locationByOrdinal = new int[16];
+
+        void put(Attributes attributes) {
+            remove(attributes.id());
+            int ordinal = ids.size();
+            ids.add(attributes.id());
+            ordinalsById.put(attributes.id(), ordinal);
+            alive.set(ordinal);
+            mark(genders, attributes.gender(), ordinal);
+            mark(seasons, attributes.season(), ordinal);
+            mark(ages, attributes.age(), ordinal);
+            mark(sizes, attributes.size(), ordinal);
+            mark(subcategories, attributes.subcategoryId(), ordinal);
+            mark(categories, attributes.categoryId(), ordinal);
+            if (ordinal == locationByOrdinal.length) {
+                locationByOrdinal = Arrays.copyOf(locationByOrdinal, ordinal * 2);
+            }
+            locationByOrdinal[ordinal] = attributes.locationId() == null ? NO_LOCATION
+                    : locationOrdinals.computeIfAbsent(attributes.locationId(), l -> locationOrdinals.size());
+        }
+
+        void remove(UUID id) {
+            Integer ordinal = ordinalsById.remove(id);
+            if (ordinal != null) {
+                alive.clear(ordinal);
+            }
+        }
+
+        BitSet filter(AdvertisementFilterRequest request, Facet ignored) {
+            BitSet result = (BitSet) alive.clone();
+            if (ignored != Facet.GENDER) {
+                andValue(result, genders, request.getGender());
+            }
+            if (ignored != Facet.SEASON) {
+                andAnyOf(result, seasons, request.getSeason());
+            }
+            if (ignored != Facet.AGE) {
+                andAnyOf(result, ages, request.getAge());
+            }
+            if (ignored != Facet.SIZE) {
+                andAnyOf(result, sizes, request.extractClothingSizeRanges());
+                andAnyOf(result, sizes, request.extractShoesSizeLengths());
+            }
+            if (ignored != Facet.SUBCATEGORY) {
+                andAnyOf(result, subcategories, request.getSubcategoriesIdValues());
+            }
+            andValue(result, categories, request.getCategoryId());
+            Optional.ofNullable(request.getExcludeAdvertisementId())
+                    .map(ordinalsById::get)
+                    .ifPresent(result::clear);
+            if (request.getLocationId() != null) {
+                int location = locationOrdinals.getOrDefault(request.getLocationId(), NO_LOCATION);
+                for (int i = result.nextSetBit(0); i >= 0; i = result.nextSetBit(i + 1)) {
+                    if (location == NO_LOCATION || locationByOrdinal[i] != location) {
+                        result.clear(i);
+                    }
+                }
+            }
+            return result;
+        }
+
+        void forEachAlive(BiConsumer<UUID, Long> consumer) {
+            BitSet withoutSubcategory = (BitSet) alive.clone();
+            subcategories.forEach((subcategory, bitmap) -> {
+                for (int i = bitmap.nextSetBit(0); i >= 0; i = bitmap.nextSetBit(i + 1)) {
+                    if (alive.get(i)) {
+                        consumer.accept(ids.get(i), subcategory);
+                    }
+                }
+                withoutSubcategory.andNot(bitmap);
+            });
+            for (int i = withoutSubcategory.nextSetBit(0); i >= 0; i = withoutSubcategory.nextSetBit(i + 1)) {
+                consumer.accept(ids.get(i), null);
+            }
+        }
+
+        List<UUID> idsOf(BitSet matched, Pageable pageable) {
+            List<UUID> pageIds = new ArrayList<>(pageable.getPageSize());
+            long skip = pageable.getOffset();
+            for (int i = matched.nextSetBit(0); i >= 0 && pageIds.size() < pageable.getPageSize(); i = matched.nextSetBit(i + 1)) {
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    pageIds.add(ids.get(i));
+                }
+            }
+            return pageIds;
+        }
+
+        private static <K> void mark(Map<K, BitSet> bitmaps, K value, int ordinal) {
+            if (value != null) {
+                bitmaps.computeIfAbsent(value, v -> new BitSet()).set(ordinal);
+            }
+        }
+
+        private static <K> void andValue(BitSet result, Map<K, BitSet> bitmaps, K value) {
+            if (value != null) {
+                result.and(bitmaps.getOrDefault(value, new BitSet()));
+            }
+        }
+
+        private static <K> void andAnyOf(BitSet result, Map<K, BitSet> bitmaps, Collection<K> values) {
+            if (values == null || values.isEmpty()) {
+                return;
+            }
+            BitSet union = new BitSet();
+            values.forEach(value -> union.or(bitmaps.getOrDefault(value, new BitSet())));
+            result.and(union);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package space.obminyashka.items_exchange.service.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import space.obminyashka.items_exchange.repository.AdvertisementRepository;
+import space.obminyashka.items_exchange.repository.ImageRepository;
+import space.obminyashka.items_exchange.repository.enums.Status;
+import space.obminyashka.items_exchange.repository.projection.PendingImageProjection;
+import space.obminyashka.items_exchange.service.ImageService;
+import space.obminyashka.items_exchange.service.ImageStorage;
+import space.obminyashka.items_exchange.service.util.AdvertisementImagesUploadedEvent.UploadedImage;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Makes all the {@link ImageVariant}s of uploaded advertisement images out of the request thread. The thumbnail of the
+ * first image becomes the title image of a new advertisement. Originals are already stored and linked to the
+ * advertisement, so they are shown until the processed images replace them.
+ * <p>
+ * The work runs on a dedicated pool with a bounded queue. An image without a thumbnail is pending, so an upload which
+ * doesn't fit into the full queue is left as is and resubmitted every {@code app.image.processing.retry.ms} together
+ * with uploads lost on a restart. The request thread never processes images.
+ * <p>
+ * An image which fails {@code app.image.processing.max.attempts} times in a row, or which original is missing, gets
+ * the original hash for all its variants, so it isn't pending anymore and the original is shown for good. A new
+ * advertisement becomes {@link Status#NEW} once its title image is set.
+ * <p>
+ * An original is handed to the {@link StoredImageCleaner} once the variants replace it, so it's deleted later unless
+ * anything else refers to the same content.
+ */
+@Slf4j
+@Component
+public class AdvertisementImageProcessor {
+
+    private final ImageService imageService;
+    private final ImageStorage imageStorage;
+    private final ImageRepository imageRepository;
+    private final StoredImageCleaner storedImageCleaner;
+    private final AdvertisementRepository advertisementRepository;
+    private final ThreadPoolExecutor executor;
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, Integer> failedAttempts = new ConcurrentHashMap<>();
+    private final int maxAttempts;
+    private final Timer latency;
+    private final Counter rejected;
+
+    public AdvertisementImageProcessor(ImageService imageService,
+                                       ImageStorage imageStorage,
+                                       ImageRepository imageRepository,
+                                       StoredImageCleaner storedImageCleaner,
+                                       AdvertisementRepository advertisementRepository,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${app.image.processing.pool.size}") int poolSize,
+                                       @Value("${app.image.processing.queue.capacity}") int queueCapacity,
+                                       @Value("${app.image.processing.max.attempts}") int maxAttempts) {
+        this.imageService = imageService;
+        this.imageStorage = imageStorage;
+        this.imageRepository = imageRepository;
+        this.storedImageCleaner = storedImageCleaner;
+        this.advertisementRepository = advertisementRepository;
+        this.maxAttempts = maxAttempts;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("image-processing-"));
+        new ExecutorServiceMetrics(executor, "image.processing", List.of()).bindTo(meterRegistry);
+        this.latency = Timer.builder("image.processing.latency")
+                .description("Time from an upload to its processed images, including the time spent in the queue")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("image.processing.rejected")
+                .description("Uploads left pending because the queue was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs after the images are committed, so the pool never sees rows which may be rolled back
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImagesUploaded(AdvertisementImagesUploadedEvent event) {
+        if (!submit(event)) {
+            rejected.increment();
+            log.warn("[AdvertisementImageProcessor] Queue is full, images of {} are left pending",
+                    event.advertisementId());
+        }
+    }
+
+    /**
+     * Resubmit pending images which aren't being processed, as many as fit into the queue. Images of an advertisement
+     * with the {@link Status#PROCESSING} status still make its title image
+     */
+    @Scheduled(fixedDelayString = "${app.image.processing.retry.ms}")
+    public void resubmitPending() {
+        final var capacity = executor.getQueue().remainingCapacity();
+        if (capacity == 0) {
+            return;
+        }
+        final var pendingByAdvertisement = imageRepository.findPendingImages(PageRequest.of(0, capacity)).stream()
+                .filter(image -> !inFlight.contains(image.getId()))
+                .collect(Collectors.groupingBy(PendingImageProjection::getAdvertisementId, LinkedHashMap::new,
+                        Collectors.toList()));
+
+        for (var pending : pendingByAdvertisement.entrySet()) {
+            final var images = pending.getValue().stream()
+                    .map(image -> new UploadedImage(image.getId(), image.getResourceHash()))
+                    .toList();
+            final var titleImageRequired = pending.getValue().getFirst().getAdvertisementStatus() == Status.PROCESSING;
+            if (!submit(new AdvertisementImagesUploadedEvent(pending.getKey(), images, titleImageRequired))) {
+                return;
+            }
+        }
+        if (!pendingByAdvertisement.isEmpty()) {
+            log.info("[AdvertisementImageProcessor] Pending images of {} advertisements are resubmitted",
+                    pendingByAdvertisement.size());
+        }
+    }
+
+    private boolean submit(AdvertisementImagesUploadedEvent event) {
+        final long uploaded = System.nanoTime();
+        final var imageIds = event.images().stream().map(UploadedImage::id).toList();
+        inFlight.addAll(imageIds);
+        try {
+            executor.execute(() -> {
+                try {
+                    process(event, uploaded);
+                } finally {
+                    imageIds.forEach(inFlight::remove);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            imageIds.forEach(inFlight::remove);
+            return false;
+        }
+    }
+
+    private void process(AdvertisementImagesUploadedEvent event, long uploaded) {
+        try {
+            final var thumbnailHashes = event.images().stream()
+                    .map(this::processImage)
+                    .toList();
+            if (event.titleImageRequired() && (thumbnailHashes.isEmpty() || thumbnailHashes.getFirst() != null)) {
+                if (!thumbnailHashes.isEmpty()) {
+                    advertisementRepository.updateDefaultPhotoHash(event.advertisementId(), thumbnailHashes.getFirst());
+                }
+                advertisementRepository.updateStatus(event.advertisementId(), Status.PROCESSING, Status.NEW);
+            }
+        } catch (Exception e) {
+            log.error("[AdvertisementImageProcessor] Unable to process images of {}, they stay pending",
+                    event.advertisementId(), e);
+        } finally {
+            latency.record(System.nanoTime() - uploaded, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * @return hash of the thumbnail or {@literal null} when the image stays pending to be retried
+     */
+    private String processImage(UploadedImage image) {
+        try {
+            final var thumbnailHash = storeVariants(image);
+            failedAttempts.remove(image.id());
+            return thumbnailHash;
+        } catch (Exception e) {
+            final int attempts = failedAttempts.merge(image.id(), 1, Integer::sum);
+            if (attempts < maxAttempts) {
+                log.warn("[AdvertisementImageProcessor] Unable to process image {}, attempt {} of {}",
+                        image.id(), attempts, maxAttempts, e);
+                return null;
+            }
+            failedAttempts.remove(image.id());
+            log.error("[AdvertisementImageProcessor] Image {} failed {} times, the original is kept instead",
+                    image.id(), attempts, e);
+            return keepOriginal(image);
+        }
+    }
+
+    private String storeVariants(UploadedImage image) {
+        final var original = imageStorage.load(image.originalHash());
+        if (original.isEmpty()) {
+            log.warn("[AdvertisementImageProcessor] Original of image {} is missing", image.id());
+            return keepOriginal(image);
+        }
+        final var variants = imageService.createVariants(original.get());
+        final var thumbnailHash = store(variants.get(ImageVariant.THUMBNAIL));
+        imageRepository.updateVariantHashes(image.id(),
+                store(variants.get(ImageVariant.FULL)),
+                store(variants.get(ImageVariant.MEDIUM)),
+                thumbnailHash);
+        storedImageCleaner.deleteLater(List.of(image.originalHash()));
+        return thumbnailHash;
+    }
+
+    /**
+     * Marks the image as processed with the original standing for every variant
+     */
+    private String keepOriginal(UploadedImage image) {
+        imageRepository.updateVariantHashes(image.id(), image.originalHash(), image.originalHash(), image.originalHash());
+        return image.originalHash();
+    }
+
+    private String store(EncodedImage image) {
+        final var hash = imageStorage.store(image.content());
+        image.alternatives().forEach((format, content) -> imageStorage.storeAlternative(hash, format, content));
+        return hash;
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("[AdvertisementImageProcessor] {} uploads left pending", executor.shutdownNow().size());
+        }
+    }
+}
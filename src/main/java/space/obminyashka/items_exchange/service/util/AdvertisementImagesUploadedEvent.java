@@ -0,0 +1,21 @@
+package space.obminyashka.items_exchange.service.util;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Published when original (not yet processed) images are stored and linked to an advertisement
+ * @param advertisementId ID of the advertisement the images belong to
+ * @param images stored images in the upload order
+ * @param titleImageRequired whether a title image has to be made of the first image and the advertisement has to leave
+ *                           the {@link space.obminyashka.items_exchange.repository.enums.Status#PROCESSING} status
+ */
+public record AdvertisementImagesUploadedEvent(UUID advertisementId, List<UploadedImage> images, boolean titleImageRequired) {
+
+    /**
+     * @param id ID of the image entity
+     * @param originalHash hash of the original image content in the image storage
+     */
+    public record UploadedImage(UUID id, String originalHash) {
+    }
+}
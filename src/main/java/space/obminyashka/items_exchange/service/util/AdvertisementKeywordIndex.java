@@ -0,0 +1,330 @@
+package space.obminyashka.items_exchange.service.util;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import space.obminyashka.items_exchange.repository.AdvertisementRepository;
+import space.obminyashka.items_exchange.repository.projection.AdvertisementTextProjection;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over advertisement topics and descriptions.
+ * <p>
+ * The index is used only for narrowing down the keyword search: it answers with a set of candidate IDs which always
+ * contains every advertisement matched by the SQL {@code LIKE} condition, so the database filter is still applied
+ * on top of it. Whenever the index can't give a reliable answer (not built yet, disabled, too wide result) an empty
+ * {@link Optional} is returned and the caller should fall back to the plain SQL search.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AdvertisementKeywordIndex {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern APOSTROPHES = Pattern.compile("[’ʼ`‘]");
+    private static final Pattern TOKEN_SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}']+");
+    private static final Pattern KEYWORD_SEPARATORS = Pattern.compile("\\s+");
+
+    private final AdvertisementRepository advertisementRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Runnable> pendingChanges = new ArrayList<>();
+
+    private Index index = new Index();
+    private boolean ready;
+    private boolean rebuilding;
+
+    @Value("${app.search.keyword.index.enabled}")
+    private boolean enabled;
+    @Value("${app.search.keyword.index.max.candidates}")
+    private int maxCandidates;
+    @Value("${app.search.keyword.index.rebuild.batch.size}")
+    private int batchSize;
+
+    /**
+     * Searches advertisements which may match the keyword. Space-separated parts of the keyword are combined by OR
+     * the same way as the SQL keyword condition does.
+     * @param keyword raw keyword from the filter request
+     * @return candidate IDs or empty {@link Optional} when the index can't be used for this keyword
+     */
+    public Optional<Set<UUID>> findCandidates(String keyword) {
+        if (!enabled || keyword == null || keyword.isBlank()) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return Optional.empty();
+            }
+            BitSet matched = new BitSet();
+            for (String part : KEYWORD_SEPARATORS.split(keyword.trim())) {
+                List<String> fragments = tokenize(part);
+                if (fragments.isEmpty()) {
+                    return Optional.empty();
+                }
+                matched.or(index.findContainingAll(fragments));
+            }
+            matched.andNot(index.removed);
+            if (matched.cardinality() > maxCandidates) {
+                return Optional.empty();
+            }
+            Set<UUID> candidates = HashSet.newHashSet(matched.cardinality());
+            matched.stream().forEach(ordinal -> candidates.add(index.ids.get(ordinal)));
+            return Optional.of(candidates);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void index(UUID id, String topic, String description) {
+        if (enabled) {
+            applyChange(target -> target.put(id, tokenize(topic, description)));
+        }
+    }
+
+    public void remove(UUID id) {
+        if (enabled) {
+            applyChange(target -> target.remove(id));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAdvertisementsRemoved(AdvertisementsRemovedEvent event) {
+        event.advertisementIds().forEach(this::remove);
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.keyword.index.rebuild.ms}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        startRebuilding();
+        try {
+            Index rebuilt = new Index();
+            Pageable batch = PageRequest.ofSize(batchSize);
+            UUID afterId = null;
+            Slice<AdvertisementTextProjection> slice;
+            do {
+                slice = advertisementRepository.findTextsAfter(afterId, batch);
+                slice.forEach(text -> rebuilt.put(text.getId(), tokenize(text.getTopic(), text.getDescription())));
+                afterId = slice.hasContent() ? slice.getContent().getLast().getId() : null;
+            } while (slice.hasNext());
+            swap(rebuilt);
+            log.info("[AdvertisementKeywordIndex] Rebuilt for {} advertisements and {} tokens",
+                    rebuilt.ordinalsById.size(), rebuilt.tokens.size());
+        } catch (RuntimeException e) {
+            log.error("[AdvertisementKeywordIndex] Rebuild failed, keeping the previous index", e);
+            stopRebuilding();
+        }
+    }
+
+    /**
+     * Splits a text into lowercase tokens without diacritics. Apostrophes inside a word (Ukrainian "м'яч",
+     * English "don't") are treated as a part of the token and all their typographic variants are unified.
+     */
+    static List<String> tokenize(String... texts) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String text : texts) {
+            if (text == null || text.isBlank()) {
+                continue;
+            }
+            String normalized = Normalizer.normalize(text, Normalizer.Form.NFD);
+            normalized = COMBINING_MARKS.matcher(normalized).replaceAll("").toLowerCase(Locale.ROOT);
+            normalized = APOSTROPHES.matcher(normalized).replaceAll("'");
+            Arrays.stream(TOKEN_SEPARATORS.split(normalized))
+                    .map(AdvertisementKeywordIndex::trimApostrophes)
+                    .filter(token -> !token.isEmpty())
+                    .forEach(tokens::add);
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    private static String trimApostrophes(String token) {
+        int start = 0;
+        int end = token.length();
+        while (start < end && token.charAt(start) == '\'') start++;
+        while (end > start && token.charAt(end - 1) == '\'') end--;
+        return token.substring(start, end);
+    }
+
+    private void applyChange(Consumer<Index> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(index);
+            if (rebuilding) {
+                pendingChanges.add(() -> change.accept(index));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void startRebuilding() {
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            pendingChanges.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void stopRebuilding() {
+        lock.writeLock().lock();
+        try {
+            rebuilding = false;
+            pendingChanges.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void swap(Index rebuilt) {
+        lock.writeLock().lock();
+        try {
+            index = rebuilt;
+            pendingChanges.forEach(Runnable::run);
+            pendingChanges.clear();
+            rebuilding = false;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Not thread-safe, all the access is guarded by the outer lock. Every put gets a new ordinal while the previous
+     * one is just marked as removed, so posting lists stay sorted and append-only until the next rebuild.
+     * <p>
+     * Tokens containing a fragment are found by the n-gram index of the vocabulary: every substring of a token up to
+     * {@value #GRAM_LENGTH} characters long points to the token. Shorter fragments are looked up directly, while
+     * longer ones intersect the tokens of their trigrams and check the rest by the substring search.
+     */
+    private static class Index {
+        private static final int GRAM_LENGTH = 3;
+
+        private final List<UUID> ids = new ArrayList<>();
+        private final Map<UUID, Integer> ordinalsById = new HashMap<>();
+        private final List<String> tokens = new ArrayList<>();
+        private final List<Postings> postings = new ArrayList<>();
+        private final Map<String, Integer> tokenOrdinals = new HashMap<>();
+        private final Map<String, Postings> tokensByGram = new HashMap<>();
+        private final BitSet removed = new BitSet();
+
+        void put(UUID id, List<String> tokens) {
+            remove(id);
+            int ordinal = ids.size();
+            ids.add(id);
+            ordinalsById.put(id, ordinal);
+            tokens.forEach(token -> postings.get(tokenOrdinal(token)).add(ordinal));
+        }
+
+        void remove(UUID id) {
+            Integer ordinal = ordinalsById.remove(id);
+            if (ordinal != null) {
+                removed.set(ordinal);
+            }
+        }
+
+        BitSet findContainingAll(List<String> fragments) {
+            BitSet result = null;
+            for (String fragment : fragments) {
+                BitSet matched = new BitSet(ids.size());
+                BitSet matchedTokens = findTokensContaining(fragment);
+                for (int token = matchedTokens.nextSetBit(0); token >= 0; token = matchedTokens.nextSetBit(token + 1)) {
+                    postings.get(token).copyTo(matched);
+                }
+                if (result == null) {
+                    result = matched;
+                } else {
+                    result.and(matched);
+                }
+                if (result.isEmpty()) {
+                    break;
+                }
+            }
+            return Objects.requireNonNullElseGet(result, BitSet::new);
+        }
+
+        private BitSet findTokensContaining(String fragment) {
+            if (fragment.length() <= GRAM_LENGTH) {
+                BitSet matched = new BitSet(tokens.size());
+                Optional.ofNullable(tokensByGram.get(fragment)).ifPresent(list -> list.copyTo(matched));
+                return matched;
+            }
+            BitSet matched = findTokensContaining(fragment.substring(0, GRAM_LENGTH));
+            for (int start = 1; start + GRAM_LENGTH <= fragment.length() && !matched.isEmpty(); start++) {
+                matched.and(findTokensContaining(fragment.substring(start, start + GRAM_LENGTH)));
+            }
+            for (int token = matched.nextSetBit(0); token >= 0; token = matched.nextSetBit(token + 1)) {
+                if (!tokens.get(token).contains(fragment)) {
+                    matched.clear(token);
+                }
+            }
+            return matched;
+        }
+
+        private int tokenOrdinal(String token) {
+            Integer existing = tokenOrdinals.get(token);
+            if (existing != null) {
+                return existing;
+            }
+            int tokenOrdinal = tokens.size();
+            tokens.add(token);
+            postings.add(new Postings());
+            tokenOrdinals.put(token, tokenOrdinal);
+            grams(token).forEach(gram -> tokensByGram.computeIfAbsent(gram, g -> new Postings()).add(tokenOrdinal));
+            return tokenOrdinal;
+        }
+
+        private static Set<String> grams(String token) {
+            Set<String> grams = new HashSet<>();
+            for (int start = 0; start < token.length(); start++) {
+                for (int end = start + 1; end <= Math.min(token.length(), start + GRAM_LENGTH); end++) {
+                    grams.add(token.substring(start, end));
+                }
+            }
+            return grams;
+        }
+    }
+
+    private static class Postings {
+        private int[] ordinals = new int[2];
+        private int size;
+
+        void add(int ordinal) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+        }
+
+        void copyTo(BitSet target) {
+            for (int i = 0; i < size; i++) {
+                target.set(ordinals[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package space.obminyashka.items_exchange.service.util;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.CollectionUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import space.obminyashka.items_exchange.repository.AdvertisementRepository;
+import space.obminyashka.items_exchange.repository.projection.AdvertisementFacetProjection;
+import space.obminyashka.items_exchange.rest.request.AdvertisementFilterRequest;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiConsumer;
+
+/**
+ * Periodically refreshed per-subcategory reservoirs of advertisement IDs used for random advertisement blocks
+ * ("similar items" etc.). Sampling doesn't touch the database, so the caller only has to load the chosen IDs.
+ * <p>
+ * Only requests filtered by subcategories and an excluded advertisement are served, the rest go the usual way.
+ * <p>
+ * Reservoirs are refreshed from the {@link AdvertisementFacetIndex} when it's built, and the database is scanned
+ * only when the facet index is disabled or not built yet.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AdvertisementRandomSampler {
+
+    private static final long ALL_SUBCATEGORIES = -1L;
+
+    private final AdvertisementRepository advertisementRepository;
+    private final AdvertisementFacetIndex advertisementFacetIndex;
+    private final Set<UUID> removed = ConcurrentHashMap.newKeySet();
+    private volatile Map<Long, Reservoir> reservoirs;
+
+    @Value("${app.search.random.enabled}")
+    private boolean enabled;
+    @Value("${app.search.random.reservoir.size}")
+    private int reservoirSize;
+    @Value("${app.search.random.refresh.batch.size}")
+    private int batchSize;
+
+    /**
+     * Choose random advertisements for the request
+     * @param request filter parameters with random mode enabled
+     * @return page of random advertisement IDs or empty {@link Optional} when the request can't be served by sampling
+     */
+    public Optional<Page<UUID>> sample(AdvertisementFilterRequest request) {
+        Map<Long, Reservoir> current = reservoirs;
+        if (!enabled || current == null || !isSupported(request)) {
+            return Optional.empty();
+        }
+        List<Reservoir> pool = CollectionUtils.isEmpty(request.getSubcategoriesIdValues())
+                ? List.of(current.get(ALL_SUBCATEGORIES))
+                : request.getSubcategoriesIdValues().stream().distinct().map(current::get).filter(Objects::nonNull).toList();
+
+        UUID excludedId = request.getExcludeAdvertisementId();
+        Reservoir picked = new Reservoir(request.getSize());
+        long pooled = 0;
+        long total = 0;
+        for (Reservoir reservoir : pool) {
+            List<UUID> ids = reservoir.ids();
+            pooled += ids.size();
+            total += reservoir.total();
+            ids.stream()
+                    .filter(id -> !id.equals(excludedId) && !removed.contains(id))
+                    .forEach(picked::offer);
+        }
+        total -= pooled - picked.total();
+        List<UUID> pickedIds = picked.ids();
+        Collections.shuffle(pickedIds, ThreadLocalRandom.current());
+        Pageable pageable = PageRequest.of(0, request.getSize());
+        return Optional.of(new PageImpl<>(pickedIds, pageable, total));
+    }
+
+    public void remove(UUID id) {
+        if (enabled) {
+            removed.add(id);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAdvertisementsRemoved(AdvertisementsRemovedEvent event) {
+        event.advertisementIds().forEach(this::remove);
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.random.refresh.ms}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Map<Long, Reservoir> refreshed = new HashMap<>();
+            BiConsumer<UUID, Long> offerAdvertisement = (id, subcategoryId) -> {
+                offer(refreshed, ALL_SUBCATEGORIES, id);
+                if (subcategoryId != null) {
+                    offer(refreshed, subcategoryId, id);
+                }
+            };
+            if (!advertisementFacetIndex.forEachAdvertisement(offerAdvertisement)) {
+                Pageable batch = PageRequest.ofSize(batchSize);
+                UUID afterId = null;
+                Slice<AdvertisementFacetProjection> slice;
+                do {
+                    slice = advertisementRepository.findFacetsAfter(afterId, batch);
+                    slice.forEach(advertisement -> offerAdvertisement.accept(advertisement.getId(), advertisement.getSubcategoryId()));
+                    afterId = slice.hasContent() ? slice.getContent().getLast().getId() : null;
+                } while (slice.hasNext());
+            }
+            refreshed.putIfAbsent(ALL_SUBCATEGORIES, new Reservoir(reservoirSize));
+
+            Set<UUID> sampledIds = new HashSet<>();
+            refreshed.values().forEach(reservoir -> sampledIds.addAll(reservoir.ids()));
+            reservoirs = refreshed;
+            removed.retainAll(sampledIds);
+            log.info("[AdvertisementRandomSampler] Refreshed for {} subcategories", refreshed.size() - 1);
+        } catch (RuntimeException e) {
+            log.error("[AdvertisementRandomSampler] Refresh failed, keeping the previous reservoirs", e);
+        }
+    }
+
+    private void offer(Map<Long, Reservoir> reservoirs, long subcategoryId, UUID id) {
+        reservoirs.computeIfAbsent(subcategoryId, s -> new Reservoir(reservoirSize)).offer(id);
+    }
+
+    private static boolean isSupported(AdvertisementFilterRequest request) {
+        return request.isEnableRandom()
+                && request.getKeyword() == null
+                && request.getCategoryId() == null
+                && request.getLocationId() == null
+                && request.getGender() == null
+                && CollectionUtils.isEmpty(request.getAge())
+                && CollectionUtils.isEmpty(request.getSeason())
+                && CollectionUtils.isEmpty(request.getClothingSizes())
+                && CollectionUtils.isEmpty(request.getShoesSizes());
+    }
+
+    /**
+     * Uniform sample of a stream of unknown length (reservoir sampling). Not thread-safe, it's filled by a single
+     * refresh and is read-only after being published. Sampling picks a request page the same way from the candidates
+     * streamed out of the published reservoirs, so nothing is copied.
+     */
+    private static class Reservoir {
+        private final UUID[] sample;
+        private long total;
+
+        Reservoir(int capacity) {
+            this.sample = new UUID[capacity];
+        }
+
+        void offer(UUID id) {
+            if (total < sample.length) {
+                sample[(int) total] = id;
+            } else {
+                long position = ThreadLocalRandom.current().nextLong(total + 1);
+                if (position < sample.length) {
+                    sample[(int) position] = id;
+                }
+            }
+            total++;
+        }
+
+        long total() {
+            return total;
+        }
+
+        List<UUID> ids() {
+            return Arrays.asList(sample).subList(0, (int) Math.min(total, sample.length));
+        }
+    }
+}
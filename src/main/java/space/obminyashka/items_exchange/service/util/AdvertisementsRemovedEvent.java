@@ -0,0 +1,13 @@
+package space.obminyashka.items_exchange.service.util;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Published when advertisements are deleted, either one by its owner or all of them with the erased users
+ * @param advertisementIds IDs of the deleted advertisements to be dropped from the in-memory indexes
+ * @param imageHashes hashes of the stored images the deleted rows referred to, the images are deleted unless anything
+ *                    else refers to them
+ */
+public record AdvertisementsRemovedEvent(Collection<UUID> advertisementIds, Collection<String> imageHashes) {
+}
@@ -0,0 +1,99 @@
+package space.obminyashka.items_exchange.service.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+import space.obminyashka.items_exchange.rest.exception.ServiceUnavailableException;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static space.obminyashka.items_exchange.rest.response.message.MessageSourceProxy.getMessageSource;
+import static space.obminyashka.items_exchange.rest.response.message.ResponseMessagesHandler.ExceptionMessage.SERVICE_BUSY;
+
+/**
+ * Hashes and checks passwords on a dedicated pool, so a login storm takes at most {@code app.password.hashing.pool.size}
+ * cores for bcrypt and leaves the rest of the server responsive. Request threads only wait for the result. When the
+ * bounded queue is full the request is rejected at once with {@link ServiceUnavailableException} instead of waiting
+ * behind the other logins.
+ * <p>
+ * The version and the strength are configurable. Hashes made with a lower strength are reported by
+ * {@link #upgradeEncoding(String)}, so they are replaced on the next successful login.
+ */
+@Component
+public class BoundedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    private final ThreadPoolExecutor executor;
+    private final Timer queueTime;
+    private final Counter rejected;
+
+    public BoundedBCryptPasswordEncoder(@Value("${app.password.bcrypt.version}") BCryptVersion version,
+                                        @Value("${app.password.bcrypt.strength}") int strength,
+                                        @Value("${app.password.hashing.pool.size}") int poolSize,
+                                        @Value("${app.password.hashing.queue.capacity}") int queueCapacity,
+                                        MeterRegistry meterRegistry) {
+        super(version, strength);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hashing-"));
+        new ExecutorServiceMetrics(executor, "password.hashing", List.of()).bindTo(meterRegistry);
+        this.queueTime = Timer.builder("password.hashing.queue.time")
+                .description("Time a password waits for a hashing thread")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("password.hashing.rejected")
+                .description("Passwords rejected because the hashing queue was full")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return hash(() -> super.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return hash(() -> super.matches(rawPassword, encodedPassword));
+    }
+
+    private <T> T hash(Supplier<T> hashing) {
+        final long submitted = System.nanoTime();
+        final Future<T> result;
+        try {
+            result = executor.submit(() -> {
+                queueTime.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                return hashing.get();
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceUnavailableException(getMessageSource(SERVICE_BUSY));
+        }
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a password hash", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Unable to hash a password", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,11 @@
+package space.obminyashka.items_exchange.service.util;
+
+import java.util.Map;
+
+/**
+ * Image variant encoded into its original format with optional alternative encodings
+ * @param content bytes in the format of the uploaded image, served to every client
+ * @param alternatives bytes in other formats by their lowercase names, e.g. {@literal webp}
+ */
+public record EncodedImage(byte[] content, Map<String, byte[]> alternatives) {
+}
@@ -0,0 +1,13 @@
+package space.obminyashka.items_exchange.service.util;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+
+/**
+ * Stored image content in the format chosen for a client
+ * @param resource streamable content
+ * @param mediaType type of the content
+ * @param eTag tag which differs for every encoding of the same image
+ */
+public record ImageContent(Resource resource, MediaType mediaType, String eTag) {
+}
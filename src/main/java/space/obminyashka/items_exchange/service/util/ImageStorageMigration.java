@@ -0,0 +1,75 @@
+package space.obminyashka.items_exchange.service.util;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import space.obminyashka.items_exchange.repository.AdvertisementRepository;
+import space.obminyashka.items_exchange.repository.ImageRepository;
+import space.obminyashka.items_exchange.repository.UserRepository;
+import space.obminyashka.items_exchange.repository.projection.ImageResourceProjection;
+import space.obminyashka.items_exchange.service.ImageStorage;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Moves image BLOBs kept in the DB (advertisement images, default photos and user avatars) to the {@link ImageStorage}
+ * batch by batch. Every row is switched to the hash right after its content is stored, so the job may be stopped at
+ * any moment and continued by the next run.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ImageStorageMigration {
+
+    private final ImageStorage imageStorage;
+    private final ImageRepository imageRepository;
+    private final AdvertisementRepository advertisementRepository;
+    private final UserRepository userRepository;
+
+    @Value("${app.image.storage.migration.enabled}")
+    private boolean enabled;
+    @Value("${app.image.storage.migration.batch.size}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${app.image.storage.migration.delay.ms}")
+    public void migrate() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long images = migrate(imageRepository::findNotStoredImages, imageRepository::moveResourceToStorage);
+            long defaultPhotos = migrate(advertisementRepository::findNotStoredDefaultPhotos,
+                    advertisementRepository::updateDefaultPhotoHash);
+            long avatars = migrate(userRepository::findNotStoredAvatars, userRepository::moveAvatarToStorage);
+            if (images + defaultPhotos + avatars > 0) {
+                log.info("[ImageStorageMigration] Moved {} images, {} default photos and {} avatars to the image storage",
+                        images, defaultPhotos, avatars);
+            }
+        } catch (RuntimeException e) {
+            log.error("[ImageStorageMigration] Migration failed, it will be continued by the next run", e);
+        }
+    }
+
+    private long migrate(Function<Pageable, List<ImageResourceProjection>> notStoredLoader, BiConsumer<UUID, String> hashUpdater) {
+        // Migrated rows don't match the query anymore, so the first page is always the next batch
+        Pageable firstPage = PageRequest.ofSize(batchSize);
+        long migrated = 0;
+        List<ImageResourceProjection> batch;
+        do {
+            batch = notStoredLoader.apply(firstPage);
+            for (ImageResourceProjection image : batch) {
+                byte[] content = image.getResource();
+                hashUpdater.accept(image.getId(), content.length > 0 ? imageStorage.store(content) : null);
+            }
+            migrated += batch.size();
+        } while (batch.size() == batchSize);
+        return migrated;
+    }
+}
@@ -0,0 +1,19 @@
+package space.obminyashka.items_exchange.service.util;
+
+/**
+ * Sizes every uploaded image is stored in, so clients download only the resolution they show
+ */
+public enum ImageVariant {
+    /**
+     * Scaled to {@code app.image.thumbnail.edge.px}, used by grids and sliders
+     */
+    THUMBNAIL,
+    /**
+     * Scaled to {@code app.image.medium.edge.px}, used by an advertisement page
+     */
+    MEDIUM,
+    /**
+     * Compressed image of the original resolution
+     */
+    FULL
+}
@@ -0,0 +1,170 @@
+package space.obminyashka.items_exchange.service.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import space.obminyashka.items_exchange.repository.OutboxMailRepository;
+import space.obminyashka.items_exchange.repository.model.OutboxMail;
+import space.obminyashka.items_exchange.service.MailSender;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends emails from the outbox in batches of {@code app.mail.outbox.batch.size}, every batch is passed to
+ * {@link MailSender#sendAll} to be sent in bulk. Every email is taken by moving its next attempt to the end of a lease,
+ * so several nodes never send the same email and an email taken by a crashed node is sent again after the lease.
+ * <p>
+ * Sent emails are removed. A failed email is retried with an exponential backoff from
+ * {@code app.mail.outbox.backoff.initial.ms} up to {@code app.mail.outbox.backoff.max.ms} and is kept without the next
+ * attempt after {@code app.mail.outbox.max.attempts}, until the retention job removes it. The age of the oldest email
+ * waiting to be sent is exposed by the {@code mail.outbox.lag} gauge in seconds.
+ */
+@Slf4j
+@Component
+public class MailOutboxDispatcher {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxMailRepository outboxMailRepository;
+    private final MailSender mailSender;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+
+    public MailOutboxDispatcher(OutboxMailRepository outboxMailRepository,
+                                MailSender mailSender,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.mail.outbox.batch.size}") int batchSize,
+                                @Value("${app.mail.outbox.max.batches.per.run}") int maxBatchesPerRun,
+                                @Value("${app.mail.outbox.max.attempts}") int maxAttempts,
+                                @Value("${app.mail.outbox.backoff.initial.ms}") long initialBackoffMillis,
+                                @Value("${app.mail.outbox.backoff.max.ms}") long maxBackoffMillis,
+                                @Value("${app.mail.outbox.lease.ms}") long leaseMillis) {
+        this.outboxMailRepository = outboxMailRepository;
+        this.mailSender = mailSender;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = Duration.ofMillis(initialBackoffMillis);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMillis);
+        this.lease = Duration.ofMillis(leaseMillis);
+        meterRegistry.gauge("mail.outbox.lag", lagSeconds);
+        this.sent = Counter.builder("mail.outbox.sent")
+                .description("Emails sent from the outbox")
+                .register(meterRegistry);
+        this.retried = Counter.builder("mail.outbox.retried")
+                .description("Emails failed to be sent and scheduled for another attempt")
+                .register(meterRegistry);
+        this.failed = Counter.builder("mail.outbox.failed")
+                .description("Emails failed all the attempts")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Send the emails which are due, at most {@code app.mail.outbox.max.batches.per.run} batches. The rest is left
+     * for the next run, so failing emails retried without a delay can't keep a run going
+     * @return amount of sent emails
+     */
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll.ms}")
+    public int dispatch() {
+        int total = 0;
+        int batches = 0;
+        List<OutboxMail> due;
+        do {
+            due = outboxMailRepository.findDue(LocalDateTime.now(), PageRequest.of(0, batchSize));
+            total += dispatchBatch(due);
+        } while (due.size() == batchSize && ++batches < maxBatchesPerRun);
+
+        lagSeconds.set(outboxMailRepository.findOldestPendingCreated()
+                .map(created -> Math.max(0, Duration.between(created, LocalDateTime.now()).toSeconds()))
+                .orElse(0L));
+        return total;
+    }
+
+    private int dispatchBatch(List<OutboxMail> due) {
+        final var now = LocalDateTime.now();
+        final var leaseUntil = now.plus(lease);
+        final Map<OutgoingMail, OutboxMail> claimed = new IdentityHashMap<>();
+        for (OutboxMail mail : due) {
+            if (outboxMailRepository.claim(mail.getId(), mail.getNextAttemptAt(), leaseUntil) == 1) {
+                claimed.put(toOutgoingMail(mail), mail);
+            }
+        }
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+
+        final Map<OutgoingMail, ? extends RuntimeException> failed = sendAll(claimed);
+        failed.forEach((outgoingMail, e) -> reschedule(claimed.get(outgoingMail), e, now));
+
+        final List<UUID> sentIds = claimed.entrySet().stream()
+                .filter(entry -> !failed.containsKey(entry.getKey()))
+                .map(entry -> entry.getValue().getId())
+                .toList();
+        if (!sentIds.isEmpty()) {
+            outboxMailRepository.deleteAllByIdInBatch(sentIds);
+        }
+        sent.increment(sentIds.size());
+        return sentIds.size();
+    }
+
+    private Map<OutgoingMail, ? extends RuntimeException> sendAll(Map<OutgoingMail, OutboxMail> claimed) {
+        try {
+            return mailSender.sendAll(new ArrayList<>(claimed.keySet()));
+        } catch (RuntimeException e) {
+            final Map<OutgoingMail, RuntimeException> failed = new IdentityHashMap<>();
+            claimed.keySet().forEach(mail -> failed.put(mail, e));
+            return failed;
+        }
+    }
+
+    private void reschedule(OutboxMail mail, RuntimeException e, LocalDateTime now) {
+        final int attempts = mail.getAttempts() + 1;
+        final var error = describe(e);
+        if (attempts >= maxAttempts) {
+            outboxMailRepository.reschedule(mail.getId(), attempts, null, error);
+            failed.increment();
+            log.error("[MailOutboxDispatcher] {} email '{}' is not sent after {} attempts: {}",
+                    mail.getEmailType(), mail.getId(), attempts, error);
+            return;
+        }
+        outboxMailRepository.reschedule(mail.getId(), attempts, now.plus(backoff(attempts)), error);
+        retried.increment();
+        log.warn("[MailOutboxDispatcher] {} email '{}' is not sent, attempt {} of {}: {}",
+                mail.getEmailType(), mail.getId(), attempts, maxAttempts, error);
+    }
+
+    private Duration backoff(int attempts) {
+        final var backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    private static String describe(RuntimeException e) {
+        final var cause = e.getCause() != null ? e.getCause() : e;
+        final var message = String.valueOf(cause.getMessage());
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+
+    private static OutgoingMail toOutgoingMail(OutboxMail mail) {
+        return new OutgoingMail(mail.getEmailTo(), EmailType.valueOf(mail.getEmailType()), mail.getCodeId(),
+                mail.getHost(), mail.getLanguage());
+    }
+}
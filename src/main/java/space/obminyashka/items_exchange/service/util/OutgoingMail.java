@@ -0,0 +1,15 @@
+package space.obminyashka.items_exchange.service.util;
+
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * An email to be sent with the template of its type
+ * @param emailTo a receiver email address
+ * @param emailType type of the email which defines the template
+ * @param codeId confirmation code put into the link of the email
+ * @param host domain name of the link
+ * @param locale language of the email
+ */
+public record OutgoingMail(String emailTo, EmailType emailType, UUID codeId, String host, Locale locale) {
+}
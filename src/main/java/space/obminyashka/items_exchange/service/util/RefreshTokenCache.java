@@ -0,0 +1,24 @@
+package space.obminyashka.items_exchange.service.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import space.obminyashka.items_exchange.repository.projection.RefreshTokenSession;
+
+import java.util.List;
+
+/**
+ * Short-lived cache of {@link RefreshTokenSession}s keyed by the refresh token hash, so clients refreshing often are
+ * served without reading the DB. Entries live for {@code app.refresh.token.cache.ttl.ms}, so a token replaced or
+ * removed by another node keeps working on this node for the TTL at the latest.
+ * <p>
+ * The cache holds at most {@code app.refresh.token.cache.max.size} entries. Sessions are owned by the username, so
+ * {@link #evictOwner(String)} drops the session of a user whose token, role or language is changed.
+ */
+@Component
+public class RefreshTokenCache extends TtlCache<String, RefreshTokenSession> {
+
+    public RefreshTokenCache(@Value("${app.refresh.token.cache.ttl.ms}") long ttlMillis,
+                             @Value("${app.refresh.token.cache.max.size}") int maxSize) {
+        super(ttlMillis, maxSize, session -> List.of(session.username()));
+    }
+}
@@ -0,0 +1,135 @@
+package space.obminyashka.items_exchange.service.util;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Rotating Bloom filter of revoked token ids. It answers "definitely not revoked" for almost every valid token with a
+ * few reads of a bit array and no allocation, so the revocation store is asked only about revoked tokens and rare
+ * false positives.
+ * <p>
+ * Ids are added to the current generation, which becomes the previous one on rotation and is dropped on the next
+ * rotation. The current generation is rotated only when it is at least one access token lifetime old, so a late
+ * scheduled run followed by one catching up can't drop a generation early. A token revoked during a generation expires
+ * within a lifetime after the generation stops taking ids, so the filter never forgets a revocation which still matters
+ * and never grows.
+ */
+@Component
+public class RevokedTokenFilter {
+
+    private final int bitCount;
+    private final int hashCount;
+    private final long tokenLifetimeNanos;
+    private final LongSupplier nanoClock;
+    private volatile Generation current;
+    private volatile AtomicLongArray previous;
+
+    /**
+     * @param expectedRevocations number of revocations expected during one access token lifetime
+     * @param falsePositiveProbability probability to ask the store about a token which is not revoked
+     * @param tokenLifetimeMillis lifetime of access tokens
+     */
+    @Autowired
+    public RevokedTokenFilter(@Value("${app.access.jwt.revocation.filter.expected.revocations}") int expectedRevocations,
+                              @Value("${app.access.jwt.revocation.filter.false.positive.probability}") double falsePositiveProbability,
+                              @Value("${app.access.jwt.expiration.time.ms}") long tokenLifetimeMillis) {
+        this(expectedRevocations, falsePositiveProbability, tokenLifetimeMillis, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock source of {@link System#nanoTime()} values, replaced in tests
+     */
+    public RevokedTokenFilter(int expectedRevocations, double falsePositiveProbability, long tokenLifetimeMillis,
+                              LongSupplier nanoClock) {
+        final double bits = -expectedRevocations * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2));
+        final int words = (int) Math.max(1, Math.ceil(bits / Long.SIZE));
+        this.bitCount = words * Long.SIZE;
+        this.hashCount = (int) Math.max(1, Math.round((double) bitCount / expectedRevocations * Math.log(2)));
+        this.tokenLifetimeNanos = TimeUnit.MILLISECONDS.toNanos(tokenLifetimeMillis);
+        this.nanoClock = nanoClock;
+        this.current = new Generation(new AtomicLongArray(words), nanoClock.getAsLong());
+        this.previous = new AtomicLongArray(words);
+    }
+
+    public void put(String tokenId) {
+        final long hash = hash(tokenId);
+        final AtomicLongArray bits = current.bits();
+        for (int i = 0; i < hashCount; i++) {
+            final int index = index(hash, i);
+            final long mask = 1L << index;
+            final int word = index >>> 6;
+            long value;
+            while (((value = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, value, value | mask)) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * @return {@literal false} if the token is definitely not revoked, {@literal true} if it may be revoked
+     */
+    public boolean mightContain(String tokenId) {
+        final long hash = hash(tokenId);
+        return mightContain(current.bits(), hash) || mightContain(previous, hash);
+    }
+
+    /**
+     * Start a new generation when the current one is at least one token lifetime old, otherwise do nothing
+     * @return {@literal true} if the generations were rotated
+     */
+    @Scheduled(fixedRateString = "${app.access.jwt.expiration.time.ms}", initialDelayString = "${app.access.jwt.expiration.time.ms}")
+    public synchronized boolean rotate() {
+        final long now = nanoClock.getAsLong();
+        final var generation = current;
+        if (now - generation.createdAt() < tokenLifetimeNanos) {
+            return false;
+        }
+        previous = generation.bits();
+        current = new Generation(new AtomicLongArray(bitCount / Long.SIZE), now);
+        return true;
+    }
+
+    private boolean mightContain(AtomicLongArray bits, long hash) {
+        for (int i = 0; i < hashCount; i++) {
+            final int index = index(hash, i);
+            if ((bits.get(index >>> 6) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Double hashing: the i-th probe is {@code h1 + i * h2}, both halves are taken from one 64-bit hash
+     */
+    private int index(long hash, int i) {
+        final int combined = (int) hash + i * (int) (hash >>> 32);
+        return Math.floorMod(combined, bitCount);
+    }
+
+    /**
+     * FNV-1a over the chars followed by the MurmurHash3 finalizer, computed without copying the string
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private record Generation(AtomicLongArray bits, long createdAt) {
+    }
+}
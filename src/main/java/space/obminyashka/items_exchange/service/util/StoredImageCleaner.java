@@ -0,0 +1,107 @@
+package space.obminyashka.items_exchange.service.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import space.obminyashka.items_exchange.repository.ImageRepository;
+import space.obminyashka.items_exchange.repository.StoredImageDeletionRepository;
+import space.obminyashka.items_exchange.repository.model.StoredImageDeletion;
+import space.obminyashka.items_exchange.service.ImageStorage;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Deletes images from the {@link ImageStorage} once no row refers to them. The storage keeps the same content once for
+ * all the owners, so an image is deleted only when no advertisement image or its variant, title image or avatar refers
+ * to it.
+ * <p>
+ * Images are deleted in two steps. An owner which doesn't need an image anymore records it in the
+ * {@code stored_image_deletion} table, and a sweep deletes it after {@code app.image.storage.cleanup.grace.ms}. Another
+ * upload of the same content refers to the stored image only when its rows are committed, so an image stored again
+ * during the grace period is kept until the grace period passes once more. Times are kept in UTC.
+ */
+@Slf4j
+@Component
+public class StoredImageCleaner {
+
+    private final ImageRepository imageRepository;
+    private final ImageStorage imageStorage;
+    private final StoredImageDeletionRepository deletionRepository;
+    private final long graceMillis;
+    private final int batchSize;
+
+    public StoredImageCleaner(ImageRepository imageRepository,
+                              ImageStorage imageStorage,
+                              StoredImageDeletionRepository deletionRepository,
+                              @Value("${app.image.storage.cleanup.grace.ms}") long graceMillis,
+                              @Value("${app.image.storage.cleanup.batch.size}") int batchSize) {
+        this.imageRepository = imageRepository;
+        this.imageStorage = imageStorage;
+        this.deletionRepository = deletionRepository;
+        this.graceMillis = graceMillis;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Record images which aren't needed by the caller anymore. Within a transaction they are recorded only when the
+     * transaction is committed
+     * @param hashes hashes of the stored images, {@literal null} ones are ignored
+     */
+    public void deleteLater(Collection<String> hashes) {
+        final var now = LocalDateTime.now(ZoneOffset.UTC);
+        hashes.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .forEach(hash -> deletionRepository.save(new StoredImageDeletion(hash, now)));
+    }
+
+    /**
+     * Runs within the transaction deleting the rows, so images of rolled back deletions are kept
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onAdvertisementsRemoved(AdvertisementsRemovedEvent event) {
+        deleteLater(event.imageHashes());
+    }
+
+    /**
+     * Runs within the transaction replacing or deleting the rows, so images of rolled back changes are kept
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onImagesReleased(StoredImagesReleasedEvent event) {
+        deleteLater(event.imageHashes());
+    }
+
+    @Scheduled(fixedDelayString = "${app.image.storage.cleanup.ms}")
+    public void sweep() {
+        final var now = LocalDateTime.now(ZoneOffset.UTC);
+        final var threshold = now.minus(graceMillis, ChronoUnit.MILLIS);
+        final var storedBefore = threshold.toInstant(ZoneOffset.UTC);
+        int deleted = 0;
+        List<String> due;
+        do {
+            due = deletionRepository.findHashesRequestedBefore(threshold, batchSize);
+            for (String hash : due) {
+                if (imageRepository.countStorageReferences(hash) > 0) {
+                    deletionRepository.deleteById(hash);
+                } else if (imageStorage.lastStored(hash).filter(storedBefore::isBefore).isPresent()) {
+                    deletionRepository.save(new StoredImageDeletion(hash, now));
+                } else {
+                    imageStorage.delete(hash);
+                    deletionRepository.deleteById(hash);
+                    deleted++;
+                }
+            }
+        } while (due.size() == batchSize);
+        if (deleted > 0) {
+            log.info("[StoredImageCleaner] {} images no row refers to are deleted", deleted);
+        }
+    }
+}
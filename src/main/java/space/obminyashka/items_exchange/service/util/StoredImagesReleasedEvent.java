@@ -0,0 +1,11 @@
+package space.obminyashka.items_exchange.service.util;
+
+import java.util.Collection;
+
+/**
+ * Published when rows stop referring to stored images, e.g. an avatar is replaced or advertisement images are removed
+ * @param imageHashes hashes of the stored images the rows referred to, the images are deleted unless anything else
+ *                    refers to them
+ */
+public record StoredImagesReleasedEvent(Collection<String> imageHashes) {
+}
@@ -1,17 +1,54 @@
 package space.obminyashka.items_exchange.service.util;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 
+import java.util.Arrays;
+import java.util.Optional;
+
 import static org.springframework.http.MediaType.*;
 
-@AllArgsConstructor
 public enum SupportedMediaTypes {
-    JPEG(IMAGE_JPEG_VALUE),
+    JPEG(IMAGE_JPEG_VALUE, 0xFF, 0xD8, 0xFF),
     JPG("image/jpg"),
-    PNG(IMAGE_PNG_VALUE),
-    GIF(IMAGE_GIF_VALUE);
+    PNG(IMAGE_PNG_VALUE, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A),
+    GIF(IMAGE_GIF_VALUE, 'G', 'I', 'F', '8'),
+    // -1 matches any byte, the file size is written between the RIFF and WEBP marks
+    WEBP("image/webp", 'R', 'I', 'F', 'F', -1, -1, -1, -1, 'W', 'E', 'B', 'P');
+
+    /**
+     * Number of the first content bytes enough to detect any of the types
+     */
+    public static final int HEADER_LENGTH = 12;
 
     @Getter
     public final String mediaType;
+    private final int[] signature;
+
+    SupportedMediaTypes(String mediaType, int... signature) {
+        this.mediaType = mediaType;
+        this.signature = signature;
+    }
+
+    /**
+     * Detect type of image content by the magic bytes of its header, without reading the rest of the content
+     * @param content image bytes
+     * @return detected type or empty {@link Optional} when the content isn't a supported image
+     */
+    public static Optional<SupportedMediaTypes> detect(byte[] content) {
+        return Arrays.stream(values())
+                .filter(type -> type.signature.length > 0 && type.matches(content))
+                .findFirst();
+    }
+
+    private boolean matches(byte[] content) {
+        if (content.length < signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if (signature[i] >= 0 && (content[i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -0,0 +1,169 @@
+package space.obminyashka.items_exchange.service.util;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Short-lived cache of values loaded from the DB. Entries live for the TTL, so a change made by another node is seen
+ * after the TTL at the latest. Every value names its owners (e.g. the username), and all the entries of an owner are
+ * dropped at once without scanning the cache.
+ * <p>
+ * The cache holds at most {@code maxSize} entries. When it is full, the entry expiring first is dropped for a new one.
+ * Hits are lock-free, while loaded values are stored under the lock keeping the owner index consistent. Values are
+ * loaded outside the lock, so a value whose owner is evicted meanwhile is returned but not cached, as it may be stale.
+ * @param <K> type of the key values are looked up by
+ * @param <V> type of the cached values
+ */
+public class TtlCache<K, V> {
+
+    private final Map<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+    private final Map<String, Set<K>> keysByOwner = new HashMap<>();
+    // The TTL is the same for all the entries, so they expire in the order they are cached
+    private final Queue<Entry<K, V>> expiryQueue = new ArrayDeque<>();
+    // Generation of the last eviction of every owner, kept only while some values are being loaded
+    private final Map<String, Long> ownerGenerations = new HashMap<>();
+    private final NavigableSet<Long> loadGenerations = new TreeSet<>();
+    private final Function<V, Collection<String>> ownersOf;
+    private final long ttlNanos;
+    private final int maxSize;
+    private long generation;
+    private long clearGeneration;
+
+    /**
+     * @param ttlMillis time an entry lives for
+     * @param maxSize maximum number of cached entries
+     * @param ownersOf owners of a value, {@literal null} owners are ignored
+     */
+    public TtlCache(long ttlMillis, int maxSize, Function<V, Collection<String>> ownersOf) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.maxSize = maxSize;
+        this.ownersOf = ownersOf;
+    }
+
+    /**
+     * Get a cached value or load it. Missing values are not cached, so a value created later is found at once
+     * @param key key of the value
+     * @param loader loads the value when it isn't cached or is expired
+     * @return the value or empty {@link Optional} when there is no such value
+     */
+    public Optional<V> get(K key, Function<K, Optional<V>> loader) {
+        final long now = System.nanoTime();
+        final var entry = entries.get(key);
+        if (entry != null && entry.expiresAt() - now > 0) {
+            return Optional.of(entry.value());
+        }
+        final long loadGeneration = startLoad();
+        try {
+            final var value = loader.apply(key);
+            value.ifPresentOrElse(
+                    loaded -> put(key, loaded, now, loadGeneration),
+                    () -> evict(key));
+            return value;
+        } finally {
+            finishLoad(loadGeneration);
+        }
+    }
+
+    public synchronized void evict(K key) {
+        final var entry = entries.remove(key);
+        if (entry == null) {
+            return;
+        }
+        entry.owners().forEach(owner -> keysByOwner.computeIfPresent(owner, (ignored, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        }));
+    }
+
+    /**
+     * Drop all the entries of an owner whichever key they are cached by. Values of the owner being loaded at the moment
+     * aren't cached either
+     * @param owner owner of the changed values
+     */
+    public synchronized void evictOwner(String owner) {
+        if (!loadGenerations.isEmpty()) {
+            ownerGenerations.put(owner, ++generation);
+        }
+        final var keys = keysByOwner.get(owner);
+        if (keys != null) {
+            List.copyOf(keys).forEach(this::evict);
+        }
+    }
+
+    public synchronized void clear() {
+        clearGeneration = ++generation;
+        entries.clear();
+        keysByOwner.clear();
+        expiryQueue.clear();
+    }
+
+    private synchronized long startLoad() {
+        loadGenerations.add(++generation);
+        return generation;
+    }
+
+    private synchronized void finishLoad(long loadGeneration) {
+        loadGenerations.remove(loadGeneration);
+        if (loadGenerations.isEmpty()) {
+            ownerGenerations.clear();
+        } else if (ownerGenerations.size() > maxSize) {
+            final long oldestLoad = loadGenerations.first();
+            ownerGenerations.values().removeIf(evictedAt -> evictedAt < oldestLoad);
+        }
+    }
+
+    private synchronized void put(K key, V value, long now, long loadGeneration) {
+        final var owners = ownersOf.apply(value).stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (clearGeneration > loadGeneration
+                || owners.stream().anyMatch(owner -> ownerGenerations.getOrDefault(owner, 0L) > loadGeneration)) {
+            return;
+        }
+        evict(key);
+        while (entries.size() >= maxSize) {
+            if (!evictFirstExpiring()) {
+                return;
+            }
+        }
+        final var entry = new Entry<>(key, value, now + ttlNanos, owners);
+        entries.put(key, entry);
+        expiryQueue.add(entry);
+        owners.forEach(owner -> keysByOwner.computeIfAbsent(owner, ignored -> new HashSet<>()).add(key));
+        if (expiryQueue.size() > 2 * maxSize) {
+            // Evicted entries stay queued until they reach the head, so they are dropped once the queue grows too long
+            expiryQueue.removeIf(queued -> entries.get(queued.key()) != queued);
+        }
+    }
+
+    /**
+     * @return whether an entry is dropped, i.e. the cache wasn't empty
+     */
+    private boolean evictFirstExpiring() {
+        Entry<K, V> first;
+        while ((first = expiryQueue.poll()) != null) {
+            if (entries.get(first.key()) == first) {
+                evict(first.key());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Entry<K, V>(K key, V value, long expiresAt, List<String> owners) {
+    }
+}
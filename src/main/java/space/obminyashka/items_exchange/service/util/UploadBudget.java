@@ -0,0 +1,70 @@
+package space.obminyashka.items_exchange.service.util;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import space.obminyashka.items_exchange.rest.exception.TooManyRequestsException;
+
+import java.util.concurrent.Semaphore;
+
+import static space.obminyashka.items_exchange.rest.response.message.MessageSourceProxy.getMessageSource;
+import static space.obminyashka.items_exchange.rest.response.message.ResponseMessagesHandler.ExceptionMessage.UPLOAD_BUDGET_EXHAUSTED;
+
+/**
+ * Limits the total size of uploads being handled at the same time. An upload which does not fit into the rest of the
+ * budget is rejected at once instead of waiting, so clients retry later and the server never queues more bytes than
+ * the budget. Multipart requests are reserved by {@link space.obminyashka.items_exchange.config.UploadBudgetFilter}
+ * before their body is read.
+ * <p>
+ * The budget is counted in kilobytes, so it may be larger than {@link Integer#MAX_VALUE} bytes.
+ */
+@Component
+public class UploadBudget {
+
+    private static final int KILOBYTE = 1024;
+
+    private final int totalKilobytes;
+    private final Semaphore kilobytes;
+
+    public UploadBudget(@Value("${app.image.upload.budget.bytes}") long budgetBytes, MeterRegistry meterRegistry) {
+        this.totalKilobytes = (int) Math.min(Integer.MAX_VALUE, Math.max(1, budgetBytes / KILOBYTE));
+        this.kilobytes = new Semaphore(totalKilobytes);
+        Gauge.builder("image.upload.budget.available", kilobytes, available -> (double) available.availablePermits() * KILOBYTE)
+                .description("Bytes which may be uploaded right now")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reserve a part of the budget for an upload. An upload larger than the whole budget reserves the whole budget,
+     * so it is stored only when nothing else is being uploaded
+     * @param bytes size of the upload
+     * @return reservation to be closed when the upload is stored
+     * @throws TooManyRequestsException when the rest of the budget is too small for the upload
+     */
+    public Reservation reserve(long bytes) {
+        final int required = (int) Math.min(totalKilobytes, (bytes + KILOBYTE - 1) / KILOBYTE);
+        if (!kilobytes.tryAcquire(required)) {
+            throw new TooManyRequestsException(getMessageSource(UPLOAD_BUDGET_EXHAUSTED));
+        }
+        return new Reservation(required);
+    }
+
+    public final class Reservation implements AutoCloseable {
+        private final int reserved;
+        private boolean released;
+
+        private Reservation(int reserved) {
+            this.reserved = reserved;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                kilobytes.release(reserved);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package space.obminyashka.items_exchange.service.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import space.obminyashka.items_exchange.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Permanently deletes users in batches of {@code app.user.erasure.batch.size}. Every batch is deleted by
+ * {@link UserRepository#eraseAllByIds} in its own transaction, so an interrupted run loses at most one batch and the
+ * next run continues with the users which are left.
+ * <p>
+ * Progress is exposed by the {@code user.erasure.pending} gauge, the {@code user.erasure.erased} counter and the
+ * {@code user.erasure.batch} timer.
+ */
+@Slf4j
+@Component
+public class UserErasureJob {
+
+    private final UserRepository userRepository;
+    private final int batchSize;
+    private final AtomicLong pending = new AtomicLong();
+    private final Counter erased;
+    private final Timer batchTime;
+
+    public UserErasureJob(UserRepository userRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.user.erasure.batch.size}") int batchSize) {
+        this.userRepository = userRepository;
+        this.batchSize = batchSize;
+        meterRegistry.gauge("user.erasure.pending", pending);
+        this.erased = Counter.builder("user.erasure.erased")
+                .description("Users permanently deleted")
+                .register(meterRegistry);
+        this.batchTime = Timer.builder("user.erasure.batch")
+                .description("Time to delete a batch of users with all their rows")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Delete all users with the role updated not later than the date
+     * @param roleName name of the role of users to delete
+     * @param updatedBefore the latest update time of users to delete
+     * @return amount of deleted users
+     */
+    public long erase(String roleName, LocalDateTime updatedBefore) {
+        pending.set(userRepository.countByUpdatedLessThanEqualAndRoleName(updatedBefore, roleName));
+        if (pending.get() == 0) {
+            return 0;
+        }
+        log.info("[UserErasureJob] {} users are to be deleted", pending.get());
+
+        final long started = System.nanoTime();
+        long total = 0;
+        int deleted;
+        do {
+            final var ids = userRepository.findIdsByUpdatedLessThanEqualAndRoleName(updatedBefore, roleName,
+                    PageRequest.of(0, batchSize));
+            deleted = batchTime.record(() -> userRepository.eraseAllByIds(ids));
+            total += deleted;
+            erased.increment(deleted);
+            pending.set(Math.max(0, pending.get() - deleted));
+            log.debug("[UserErasureJob] {} users are deleted, {} are left", total, pending.get());
+        } while (deleted == batchSize);
+
+        final long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        log.info("[UserErasureJob] {} users are deleted in {} ms, {} users/s", total, elapsedMillis,
+                total * 1000 / elapsedMillis);
+        return total;
+    }
+}
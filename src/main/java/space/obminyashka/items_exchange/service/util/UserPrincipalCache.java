@@ -0,0 +1,23 @@
+package space.obminyashka.items_exchange.service.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import space.obminyashka.items_exchange.repository.projection.UserPrincipal;
+
+import java.util.Arrays;
+
+/**
+ * Short-lived cache of {@link UserPrincipal}s keyed by the username or email a user is authenticated with. Entries live
+ * for {@code app.user.principal.cache.ttl.ms}, so a change made by another node is seen after the TTL at the latest.
+ * <p>
+ * The cache holds at most {@code app.user.principal.cache.max.size} entries. Principals are owned by both the username
+ * and the email, so {@link #evictOwner(String)} drops a user whichever name it is cached by.
+ */
+@Component
+public class UserPrincipalCache extends TtlCache<String, UserPrincipal> {
+
+    public UserPrincipalCache(@Value("${app.user.principal.cache.ttl.ms}") long ttlMillis,
+                              @Value("${app.user.principal.cache.max.size}") int maxSize) {
+        super(ttlMillis, maxSize, principal -> Arrays.asList(principal.username(), principal.email()));
+    }
+}
@@ -0,0 +1,98 @@
+package space.obminyashka.items_exchange.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import space.obminyashka.items_exchange.service.util.ImageScaler;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static java.awt.Image.SCALE_REPLICATE;
+import static java.awt.Image.SCALE_SMOOTH;
+
+/**
+ * Compares {@link ImageScaler} with the former {@code getScaledInstance(SCALE_SMOOTH)} scaling on 12 MP (4000x3000)
+ * photos, as they come from phone cameras, scaled to the thumbnail and the medium variant edges.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=space.obminyashka.items_exchange.benchmark.ImageScalingBenchmark} or from an IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ImageScalingBenchmark {
+
+    private static final int PHOTO_WIDTH = 4000;
+    private static final int PHOTO_HEIGHT = 3000;
+
+    @Param({"300", "1024"})
+    private int edge;
+
+    private BufferedImage photo;
+    private int width;
+    private int height;
+
+    @Setup
+    public void setUp() {
+        photo = createPhoto();
+        // The smaller side is scaled to the edge, as ImageServiceImpl does
+        double ratio = Math.max(1.0 * edge / PHOTO_WIDTH, 1.0 * edge / PHOTO_HEIGHT);
+        width = (int) (PHOTO_WIDTH * ratio);
+        height = (int) (PHOTO_HEIGHT * ratio);
+    }
+
+    @Benchmark
+    public BufferedImage progressive() {
+        return ImageScaler.scale(photo, width, height);
+    }
+
+    @Benchmark
+    public BufferedImage scaledInstance() {
+        java.awt.Image scaledInstance = photo.getScaledInstance(width, height, SCALE_SMOOTH);
+        BufferedImage resizedImage = new BufferedImage(width, height, SCALE_REPLICATE);
+        resizedImage.getGraphics().drawImage(scaledInstance, 0, 0, width, height, Color.WHITE, null);
+        return resizedImage;
+    }
+
+    /**
+     * Decoded JPEG photos are 3 byte BGR images. Smooth gradients with noise give the interpolation real work, unlike
+     * a solid fill
+     */
+    private static BufferedImage createPhoto() {
+        BufferedImage image = new BufferedImage(PHOTO_WIDTH, PHOTO_HEIGHT, BufferedImage.TYPE_3BYTE_BGR);
+        Random random = new Random(42);
+        for (int y = 0; y < PHOTO_HEIGHT; y++) {
+            for (int x = 0; x < PHOTO_WIDTH; x++) {
+                int red = (x * 255 / PHOTO_WIDTH + random.nextInt(16)) & 0xFF;
+                int green = (y * 255 / PHOTO_HEIGHT + random.nextInt(16)) & 0xFF;
+                int blue = ((x + y) * 255 / (PHOTO_WIDTH + PHOTO_HEIGHT) + random.nextInt(16)) & 0xFF;
+                image.setRGB(x, y, red << 16 | green << 8 | blue);
+            }
+        }
+        return image;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ImageScalingBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,109 @@
+package space.obminyashka.items_exchange.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import space.obminyashka.items_exchange.ObminyashkaApplication;
+import space.obminyashka.items_exchange.repository.RoleRepository;
+import space.obminyashka.items_exchange.repository.UserRepository;
+import space.obminyashka.items_exchange.repository.model.User;
+import space.obminyashka.items_exchange.rest.api.ApiKey;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency distribution of the whole login request, from the HTTP call to the issued tokens, on the test
+ * configuration with the H2 database. The percentiles show the time of the password check together with the DB round
+ * trips, which is what a user waits for.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=space.obminyashka.items_exchange.benchmark.LoginBenchmark} or from an IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+@Fork(1)
+public class LoginBenchmark {
+
+    private static final String USERNAME = "benchmark";
+    private static final String PASSWORD = "benchmark-password";
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest login;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ObminyashkaApplication.class)
+                .run("--server.port=0", "--spring.jpa.show-sql=false");
+        createUser();
+
+        final var port = context.getEnvironment().getRequiredProperty("local.server.port");
+        client = HttpClient.newHttpClient();
+        login = HttpRequest.newBuilder(URI.create("http://localhost:" + port + ApiKey.AUTH_LOGIN))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"usernameOrEmail\":\"" + USERNAME + "\",\"password\":\"" + PASSWORD + "\"}"))
+                .build();
+    }
+
+    private void createUser() {
+        final var userRepository = context.getBean(UserRepository.class);
+        if (userRepository.existsByUsernameOrEmail(USERNAME, USERNAME)) {
+            return;
+        }
+        userRepository.save(User.builder()
+                .username(USERNAME)
+                .email(USERNAME + "@mail.ua")
+                .password(context.getBean(PasswordEncoder.class).encode(PASSWORD))
+                .role(context.getBean(RoleRepository.class).findByName("ROLE_USER").orElseThrow())
+                .lastOnlineTime(LocalDateTime.now())
+                .build());
+    }
+
+    @Benchmark
+    public int login() throws IOException, InterruptedException {
+        final var response = client.send(login, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login failed with status " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LoginBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
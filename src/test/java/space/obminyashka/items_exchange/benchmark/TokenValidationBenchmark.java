@@ -0,0 +1,100 @@
+package space.obminyashka.items_exchange.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+import space.obminyashka.items_exchange.service.JwtTokenService;
+import space.obminyashka.items_exchange.service.impl.InMemoryTokenRevocationStore;
+import space.obminyashka.items_exchange.service.util.RevokedTokenFilter;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link JwtTokenService#validate} throughput with 100k revoked tokens, for valid tokens answered by the
+ * {@link RevokedTokenFilter} alone and for revoked tokens which also hit the revocation store. The {@code storeOnly}
+ * benchmark is the former path asking the store about every token.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=space.obminyashka.items_exchange.benchmark.TokenValidationBenchmark} or from an IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class TokenValidationBenchmark {
+
+    private static final int REVOKED_TOKENS = 100_000;
+
+    private InMemoryTokenRevocationStore tokenRevocationStore;
+    private JwtTokenService jwtTokenService;
+    private Jwt validToken;
+    private Jwt revokedToken;
+
+    @Setup
+    public void setUp() {
+        final var expiresAt = Instant.now().plusSeconds(3600);
+        tokenRevocationStore = new InMemoryTokenRevocationStore(60_000, new SimpleMeterRegistry());
+        final var revokedTokenFilter = new RevokedTokenFilter(REVOKED_TOKENS, 0.01, 3_600_000);
+        jwtTokenService = new JwtTokenService(tokenRevocationStore, revokedTokenFilter, null, null);
+
+        String lastRevokedId = null;
+        for (int i = 0; i < REVOKED_TOKENS; i++) {
+            lastRevokedId = UUID.randomUUID().toString();
+            tokenRevocationStore.revoke(lastRevokedId, expiresAt);
+            revokedTokenFilter.put(lastRevokedId);
+        }
+        validToken = token(UUID.randomUUID().toString(), expiresAt);
+        revokedToken = token(lastRevokedId, expiresAt);
+    }
+
+    @Benchmark
+    public OAuth2TokenValidatorResult validToken() {
+        return jwtTokenService.validate(validToken);
+    }
+
+    @Benchmark
+    public OAuth2TokenValidatorResult revokedToken() {
+        return jwtTokenService.validate(revokedToken);
+    }
+
+    @Benchmark
+    public boolean storeOnly() {
+        return Instant.now().isBefore(validToken.getExpiresAt()) && !tokenRevocationStore.isRevoked(validToken.getId());
+    }
+
+    private static Jwt token(String id, Instant expiresAt) {
+        return Jwt.withTokenValue("token-" + id)
+                .header("alg", "HS256")
+                .jti(id)
+                .subject("user")
+                .issuedAt(expiresAt.minusSeconds(1800))
+                .expiresAt(expiresAt)
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TokenValidationBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
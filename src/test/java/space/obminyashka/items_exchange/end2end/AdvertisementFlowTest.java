@@ -3,6 +3,7 @@ package space.obminyashka.items_exchange.end2end;
 import com.github.database.rider.core.api.dataset.DataSet;
 import com.github.database.rider.core.api.dataset.ExpectedDataSet;
 import com.github.database.rider.junit5.api.DBRider;
+import com.jayway.jsonpath.JsonPath;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -25,17 +26,21 @@ import space.obminyashka.items_exchange.repository.enums.AgeRange;
 import space.obminyashka.items_exchange.repository.enums.Gender;
 import space.obminyashka.items_exchange.repository.enums.Season;
 import space.obminyashka.items_exchange.repository.enums.Size;
+import space.obminyashka.items_exchange.repository.enums.Status;
+import space.obminyashka.items_exchange.repository.model.Advertisement;
 import space.obminyashka.items_exchange.rest.basic.BasicControllerTest;
 import space.obminyashka.items_exchange.rest.dto.AdvertisementModificationDto;
 import space.obminyashka.items_exchange.rest.exception.IllegalOperationException;
 import space.obminyashka.items_exchange.rest.exception.bad_request.BadRequestException;
 import space.obminyashka.items_exchange.rest.exception.bad_request.IllegalIdentifierException;
 import space.obminyashka.items_exchange.rest.request.AdvertisementFilterRequest;
+import space.obminyashka.items_exchange.rest.response.AdvertisementScrollView;
 import space.obminyashka.items_exchange.util.data_producer.AdvertisementModificationDtoProducer;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
@@ -53,6 +58,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static space.obminyashka.items_exchange.rest.api.ApiKey.ADV;
 import static space.obminyashka.items_exchange.rest.api.ApiKey.ADV_DEFAULT_IMAGE;
 import static space.obminyashka.items_exchange.rest.api.ApiKey.ADV_FILTER;
+import static space.obminyashka.items_exchange.rest.api.ApiKey.ADV_FILTER_FACETS;
+import static space.obminyashka.items_exchange.rest.api.ApiKey.ADV_FILTER_SCROLL;
 import static space.obminyashka.items_exchange.rest.api.ApiKey.ADV_ID;
 import static space.obminyashka.items_exchange.rest.api.ApiKey.ADV_TOTAL;
 import static space.obminyashka.items_exchange.rest.response.message.MessageSourceProxy.getMessageSource;
@@ -62,6 +69,7 @@ import static space.obminyashka.items_exchange.rest.response.message.ResponseMes
 import static space.obminyashka.items_exchange.rest.response.message.ResponseMessagesHandler.ValidationMessage.BLANK_TOPIC;
 import static space.obminyashka.items_exchange.rest.response.message.ResponseMessagesHandler.ValidationMessage.BLANK_WISHES_TO_EXCHANGE;
 import static space.obminyashka.items_exchange.rest.response.message.ResponseMessagesHandler.ValidationMessage.INVALID_CATEGORY_SUBCATEGORY_COMBINATION;
+import static space.obminyashka.items_exchange.rest.response.message.ResponseMessagesHandler.ValidationMessage.INVALID_CURSOR;
 import static space.obminyashka.items_exchange.rest.response.message.ResponseMessagesHandler.ValidationMessage.INVALID_LOCATION_ID;
 import static space.obminyashka.items_exchange.rest.response.message.ResponseMessagesHandler.ValidationMessage.INVALID_SIZE_COMBINATION;
 import static space.obminyashka.items_exchange.rest.response.message.ResponseMessagesHandler.ValidationMessage.INVALID_SUBCATEGORY_ID;
@@ -166,6 +174,55 @@ class AdvertisementFlowTest extends BasicControllerTest {
                 .andExpect(jsonPath("$.content.length()").value(advertisementRepository.count()));
     }
 
+    @Test
+    @WithMockUser(username = "admin")
+    @DataSet("database_init.yml")
+    void scrollAdvertisements_shouldReturnAllAdvertisementsSliceBySlice() throws Exception {
+        final var advertisementFilterRequest = new AdvertisementFilterRequest().setSize(2);
+        final var receivedIds = new HashSet<String>();
+        String cursor;
+        do {
+            MvcResult mvcResult = sendDtoAndGetMvcResult(post(ADV_FILTER_SCROLL), advertisementFilterRequest, status().isOk());
+            final var response = jsonToObject(mvcResult.getResponse().getContentAsString(), AdvertisementScrollView.class);
+            assertThat(response.content()).hasSizeLessThanOrEqualTo(2);
+            response.content().forEach(adv -> assertThat(receivedIds.add(adv.getAdvertisementId().toString())).isTrue());
+            cursor = response.nextCursor();
+            advertisementFilterRequest.setCursor(cursor);
+        } while (cursor != null);
+
+        assertEquals(advertisementRepository.count(), receivedIds.size());
+    }
+
+    @Test
+    @WithMockUser(username = "admin")
+    @DataSet("database_init.yml")
+    void scrollAdvertisements_whenCursorIsInvalid_shouldReturnBadRequest() throws Exception {
+        final var advertisementFilterRequest = new AdvertisementFilterRequest().setCursor("not-a-cursor");
+
+        MvcResult mvcResult = sendDtoAndGetMvcResult(post(ADV_FILTER_SCROLL), advertisementFilterRequest, status().isBadRequest());
+        assertThat(mvcResult.getResolvedException())
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining(getMessageSource(INVALID_CURSOR));
+    }
+
+    @Test
+    @WithMockUser(username = "admin")
+    @DataSet("database_init.yml")
+    void countAdvertisementFacets_shouldReturnCountsWithinFilteredAdvertisements() throws Exception {
+        final var advertisementFilterRequest = new AdvertisementFilterRequest()
+                .setSeason(Set.of(Season.SUMMER));
+
+        sendDtoAndGetResultAction(post(ADV_FILTER_FACETS), advertisementFilterRequest, status().isOk())
+                .andExpect(jsonPath("$.total").value(4))
+                .andExpect(jsonPath("$.gender.FEMALE").value(3))
+                .andExpect(jsonPath("$.gender.MALE").value(1))
+                .andExpect(jsonPath("$.season.SUMMER").value(4))
+                .andExpect(jsonPath("$.season.WINTER").value(1))
+                .andExpect(jsonPath("$.clothingSizes['63 - 68']").value(2))
+                .andExpect(jsonPath("$.clothingSizes['57 - 62']").value(2))
+                .andExpect(jsonPath("$.subcategories['1']").value(4));
+    }
+
     @Test
     @DisplayName("Should return total size of existed advertisements")
     @DataSet("database_init.yml")
@@ -260,9 +317,20 @@ class AdvertisementFlowTest extends BasicControllerTest {
         final var dtoJson = new MockMultipartFile("dto", "json", MediaType.APPLICATION_JSON_VALUE, asJsonString(nonExistDto).getBytes());
         final var contentJson = sendUriAndGetResultAction(multipart(ADV).file(jpeg).file(dtoJson), status().isCreated())
                 .andExpect(jsonPath("$.id").exists())
+                .andExpect(jsonPath("$.status").value(Status.PROCESSING.name()))
                 .andReturn().getResponse().getContentAsString();
         assertEquals(nonExistDto, jsonToObject(contentJson, AdvertisementModificationDto.class));
         assertEquals(6, advertisementRepository.count());
+        awaitImagesProcessing(UUID.fromString(JsonPath.read(contentJson, "$.id")));
+    }
+
+    private void awaitImagesProcessing(UUID advertisementId) throws InterruptedException {
+        for (int attempt = 0; attempt < 50 && advertisementRepository.findById(advertisementId)
+                .map(Advertisement::getStatus)
+                .filter(Status.PROCESSING::equals)
+                .isPresent(); attempt++) {
+            Thread.sleep(100);
+        }
     }
 
     @Test
@@ -3,8 +3,6 @@ package space.obminyashka.items_exchange.end2end;
 import com.github.database.rider.core.api.dataset.DataSet;
 import com.github.database.rider.core.api.dataset.ExpectedDataSet;
 import com.github.database.rider.junit5.api.DBRider;
-import com.sendgrid.Response;
-import com.sendgrid.SendGrid;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -15,7 +13,6 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.Commit;
 import org.springframework.test.annotation.DirtiesContext;
@@ -28,8 +25,11 @@ import space.obminyashka.items_exchange.rest.request.UserLoginRequest;
 import space.obminyashka.items_exchange.rest.request.UserRegistrationRequest;
 import space.obminyashka.items_exchange.rest.exception.EmailSendingException;
 import space.obminyashka.items_exchange.rest.response.message.ResponseMessagesHandler;
+import space.obminyashka.items_exchange.repository.OutboxMailRepository;
+import space.obminyashka.items_exchange.service.MailSender;
+import space.obminyashka.items_exchange.service.util.EmailType;
+import space.obminyashka.items_exchange.service.util.MailOutboxDispatcher;
 
-import java.io.IOException;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -61,14 +61,19 @@ class AuthorizationFlowTest extends BasicControllerTest {
     private static final String BEARER_PREFIX = "Bearer ";
     private static final String DOMAIN_URL = "https://obminyashka.space";
     @MockBean
-    private SendGrid sendGrid;
+    private MailSender mailSender;
     private final UserRegistrationRequest userRegistrationRequest = new UserRegistrationRequest(VALID_USERNAME, VALID_EMAIL, VALID_PASSWORD, VALID_PASSWORD);
     private final EmailConfirmationCodeRepository emailConfirmationCodeRepository;
+    private final OutboxMailRepository outboxMailRepository;
+    private final MailOutboxDispatcher mailOutboxDispatcher;
 
     @Autowired
-    public AuthorizationFlowTest(MockMvc mockMvc, EmailConfirmationCodeRepository emailConfirmationCodeRepository) {
+    public AuthorizationFlowTest(MockMvc mockMvc, EmailConfirmationCodeRepository emailConfirmationCodeRepository,
+                                 OutboxMailRepository outboxMailRepository, MailOutboxDispatcher mailOutboxDispatcher) {
         super(mockMvc);
         this.emailConfirmationCodeRepository = emailConfirmationCodeRepository;
+        this.outboxMailRepository = outboxMailRepository;
+        this.mailOutboxDispatcher = mailOutboxDispatcher;
     }
 
     @Test
@@ -78,7 +83,6 @@ class AuthorizationFlowTest extends BasicControllerTest {
             orderBy = {"created", "name"},
             ignoreCols = {"id", "password", "created", "updated", "last_online_time"})
     void register_shouldCreateValidNewUserAndReturnCreated() throws Exception {
-        when(sendGrid.api(any())).thenReturn(new Response(200, null, null));
         long codesCountBeforeRegister = emailConfirmationCodeRepository.count();
         final var result = sendDtoAndGetMvcResult(post(AUTH_REGISTER).header(HttpHeaders.HOST, DOMAIN_URL), userRegistrationRequest, status().isCreated());
         long codesCountAfterRegister = emailConfirmationCodeRepository.count();
@@ -89,26 +93,31 @@ class AuthorizationFlowTest extends BasicControllerTest {
     }
 
     @Test
-    void register_shouldCreateNewUserAndSendMail() throws Exception {
-        when(sendGrid.api(any())).thenReturn(new Response(200, null, null));
-
+    void register_shouldCreateNewUserAndSendMailInBackground() throws Exception {
         sendDtoAndGetMvcResult(post(AUTH_REGISTER).header(HttpHeaders.HOST, DOMAIN_URL), userRegistrationRequest, status().isCreated());
 
-        verify(sendGrid).api(any());
-        Response sendGridApi = sendGrid.api(any());
-        assertEquals(HttpStatus.OK.value(), sendGridApi.getStatusCode());
+        verifyNoInteractions(mailSender);
+        assertEquals(1, mailOutboxDispatcher.dispatch());
+        verify(mailSender).sendAll(argThat(mails -> mails.size() == 1 &&
+                mails.get(0).emailTo().equals(VALID_EMAIL) &&
+                mails.get(0).emailType() == EmailType.REGISTRATION &&
+                emailConfirmationCodeRepository.existsById(mails.get(0).codeId())));
+        assertEquals(0, outboxMailRepository.count());
     }
 
     @Test
-    void register_whenSendGridFailed_shouldReturnServiceUnavailable() throws Exception {
-        doThrow(new IOException("Expected exception!")).when(sendGrid).api(any());
-        final var result = sendDtoAndGetMvcResult(post(AUTH_REGISTER).header(HttpHeaders.HOST, DOMAIN_URL), userRegistrationRequest, status().isServiceUnavailable());
-
-        verify(sendGrid).api(any());
+    void register_whenMailSendingFailed_shouldCreateUserAndRetryLater() throws Exception {
+        doThrow(new EmailSendingException("Expected exception!")).when(mailSender).sendAll(any());
+        sendDtoAndGetMvcResult(post(AUTH_REGISTER).header(HttpHeaders.HOST, DOMAIN_URL), userRegistrationRequest, status().isCreated());
 
-        assertThat(result.getResolvedException())
-                .isInstanceOf(EmailSendingException.class)
-                .hasMessageContaining(getMessageSource(ResponseMessagesHandler.ExceptionMessage.EMAIL_SENDING));
+        assertEquals(0, mailOutboxDispatcher.dispatch());
+        assertThat(outboxMailRepository.findAll())
+                .singleElement()
+                .satisfies(mail -> {
+                    assertEquals(VALID_EMAIL, mail.getEmailTo());
+                    assertThat(mail.getAttempts()).isPositive();
+                    assertThat(mail.getLastError()).contains("Expected exception!");
+                });
     }
 
     @ParameterizedTest
@@ -177,7 +186,7 @@ class AuthorizationFlowTest extends BasicControllerTest {
 
     @Test
     @DataSet(value = "auth/login.yml")
-    void logout_Success_ShouldBeInvalidatedInInvalidatedTokensHolder_And_DeletedRefreshToken() throws Exception {
+    void logout_Success_ShouldBeRevokedInTokenRevocationStore_And_DeletedRefreshToken() throws Exception {
         final var mvcResult = sendUriAndGetMvcResult(post(AUTH_REFRESH_TOKEN)
                 .header("refresh", BEARER_PREFIX + "refreshToken"), status().isUnauthorized());
         assertTrue(mvcResult.getResponse().getContentAsString().contains(getMessageSource(ResponseMessagesHandler.ValidationMessage.INVALID_REFRESH_TOKEN).substring(0, 24)));
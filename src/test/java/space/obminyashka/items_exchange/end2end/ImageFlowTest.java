@@ -22,8 +22,10 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultMatcher;
+import space.obminyashka.items_exchange.repository.AdvertisementRepository;
 import space.obminyashka.items_exchange.rest.basic.BasicControllerTest;
 import space.obminyashka.items_exchange.rest.exception.IllegalOperationException;
+import space.obminyashka.items_exchange.service.ImageStorage;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -32,11 +34,11 @@ import java.util.UUID;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static space.obminyashka.items_exchange.rest.api.ApiKey.*;
 import static space.obminyashka.items_exchange.rest.response.message.MessageSourceProxy.getMessageSource;
 import static space.obminyashka.items_exchange.rest.response.message.MessageSourceProxy.getParametrizedMessageSource;
@@ -50,10 +52,17 @@ import static space.obminyashka.items_exchange.rest.response.message.ResponseMes
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 class ImageFlowTest extends BasicControllerTest {
     private static final String EXISTED_ADV_ID = "65e3ee49-5927-40be-aafd-0461ce45f295";
+    private static final String JPEG_IMAGE_ID = "ebad2511-97c6-4221-a39f-a1b24a7d3251";
     private static final String TEST_JPEG = "test image jpeg";
     private static final String TEST_PNG = "test image png";
+    private static final String TEST_WEBP = "test image webp";
     private final MockMultipartFile txt = new MockMultipartFile("image", "text.txt", MediaType.TEXT_PLAIN_VALUE, "plain text".getBytes());
 
+    @Autowired
+    private ImageStorage imageStorage;
+    @Autowired
+    private AdvertisementRepository advertisementRepository;
+
     @Autowired
     public ImageFlowTest(MockMvc mockMvc) {
         super(mockMvc);
@@ -81,10 +90,100 @@ class ImageFlowTest extends BasicControllerTest {
     void getImageLinksByAdvertisementId_shouldReturnAllImageLinks() throws Exception {
         sendUriAndGetResultAction(get(IMAGE_BY_ADV_ID, EXISTED_ADV_ID), status().isOk())
                 .andExpect(jsonPath("$", hasSize(2)))
-                .andExpect(jsonPath("$[0].id").value("ebad2511-97c6-4221-a39f-a1b24a7d3251"))
-                .andExpect(jsonPath("$[0].resource").value(Base64.encodeString(TEST_JPEG)))
+                .andExpect(jsonPath("$[0].id").value(JPEG_IMAGE_ID))
+                .andExpect(jsonPath("$[0].url").value(getLegacyContentUrl(JPEG_IMAGE_ID)))
+                .andExpect(jsonPath("$[0].thumbnailUrl").value(getLegacyContentUrl(JPEG_IMAGE_ID)))
                 .andExpect(jsonPath("$[1].id").value("e6a85b1b-6c6f-4bbb-b336-f68e43bb69f9"))
-                .andExpect(jsonPath("$[1].resource").value(Base64.encodeString(TEST_PNG)));
+                .andExpect(jsonPath("$[1].url").value(getLegacyContentUrl("e6a85b1b-6c6f-4bbb-b336-f68e43bb69f9")));
+    }
+
+    @Test
+    void getLegacyImageContent_whenImageIsNotMovedToStorage_shouldStreamItFromImageRow() throws Exception {
+        mockMvc.perform(get(IMAGE_LEGACY_CONTENT, JPEG_IMAGE_ID))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + JPEG_IMAGE_ID + "\""))
+                .andExpect(content().bytes(TEST_JPEG.getBytes()));
+    }
+
+    @Test
+    void getImageContent_shouldStreamImageWithCacheHeaders() throws Exception {
+        final var hash = imageStorage.store(TEST_PNG.getBytes());
+
+        mockMvc.perform(get(IMAGE_CONTENT, hash))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + hash + "\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("immutable")))
+                .andExpect(content().bytes(TEST_PNG.getBytes()));
+    }
+
+    @Test
+    void getImageContent_whenAlternativeAccepted_shouldStreamAlternative() throws Exception {
+        final var hash = imageStorage.store(TEST_PNG.getBytes());
+        imageStorage.storeAlternative(hash, "webp", TEST_WEBP.getBytes());
+
+        mockMvc.perform(get(IMAGE_CONTENT, hash).header(HttpHeaders.ACCEPT, "image/avif,image/webp,*/*;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + hash + ".webp\""))
+                .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)))
+                .andExpect(content().contentType("image/webp"))
+                .andExpect(content().bytes(TEST_WEBP.getBytes()));
+    }
+
+    @Test
+    void getImageContent_whenOnlyWildcardAccepted_shouldStreamOriginal() throws Exception {
+        final var hash = imageStorage.store(TEST_PNG.getBytes());
+        imageStorage.storeAlternative(hash, "webp", TEST_WEBP.getBytes());
+
+        mockMvc.perform(get(IMAGE_CONTENT, hash).header(HttpHeaders.ACCEPT, "image/*"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + hash + "\""))
+                .andExpect(content().bytes(TEST_PNG.getBytes()));
+    }
+
+    @Test
+    void getImageContent_whenRangeRequested_shouldReturnPartialContent() throws Exception {
+        final var hash = imageStorage.store(TEST_PNG.getBytes());
+
+        mockMvc.perform(get(IMAGE_CONTENT, hash).header(HttpHeaders.RANGE, "bytes=0-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-3/" + TEST_PNG.length()))
+                .andExpect(content().bytes("test".getBytes()));
+    }
+
+    @Test
+    void getImageContent_whenETagMatches_shouldReturnNotModified() throws Exception {
+        final var hash = imageStorage.store(TEST_PNG.getBytes());
+
+        mockMvc.perform(get(IMAGE_CONTENT, hash).header(HttpHeaders.IF_NONE_MATCH, "\"" + hash + "\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getImageContent_whenImageNotExists_shouldReturnNotFound() throws Exception {
+        mockMvc.perform(get(IMAGE_CONTENT, "0".repeat(64)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getLegacyDefaultPhoto_whenPhotoIsNotMovedToStorage_shouldStreamItFromAdvertisement() throws Exception {
+        final var advertisement = advertisementRepository.findById(UUID.fromString(EXISTED_ADV_ID)).orElseThrow();
+        advertisement.setDefaultPhoto(TEST_PNG.getBytes());
+        advertisementRepository.save(advertisement);
+
+        mockMvc.perform(get(IMAGE_LEGACY_DEFAULT_PHOTO, EXISTED_ADV_ID))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("no-cache")))
+                .andExpect(content().bytes(TEST_PNG.getBytes()));
+    }
+
+    @Test
+    void getLegacyDefaultPhoto_whenAdvertisementHasNoDefaultPhoto_shouldReturnNotFound() throws Exception {
+        mockMvc.perform(get(IMAGE_LEGACY_DEFAULT_PHOTO, EXISTED_ADV_ID))
+                .andExpect(status().isNotFound());
+    }
+
+    private static String getLegacyContentUrl(String imageId) {
+        return IMAGE_LEGACY_CONTENT.replace("{image_id}", imageId);
     }
 
     @ParameterizedTest
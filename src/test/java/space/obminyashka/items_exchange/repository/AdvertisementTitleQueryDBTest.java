@@ -0,0 +1,75 @@
+package space.obminyashka.items_exchange.repository;
+
+import com.github.database.rider.core.api.dataset.DataSet;
+import com.github.database.rider.junit5.api.DBRider;
+import com.querydsl.core.types.dsl.Expressions;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import space.obminyashka.items_exchange.repository.projection.AdvertisementTitleRow;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+@SpringBootTest
+@DBRider
+class AdvertisementTitleQueryDBTest {
+    private final AdvertisementRepository advertisementRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DataSet("database_init.yml")
+    void findAllTitles_whenPageIsNotFull_shouldUseSingleStatement() {
+        final var titles = advertisementRepository.findAllTitles(Expressions.TRUE.isTrue(), PageRequest.of(0, 12));
+
+        assertAll(
+                () -> assertEquals(5, titles.getTotalElements()),
+                () -> assertTrue(titles.getContent().stream().allMatch(title -> title.getLocation() != null)),
+                () -> assertTrue(titles.getContent().stream().noneMatch(AdvertisementTitleRow::isLegacyDefaultPhoto)),
+                () -> assertEquals(1, statistics.getPrepareStatementCount())
+        );
+    }
+
+    @Test
+    @DataSet("database_init.yml")
+    void findAllTitles_whenMorePagesExist_shouldAddOnlyCountStatement() {
+        final var titles = advertisementRepository.findAllTitles(Expressions.TRUE.isTrue(), PageRequest.of(0, 2));
+
+        assertAll(
+                () -> assertEquals(2, titles.getContent().size()),
+                () -> assertEquals(5, titles.getTotalElements()),
+                () -> assertEquals(2, statistics.getPrepareStatementCount())
+        );
+    }
+
+    @Test
+    @DataSet("database_init.yml")
+    void findAllTitlesByIds_shouldUseSingleStatement() {
+        final var ids = List.of(UUID.fromString("65e3ee49-5927-40be-aafd-0461ce45f295"),
+                UUID.fromString("4bd38c87-0f00-4375-bd8f-cd853f0eb9bd"));
+
+        final var titles = advertisementRepository.findAllTitlesByIds(ids);
+
+        assertAll(
+                () -> assertTrue(titles.stream().map(AdvertisementTitleRow::getId).allMatch(ids::contains)),
+                () -> assertEquals(2, titles.size()),
+                () -> assertEquals(1, statistics.getPrepareStatementCount())
+        );
+    }
+}
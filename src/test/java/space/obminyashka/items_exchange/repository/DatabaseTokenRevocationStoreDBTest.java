@@ -0,0 +1,67 @@
+package space.obminyashka.items_exchange.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import space.obminyashka.items_exchange.repository.model.RevokedToken;
+import space.obminyashka.items_exchange.service.impl.DatabaseTokenRevocationStore;
+import space.obminyashka.items_exchange.service.util.RevokedTokenFilter;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+@SpringBootTest(properties = "app.access.jwt.revocation.store=database")
+class DatabaseTokenRevocationStoreDBTest {
+    private static final String REVOKED_TOKEN_ID = "revoked-token";
+    private static final String OTHER_NODE_TOKEN_ID = "revoked-by-other-node";
+    private final DatabaseTokenRevocationStore tokenRevocationStore;
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final RevokedTokenFilter revokedTokenFilter;
+
+    @BeforeEach
+    @AfterEach
+    void cleanRevokedTokens() {
+        revokedTokenRepository.deleteAll();
+    }
+
+    @Test
+    void revoke_shouldMarkOnlyTheRevokedToken() {
+        tokenRevocationStore.revoke(REVOKED_TOKEN_ID, Instant.now().plusSeconds(60));
+
+        assertAll(
+                () -> assertTrue(tokenRevocationStore.isRevoked(REVOKED_TOKEN_ID)),
+                () -> assertFalse(tokenRevocationStore.isRevoked(OTHER_NODE_TOKEN_ID)),
+                () -> assertDoesNotThrow(() -> tokenRevocationStore.revoke(REVOKED_TOKEN_ID, Instant.now().plusSeconds(60)))
+        );
+    }
+
+    @Test
+    void fetchRevocations_shouldPutTokensRevokedByOtherNodesIntoFilter() {
+        final var now = LocalDateTime.now(ZoneOffset.UTC);
+        revokedTokenRepository.save(new RevokedToken(OTHER_NODE_TOKEN_ID, now.plusMinutes(1), now));
+
+        tokenRevocationStore.fetchRevocations();
+
+        assertTrue(revokedTokenFilter.mightContain(OTHER_NODE_TOKEN_ID));
+    }
+
+    @Test
+    void removeExpired_shouldDeleteOnlyExpiredRevocations() {
+        tokenRevocationStore.revoke(OTHER_NODE_TOKEN_ID, Instant.now().minusSeconds(60));
+        tokenRevocationStore.revoke(REVOKED_TOKEN_ID, Instant.now().plusSeconds(60));
+
+        tokenRevocationStore.removeExpired();
+
+        assertEquals(List.of(REVOKED_TOKEN_ID), revokedTokenRepository.findAll().stream()
+                .map(RevokedToken::getJti)
+                .toList());
+    }
+}
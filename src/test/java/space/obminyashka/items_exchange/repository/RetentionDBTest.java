@@ -0,0 +1,69 @@
+package space.obminyashka.items_exchange.repository;
+
+import com.github.database.rider.core.api.dataset.DataSet;
+import com.github.database.rider.junit5.api.DBRider;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import space.obminyashka.items_exchange.repository.model.EmailConfirmationCode;
+import space.obminyashka.items_exchange.repository.model.RefreshToken;
+import space.obminyashka.items_exchange.service.RetentionService;
+import space.obminyashka.items_exchange.service.util.EmailType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+@SpringBootTest
+@DBRider
+class RetentionDBTest {
+    private static final String EXPIRED_TOKEN_HASH = "a".repeat(64);
+    private static final String ACTIVE_TOKEN_HASH = "b".repeat(64);
+    private static final UUID ACTIVE_CODE_ID = UUID.fromString("ee36c78c-cfe9-11ed-b542-744ca1559076");
+    private final RetentionService retentionService;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final EmailConfirmationCodeRepository emailConfirmationCodeRepository;
+    @Value("${number.of.days.to.keep.deleted.email.confirmation.token}")
+    private int numberOfDaysToKeepDeletedEmails;
+
+    @BeforeEach
+    @AfterEach
+    void cleanRefreshTokens() {
+        refreshTokenRepository.deleteAll();
+    }
+
+    @Test
+    @DataSet("database_init.yml")
+    void purgeExpiredRefreshTokens_shouldDeleteOnlyExpiredTokens() {
+        refreshTokenRepository.createRefreshToken("admin", EXPIRED_TOKEN_HASH, LocalDateTime.now().minusMinutes(1));
+        refreshTokenRepository.createRefreshToken("user", ACTIVE_TOKEN_HASH, LocalDateTime.now().plusDays(1));
+
+        assertAll(
+                () -> assertEquals(1, retentionService.purgeExpiredRefreshTokens()),
+                () -> assertEquals(List.of(ACTIVE_TOKEN_HASH), refreshTokenRepository.findAll().stream()
+                        .map(RefreshToken::getTokenHash)
+                        .toList())
+        );
+    }
+
+    @Test
+    @DataSet("database_init.yml")
+    void purgeExpiredEmailConfirmationCodes_shouldDeleteOnlyCodesAfterGracePeriod() {
+        emailConfirmationCodeRepository.saveConfirmationCode(UUID.randomUUID(), "admin@gmail.com",
+                LocalDateTime.now().minusDays(numberOfDaysToKeepDeletedEmails + 1L), EmailType.REGISTRATION.name());
+
+        assertAll(
+                () -> assertEquals(1, retentionService.purgeExpiredEmailConfirmationCodes()),
+                () -> assertEquals(List.of(ACTIVE_CODE_ID), emailConfirmationCodeRepository.findAll().stream()
+                        .map(EmailConfirmationCode::getId)
+                        .toList())
+        );
+    }
+}
@@ -0,0 +1,89 @@
+package space.obminyashka.items_exchange.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import space.obminyashka.items_exchange.repository.model.StoredImageDeletion;
+import space.obminyashka.items_exchange.service.ImageStorage;
+import space.obminyashka.items_exchange.service.util.StoredImageCleaner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+@SpringBootTest
+class StoredImageCleanerDBTest {
+    private final StoredImageCleaner storedImageCleaner;
+    private final StoredImageDeletionRepository deletionRepository;
+    private final ImageStorage imageStorage;
+    @Value("${app.image.storage.local.root}")
+    private String storageRoot;
+
+    @BeforeEach
+    @AfterEach
+    void cleanDeletions() {
+        deletionRepository.deleteAll();
+    }
+
+    @Test
+    void deleteLater_shouldKeepImageUntilGracePeriodPasses() {
+        var hash = imageStorage.store("recently released image".getBytes());
+
+        storedImageCleaner.deleteLater(List.of(hash));
+        storedImageCleaner.sweep();
+
+        assertAll(
+                () -> assertTrue(imageStorage.exists(hash)),
+                () -> assertTrue(deletionRepository.existsById(hash))
+        );
+    }
+
+    @Test
+    void sweep_whenUnreferencedImageIsStoredLongAgo_shouldDeleteIt() throws IOException {
+        var hash = imageStorage.store("unreferenced image".getBytes());
+        storeLongAgo(hash);
+        requestDeletionLongAgo(hash);
+
+        storedImageCleaner.sweep();
+
+        assertAll(
+                () -> assertFalse(imageStorage.exists(hash)),
+                () -> assertFalse(deletionRepository.existsById(hash))
+        );
+    }
+
+    @Test
+    void sweep_whenImageIsStoredAgainDuringGracePeriod_shouldPostponeDeletion() {
+        var hash = imageStorage.store("image uploaded once more".getBytes());
+        requestDeletionLongAgo(hash);
+
+        storedImageCleaner.sweep();
+
+        assertAll(
+                () -> assertTrue(imageStorage.exists(hash)),
+                () -> assertTrue(deletionRepository.existsById(hash))
+        );
+    }
+
+    private void requestDeletionLongAgo(String hash) {
+        deletionRepository.save(new StoredImageDeletion(hash, LocalDateTime.now(ZoneOffset.UTC).minusDays(1)));
+    }
+
+    private void storeLongAgo(String hash) throws IOException {
+        var image = Path.of(storageRoot).resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+        Files.setLastModifiedTime(image, FileTime.from(Instant.now().minus(1, ChronoUnit.DAYS)));
+    }
+}
@@ -0,0 +1,71 @@
+package space.obminyashka.items_exchange.repository;
+
+import com.github.database.rider.core.api.dataset.DataSet;
+import com.github.database.rider.junit5.api.DBRider;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import space.obminyashka.items_exchange.service.util.AdvertisementsRemovedEvent;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+@SpringBootTest
+@DBRider
+@RecordApplicationEvents
+class UserErasureDBTest {
+    private static final UUID ADMIN_ID = UUID.fromString("61731cc8-8104-49f0-b2c3-5a52e576ab28");
+    private static final UUID USER_ID = UUID.fromString("9a73b2d0-3528-4123-b2b1-27d61ed5afd3");
+    private static final UUID ADMIN_ADVERTISEMENT_ID = UUID.fromString("65e3ee49-5927-40be-aafd-0461ce45f295");
+    private final UserRepository userRepository;
+    private final AdvertisementRepository advertisementRepository;
+    private final ImageRepository imageRepository;
+    private final EmailConfirmationCodeRepository emailConfirmationCodeRepository;
+    // Recorded events are bound to the running test, so they can't be injected into the constructor
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
+    @Test
+    @DataSet("database_init.yml")
+    void eraseAllByIds_shouldDeleteUsersWithAllTheirRowsOnly() {
+        final var erased = userRepository.eraseAllByIds(List.of(ADMIN_ID));
+
+        assertAll(
+                () -> assertEquals(1, erased),
+                () -> assertFalse(userRepository.existsById(ADMIN_ID)),
+                () -> assertEquals(0, advertisementRepository.count()),
+                () -> assertEquals(0, imageRepository.count()),
+                () -> assertTrue(userRepository.existsById(USER_ID)),
+                () -> assertEquals(1, emailConfirmationCodeRepository.count())
+        );
+    }
+
+    @Test
+    @DataSet("database_init.yml")
+    void eraseAllByIds_shouldAnnounceRemovedAdvertisements() {
+        final var advertisementsAmount = advertisementRepository.count();
+
+        userRepository.eraseAllByIds(List.of(ADMIN_ID));
+
+        final var event = applicationEvents.stream(AdvertisementsRemovedEvent.class).findFirst().orElseThrow();
+        assertAll(
+                () -> assertEquals(advertisementsAmount, event.advertisementIds().size()),
+                () -> assertTrue(event.advertisementIds().contains(ADMIN_ADVERTISEMENT_ID))
+        );
+    }
+
+    @Test
+    @DataSet("database_init.yml")
+    void eraseAllByIds_whenNoUsersGiven_shouldDeleteNothing() {
+        assertAll(
+                () -> assertEquals(0, userRepository.eraseAllByIds(List.of())),
+                () -> assertTrue(userRepository.existsById(ADMIN_ID))
+        );
+    }
+}
@@ -9,20 +9,17 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.MessageSource;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import space.obminyashka.items_exchange.repository.model.Role;
-import space.obminyashka.items_exchange.rest.exception.EmailSendingException;
+import space.obminyashka.items_exchange.rest.exception.bad_request.BadRequestException;
 import space.obminyashka.items_exchange.rest.request.UserLoginRequest;
 import space.obminyashka.items_exchange.rest.request.UserRegistrationRequest;
 import space.obminyashka.items_exchange.rest.response.UserLoginResponse;
 import space.obminyashka.items_exchange.rest.response.message.MessageSourceProxy;
 import space.obminyashka.items_exchange.service.AuthService;
-import space.obminyashka.items_exchange.service.MailService;
 import space.obminyashka.items_exchange.service.UserService;
-import space.obminyashka.items_exchange.service.util.EmailType;
 
 import java.time.LocalDateTime;
 
@@ -37,10 +34,6 @@ class AuthorizationControllerTest {
     @Mock
     private AuthService authService;
     @Mock
-    private MailService mailService;
-    @Mock
-    private AuthenticationManager authenticationManager;
-    @Mock
     private MessageSource messageSource;
     @InjectMocks
     private AuthController authController;
@@ -62,66 +55,55 @@ class AuthorizationControllerTest {
 
         assertAll("Verify invoking services one by one and expected status",
                 () -> verify(userService).existsByUsernameOrEmail(dto.getUsername(), dto.getEmail()),
-                () -> verify(mailService).sendEmailTemplateAndGenerateConfrimationCode(eq(dto.getEmail()), eq(EmailType.REGISTRATION), any()),
-                () -> verify(userService).registerNewUser(eq(dto), any()),
+                () -> verify(userService).registerNewUser(dto, HttpHeaders.HOST),
                 () -> assertEquals(HttpStatus.CREATED, responseEntity.getStatusCode()));
     }
 
     @Test
-    void register_whenMailServiceFailed_shouldThrowEmailSendingException() {
-        doThrow(new EmailSendingException("Expected exception!"))
-                .when(mailService)
-                .sendEmailTemplateAndGenerateConfrimationCode(anyString(), any(), any());
-
+    void register_whenUserIsNotRegistered_shouldThrowBadRequestException() {
+        when(userService.registerNewUser(any(), any())).thenReturn(false);
 
-        assertThrows(EmailSendingException.class, () -> authController.registerUser(dto, HttpHeaders.HOST));
+        assertThrows(BadRequestException.class, () -> authController.registerUser(dto, HttpHeaders.HOST));
 
-        assertAll("Verify invoking services one by one and expected status",
+        assertAll("Verify invoking services one by one",
                 () -> verify(userService).existsByUsernameOrEmail(dto.getUsername(), dto.getEmail()),
-                () -> verify(mailService).sendEmailTemplateAndGenerateConfrimationCode(eq(dto.getEmail()), eq(EmailType.REGISTRATION), any()),
+                () -> verify(userService).registerNewUser(dto, HttpHeaders.HOST),
                 () -> verifyNoMoreInteractions(userService));
     }
 
     @Test
     void login_whenUserWihUserNameExistsInDB_shouldLoginUser() {
         var expectedUserDto = createUserLoginDto();
-        var prefinalizeUserLoginDto = createUserLoginResponseDto();
-        var expectedUserLoginDto = finalizeUserLoginDto(prefinalizeUserLoginDto);
-        when(userService.findAuthDataByUsernameOrEmail(anyString())).thenReturn(prefinalizeUserLoginDto);
-        when(authService.finalizeAuthData(any(UserLoginResponse.class))).thenReturn(expectedUserLoginDto);
+        var expectedUserLoginDto = finalizeUserLoginDto(createUserLoginResponseDto());
+        when(authService.login(anyString(), anyString())).thenReturn(expectedUserLoginDto);
 
         var actualUserLoginDto = authController.login(expectedUserDto);
 
         assertAll(
                 () -> assertEquals(expectedUserLoginDto, actualUserLoginDto),
-                () -> verify(userService).findAuthDataByUsernameOrEmail(expectedUserDto.getUsernameOrEmail()),
-                () -> verify(authService).finalizeAuthData(prefinalizeUserLoginDto),
-                () -> verify(authenticationManager).authenticate(any())
+                () -> verify(authService).login(expectedUserDto.getUsernameOrEmail(), expectedUserDto.getPassword()),
+                () -> verifyNoInteractions(userService)
         );
     }
 
     @Test
     void login_whenUserWihUserNameDoesNotExistInDB_shouldBadCredentialsException() {
         var expectedUserDto = createUserLoginDto();
-        var prefinalizelUserLoginDto = createUserLoginResponseDto();
-        when(userService.findAuthDataByUsernameOrEmail(anyString())).thenReturn(prefinalizelUserLoginDto);
-        when(authService.finalizeAuthData(any(UserLoginResponse.class)))
-                .thenReturn(finalizeUserLoginDto(prefinalizelUserLoginDto));
-        when(authenticationManager.authenticate(any())).thenThrow(new BadCredentialsException(""));
+        when(authService.login(anyString(), anyString())).thenThrow(new BadCredentialsException(""));
 
         assertAll(
                 () -> assertThrows(
                         BadCredentialsException.class,
                         () -> authController.login(expectedUserDto)),
-                () -> verify(userService).findAuthDataByUsernameOrEmail(expectedUserDto.getUsernameOrEmail()),
-                () -> verify(authService).finalizeAuthData(prefinalizelUserLoginDto),
-                () -> verify(authenticationManager).authenticate(any())
+                () -> verify(authService).login(expectedUserDto.getUsernameOrEmail(), expectedUserDto.getPassword()),
+                () -> verifyNoMoreInteractions(authService)
         );
     }
 
     private UserLoginRequest createUserLoginDto() {
         var dto = new UserLoginRequest();
         dto.setUsernameOrEmail("user");
+        dto.setPassword("password");
         return dto;
     }
 
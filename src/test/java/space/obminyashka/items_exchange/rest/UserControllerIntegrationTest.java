@@ -21,14 +21,14 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.multipart.MultipartFile;
 import space.obminyashka.items_exchange.rest.basic.BasicControllerTest;
+import space.obminyashka.items_exchange.rest.exception.TooManyRequestsException;
 import space.obminyashka.items_exchange.rest.request.ChangeEmailRequest;
 import space.obminyashka.items_exchange.rest.request.ChangePasswordRequest;
 import space.obminyashka.items_exchange.rest.request.MyUserInfoUpdateRequest;
 import space.obminyashka.items_exchange.rest.request.VerifyEmailRequest;
-import space.obminyashka.items_exchange.service.MailService;
 import space.obminyashka.items_exchange.service.impl.ImageServiceImpl;
 import space.obminyashka.items_exchange.service.impl.UserServiceImpl;
-import space.obminyashka.items_exchange.service.util.EmailType;
+import space.obminyashka.items_exchange.service.util.UploadBudget;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
@@ -38,6 +38,7 @@ import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -59,12 +60,12 @@ class UserControllerIntegrationTest extends BasicControllerTest {
     @MockBean
     private UserServiceImpl userService;
 
-    @MockBean
-    private MailService mailService;
-
     @SpyBean
     private ImageServiceImpl imageService;
 
+    @MockBean
+    private UploadBudget uploadBudget;
+
     @Captor
     private ArgumentCaptor<MultipartFile> captor;
 
@@ -164,8 +165,7 @@ class UserControllerIntegrationTest extends BasicControllerTest {
 
         assertAll(
                 () -> assertEquals(mvcResult.getResponse().getContentAsString(), getMessageSource(RESET_PASSWORD)),
-                () -> verify(mailService).sendEmailTemplateAndGenerateConfrimationCode(eq(verifyEmailRequest.email()),
-                        eq(EmailType.RESET), any())
+                () -> verify(userService).saveCodeForResetPassword(eq(verifyEmailRequest.email()), any())
         );
     }
 
@@ -197,6 +197,17 @@ class UserControllerIntegrationTest extends BasicControllerTest {
         sendUriAndGetMvcResult(multipart(new URI(USER_SERVICE_CHANGE_AVATAR)).file(bmp), status().isUnsupportedMediaType());
     }
 
+    @Test
+    @WithMockUser
+    void updateUserAvatar_whenUploadBudgetIsExhausted_shouldRejectBeforeReadingImage() throws Exception {
+        when(uploadBudget.reserve(anyLong())).thenThrow(new TooManyRequestsException("Expected exception!"));
+        MockMultipartFile jpeg = new MockMultipartFile("image", "test-image.jpeg", MediaType.IMAGE_JPEG_VALUE, "image jpg".getBytes());
+
+        sendUriAndGetMvcResult(multipart(USER_SERVICE_CHANGE_AVATAR).file(jpeg), status().isTooManyRequests());
+
+        verify(imageService, never()).scale(any(MultipartFile.class));
+    }
+
     @Test
     @WithMockUser
     void updateUserAvatar_whenReceivedSeveralImages_shouldSaveFirstImage() throws Exception {
@@ -0,0 +1,166 @@
+package space.obminyashka.items_exchange.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import space.obminyashka.items_exchange.repository.AdvertisementRepository;
+import space.obminyashka.items_exchange.repository.enums.AgeRange;
+import space.obminyashka.items_exchange.repository.enums.Gender;
+import space.obminyashka.items_exchange.repository.enums.Season;
+import space.obminyashka.items_exchange.repository.enums.Size;
+import space.obminyashka.items_exchange.repository.projection.AdvertisementFacetProjection;
+import space.obminyashka.items_exchange.rest.request.AdvertisementFilterRequest;
+import space.obminyashka.items_exchange.service.util.AdvertisementFacetIndex;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AdvertisementFacetIndexTest {
+
+    private static final UUID KYIV = UUID.randomUUID();
+    private static final UUID LVIV = UUID.randomUUID();
+    private static final UUID DRESS_ID = UUID.randomUUID();
+    private static final UUID BOOTS_ID = UUID.randomUUID();
+    private static final UUID SHIRT_ID = UUID.randomUUID();
+
+    @Mock
+    private AdvertisementRepository advertisementRepository;
+    @InjectMocks
+    private AdvertisementFacetIndex facetIndex;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(facetIndex, "enabled", true);
+        ReflectionTestUtils.setField(facetIndex, "batchSize", 100);
+        when(advertisementRepository.findFacetsAfter(any(), any())).thenReturn(new SliceImpl<>(List.of(
+                new Facets(DRESS_ID, Gender.FEMALE, Season.SUMMER, AgeRange.FROM_3_TO_5, "46 - 50", 1L, 1L, KYIV),
+                new Facets(BOOTS_ID, Gender.MALE, Season.WINTER, AgeRange.FROM_6_TO_9, "13.5", 15L, 2L, LVIV),
+                new Facets(SHIRT_ID, Gender.MALE, Season.SUMMER, AgeRange.FROM_3_TO_5, "51 - 56", 1L, 1L, KYIV))));
+        facetIndex.rebuild();
+    }
+
+    @Test
+    void findIds_whenNoFilters_shouldReturnAllAdvertisements() {
+        var page = facetIndex.findIds(new AdvertisementFilterRequest(), total -> 0).orElseThrow();
+
+        assertEquals(3, page.getTotalElements());
+        assertEquals(List.of(DRESS_ID, BOOTS_ID, SHIRT_ID), page.getContent());
+    }
+
+    @Test
+    void findIds_whenSeveralFilters_shouldIntersectThem() {
+        var request = new AdvertisementFilterRequest()
+                .setGender(Gender.MALE)
+                .setSeason(Set.of(Season.SUMMER, Season.DEMI_SEASON))
+                .setCategoryId(1L)
+                .setLocationId(KYIV);
+
+        var page = facetIndex.findIds(request, total -> 0).orElseThrow();
+
+        assertEquals(List.of(SHIRT_ID), page.getContent());
+    }
+
+    @Test
+    void findIds_whenSizesAndExcludedAdvertisement_shouldFilterThem() {
+        var request = new AdvertisementFilterRequest()
+                .setSubcategoriesIdValues(List.of(1L, 15L))
+                .setExcludeAdvertisementId(DRESS_ID);
+        request.setClothingSizes(Set.of(Size.Clothing.FORTY_SIX_2_FIFTY.getRange(), Size.Clothing.FIFTY_ONE_2_FIFTY_SIX.getRange()));
+
+        var page = facetIndex.findIds(request, total -> 0).orElseThrow();
+
+        assertEquals(List.of(SHIRT_ID), page.getContent());
+    }
+
+    @Test
+    void findIds_whenUnknownLocation_shouldReturnEmptyPage() {
+        var request = new AdvertisementFilterRequest().setLocationId(UUID.randomUUID());
+
+        assertEquals(0, facetIndex.findIds(request, total -> 0).orElseThrow().getTotalElements());
+    }
+
+    @Test
+    void findIds_whenKeywordPassed_shouldFallbackToDatabase() {
+        var request = new AdvertisementFilterRequest().setKeyword("dress");
+
+        assertTrue(facetIndex.findIds(request, total -> 0).isEmpty());
+    }
+
+    @Test
+    void findIds_shouldPassTotalToPageResolverAndReturnRequestedPage() {
+        var request = new AdvertisementFilterRequest().setSize(1);
+
+        var page = facetIndex.findIds(request, total -> (int) total - 1).orElseThrow();
+
+        assertEquals(2, page.getNumber());
+        assertEquals(List.of(SHIRT_ID), page.getContent());
+    }
+
+    @Test
+    void remove_shouldExcludeAdvertisementFromResults() {
+        facetIndex.remove(BOOTS_ID);
+
+        var page = facetIndex.findIds(new AdvertisementFilterRequest().setGender(Gender.MALE), total -> 0).orElseThrow();
+
+        assertEquals(List.of(SHIRT_ID), page.getContent());
+    }
+
+    @Test
+    void countFacets_shouldCountOptionsWithinFilteredAdvertisementsIgnoringOwnSelection() {
+        var request = new AdvertisementFilterRequest().setSeason(Set.of(Season.SUMMER));
+
+        var facets = facetIndex.countFacets(request).orElseThrow().toView();
+
+        assertEquals(2, facets.total());
+        assertEquals(Map.of(Gender.FEMALE, 1L, Gender.MALE, 1L), facets.gender());
+        assertEquals(Map.of(Season.SUMMER, 2L, Season.WINTER, 1L), facets.season());
+        assertEquals(Map.of(AgeRange.FROM_3_TO_5.getValue(), 2L), facets.age());
+        assertEquals(Map.of("46 - 50", 1L, "51 - 56", 1L), facets.clothingSizes());
+        assertTrue(facets.shoesSizes().isEmpty());
+        assertEquals(Map.of(1L, 2L), facets.subcategories());
+    }
+
+    @Test
+    void rebuild_shouldContinueFromTheLastIdOfThePreviousBatch() {
+        var nextId = UUID.randomUUID();
+        var batch = PageRequest.ofSize(1);
+        ReflectionTestUtils.setField(facetIndex, "batchSize", 1);
+        when(advertisementRepository.findFacetsAfter(null, batch)).thenReturn(new SliceImpl<>(List.of(
+                new Facets(DRESS_ID, Gender.FEMALE, Season.SUMMER, AgeRange.FROM_3_TO_5, "46 - 50", 1L, 1L, KYIV)), batch, true));
+        when(advertisementRepository.findFacetsAfter(DRESS_ID, batch)).thenReturn(new SliceImpl<>(List.of(
+                new Facets(nextId, Gender.MALE, Season.SUMMER, AgeRange.FROM_3_TO_5, "51 - 56", 1L, 1L, KYIV)), batch, false));
+
+        facetIndex.rebuild();
+
+        var page = facetIndex.findIds(new AdvertisementFilterRequest(), total -> 0).orElseThrow();
+        assertEquals(List.of(DRESS_ID, nextId), page.getContent());
+    }
+
+    @Test
+    void forEachAdvertisement_shouldPassAliveAdvertisementsWithSubcategories() {
+        facetIndex.remove(SHIRT_ID);
+        var subcategoriesById = new HashMap<UUID, Long>();
+
+        assertTrue(facetIndex.forEachAdvertisement(subcategoriesById::put));
+        assertEquals(Map.of(DRESS_ID, 1L, BOOTS_ID, 15L), subcategoriesById);
+    }
+
+    private record Facets(UUID getId, Gender getGender, Season getSeason, AgeRange getAge, String getSize,
+                          Long getSubcategoryId, Long getCategoryId, UUID getLocationId)
+            implements AdvertisementFacetProjection {
+    }
+}
@@ -0,0 +1,131 @@
+package space.obminyashka.items_exchange.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import space.obminyashka.items_exchange.repository.AdvertisementRepository;
+import space.obminyashka.items_exchange.repository.projection.AdvertisementTextProjection;
+import space.obminyashka.items_exchange.service.util.AdvertisementKeywordIndex;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AdvertisementKeywordIndexTest {
+
+    private static final UUID BLOUSE_ID = UUID.randomUUID();
+    private static final UUID BALL_ID = UUID.randomUUID();
+    private static final UUID CAFE_ID = UUID.randomUUID();
+
+    @Mock
+    private AdvertisementRepository advertisementRepository;
+    @InjectMocks
+    private AdvertisementKeywordIndex keywordIndex;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(keywordIndex, "enabled", true);
+        ReflectionTestUtils.setField(keywordIndex, "maxCandidates", 10);
+        ReflectionTestUtils.setField(keywordIndex, "batchSize", 100);
+        when(advertisementRepository.findTextsAfter(any(), any())).thenReturn(new SliceImpl<>(List.of(
+                createText(BLOUSE_ID, "Blue blouses", "Nice description"),
+                createText(BALL_ID, "М’яч футбольний", "Майже новий"),
+                createText(CAFE_ID, "Café toys", null))));
+        keywordIndex.rebuild();
+    }
+
+    @Test
+    void findCandidates_whenIndexIsNotBuilt_shouldReturnEmpty() {
+        var notBuiltIndex = new AdvertisementKeywordIndex(advertisementRepository);
+        ReflectionTestUtils.setField(notBuiltIndex, "enabled", true);
+
+        assertTrue(notBuiltIndex.findCandidates("blouses").isEmpty());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"blouses", "SES", "ouse", "descr", "lo"})
+    void findCandidates_whenKeywordIsPartOfToken_shouldFindAdvertisement(String keyword) {
+        assertEquals(Set.of(BLOUSE_ID), keywordIndex.findCandidates(keyword).orElseThrow());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"м'яч", "М`ЯЧ", "новий", "мяч футбол"})
+    void findCandidates_whenUkrainianKeyword_shouldUnifyApostrophesAndCase(String keyword) {
+        assertTrue(keywordIndex.findCandidates(keyword).orElseThrow().contains(BALL_ID));
+    }
+
+    @Test
+    void findCandidates_whenKeywordHasSeveralWords_shouldCombineByOr() {
+        assertEquals(Set.of(BLOUSE_ID, CAFE_ID), keywordIndex.findCandidates("blue cafe").orElseThrow());
+    }
+
+    @Test
+    void findCandidates_whenNothingMatches_shouldReturnEmptySet() {
+        assertEquals(Set.of(), keywordIndex.findCandidates("pajamas").orElseThrow());
+    }
+
+    @Test
+    void findCandidates_whenAllTrigramsMatchButNotInARow_shouldNotMatch() {
+        var newId = UUID.randomUUID();
+        keywordIndex.index(newId, "abcxbcd", null);
+
+        assertEquals(Set.of(), keywordIndex.findCandidates("abcd").orElseThrow());
+        assertEquals(Set.of(newId), keywordIndex.findCandidates("xbcd").orElseThrow());
+    }
+
+    @Test
+    void findCandidates_whenKeywordHasNoTokens_shouldFallbackToDatabase() {
+        assertTrue(keywordIndex.findCandidates("%_").isEmpty());
+    }
+
+    @Test
+    void findCandidates_whenTooManyCandidates_shouldFallbackToDatabase() {
+        ReflectionTestUtils.setField(keywordIndex, "maxCandidates", 1);
+
+        assertTrue(keywordIndex.findCandidates("e").isEmpty());
+    }
+
+    @Test
+    void index_whenAdvertisementUpdatedOrRemoved_shouldReflectChanges() {
+        var newId = UUID.randomUUID();
+        keywordIndex.index(newId, "Pajamas", "Warm");
+        keywordIndex.index(BLOUSE_ID, "Red dress", "");
+        keywordIndex.remove(CAFE_ID);
+
+        assertEquals(Set.of(newId), keywordIndex.findCandidates("pajamas").orElseThrow());
+        assertEquals(Set.of(), keywordIndex.findCandidates("blouses").orElseThrow());
+        assertEquals(Set.of(BLOUSE_ID), keywordIndex.findCandidates("dress").orElseThrow());
+        assertEquals(Set.of(), keywordIndex.findCandidates("cafe").orElseThrow());
+    }
+
+    private static AdvertisementTextProjection createText(UUID id, String topic, String description) {
+        return new AdvertisementTextProjection() {
+            @Override
+            public UUID getId() {
+                return id;
+            }
+
+            @Override
+            public String getTopic() {
+                return topic;
+            }
+
+            @Override
+            public String getDescription() {
+                return description;
+            }
+        };
+    }
+}
@@ -0,0 +1,122 @@
+package space.obminyashka.items_exchange.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import space.obminyashka.items_exchange.repository.AdvertisementRepository;
+import space.obminyashka.items_exchange.repository.enums.AgeRange;
+import space.obminyashka.items_exchange.repository.enums.Gender;
+import space.obminyashka.items_exchange.repository.enums.Season;
+import space.obminyashka.items_exchange.repository.projection.AdvertisementFacetProjection;
+import space.obminyashka.items_exchange.rest.request.AdvertisementFilterRequest;
+import space.obminyashka.items_exchange.service.util.AdvertisementFacetIndex;
+import space.obminyashka.items_exchange.service.util.AdvertisementRandomSampler;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AdvertisementRandomSamplerTest {
+
+    private static final List<UUID> CLOTHES_IDS = IntStream.range(0, 20).mapToObj(i -> UUID.randomUUID()).toList();
+    private static final List<UUID> SHOES_IDS = IntStream.range(0, 3).mapToObj(i -> UUID.randomUUID()).toList();
+
+    @Mock
+    private AdvertisementRepository advertisementRepository;
+    @Mock
+    private AdvertisementFacetIndex advertisementFacetIndex;
+    @InjectMocks
+    private AdvertisementRandomSampler randomSampler;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(randomSampler, "enabled", true);
+        ReflectionTestUtils.setField(randomSampler, "reservoirSize", 10);
+        ReflectionTestUtils.setField(randomSampler, "batchSize", 100);
+        var facets = new ArrayList<AdvertisementFacetProjection>();
+        CLOTHES_IDS.forEach(id -> facets.add(new Facets(id, null, null, null, null, 1L, 1L, null)));
+        SHOES_IDS.forEach(id -> facets.add(new Facets(id, null, null, null, null, 15L, 2L, null)));
+        when(advertisementRepository.findFacetsAfter(any(), any())).thenReturn(new SliceImpl<>(facets));
+        randomSampler.refresh();
+    }
+
+    @RepeatedTest(5)
+    void sample_whenSubcategoryPassed_shouldReturnDistinctAdvertisementsOfTheSubcategory() {
+        var request = new AdvertisementFilterRequest().setEnableRandom(true).setSize(5).setSubcategoriesIdValues(List.of(1L));
+
+        var page = randomSampler.sample(request).orElseThrow();
+
+        assertEquals(5, page.getContent().size());
+        assertEquals(5, new HashSet<>(page.getContent()).size());
+        assertThat(CLOTHES_IDS).containsAll(page.getContent());
+        assertEquals(CLOTHES_IDS.size(), page.getTotalElements());
+    }
+
+    @RepeatedTest(5)
+    void sample_shouldSkipExcludedAndRemovedAdvertisements() {
+        randomSampler.remove(SHOES_IDS.get(0));
+        var request = new AdvertisementFilterRequest()
+                .setEnableRandom(true)
+                .setSubcategoriesIdValues(List.of(15L))
+                .setExcludeAdvertisementId(SHOES_IDS.get(1));
+
+        var page = randomSampler.sample(request).orElseThrow();
+
+        assertEquals(List.of(SHOES_IDS.get(2)), page.getContent());
+        assertEquals(1, page.getTotalElements());
+    }
+
+    @Test
+    void sample_whenNoSubcategories_shouldSampleAllAdvertisements() {
+        var request = new AdvertisementFilterRequest().setEnableRandom(true).setSize(4);
+
+        var page = randomSampler.sample(request).orElseThrow();
+
+        assertEquals(4, page.getContent().size());
+        assertEquals(CLOTHES_IDS.size() + SHOES_IDS.size(), page.getTotalElements());
+    }
+
+    @Test
+    void sample_whenOtherFiltersPassed_shouldFallbackToUsualSearch() {
+        var request = new AdvertisementFilterRequest().setEnableRandom(true).setGender(Gender.MALE);
+
+        assertTrue(randomSampler.sample(request).isEmpty());
+        assertTrue(randomSampler.sample(new AdvertisementFilterRequest()).isEmpty());
+    }
+
+    @Test
+    void refresh_whenFacetIndexIsBuilt_shouldNotScanDatabase() {
+        when(advertisementFacetIndex.forEachAdvertisement(any())).thenAnswer(invocation -> {
+            BiConsumer<UUID, Long> consumer = invocation.getArgument(0);
+            SHOES_IDS.forEach(id -> consumer.accept(id, 15L));
+            return true;
+        });
+
+        randomSampler.refresh();
+
+        var page = randomSampler.sample(new AdvertisementFilterRequest().setEnableRandom(true).setSize(5)).orElseThrow();
+        assertThat(page.getContent()).containsExactlyInAnyOrderElementsOf(SHOES_IDS);
+        verify(advertisementRepository).findFacetsAfter(any(), any());
+    }
+
+    private record Facets(UUID getId, Gender getGender, Season getSeason, AgeRange getAge, String getSize,
+                          Long getSubcategoryId, Long getCategoryId, UUID getLocationId)
+            implements AdvertisementFacetProjection {
+    }
+}
@@ -9,16 +9,18 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.MessageSource;
+import org.springframework.security.authentication.BadCredentialsException;
 import space.obminyashka.items_exchange.rest.response.UserLoginResponse;
 import space.obminyashka.items_exchange.rest.exception.RefreshTokenException;
-import space.obminyashka.items_exchange.repository.model.RefreshToken;
 import space.obminyashka.items_exchange.repository.model.Role;
+import space.obminyashka.items_exchange.repository.projection.RefreshTokenSession;
 import space.obminyashka.items_exchange.service.impl.AuthServiceImpl;
 import space.obminyashka.items_exchange.rest.response.message.MessageSourceProxy;
 
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -38,6 +40,8 @@ class AuthServiceTest {
     @Mock
     private RefreshTokenService refreshTokenService;
     @Mock
+    private UserService userService;
+    @Mock
     private MessageSource messageSource;
     @Captor
     private ArgumentCaptor<String> usernameCaptor;
@@ -57,20 +61,45 @@ class AuthServiceTest {
     void finalizeAuthData_whenPositiveFlow_shouldPopulateDtoAndCreateTokenWithUsername() {
         mockJwtTokenServiceForCreationAccessAndRefreshTokens();
         var testDto = createTestDto();
-        when(refreshTokenService.createRefreshToken(null, testDto.getUsername()))
-                .thenReturn(new RefreshToken(REFRESH_TOKEN, LocalDateTime.MAX));
+        when(refreshTokenService.createRefreshToken(null, testDto.getUsername())).thenReturn(REFRESH_TOKEN);
 
         final var actualUserLoginResponseDto = authService.finalizeAuthData(testDto);
 
         assertAll(
                 () -> checkAccessAndRefreshTokenFieldsInDto(actualUserLoginResponseDto),
-                () -> verify(jwtTokenService).createAccessToken(testDto.getUsername(), testDto.getRole()),
-                () -> verify(jwtTokenService).getAccessTokenExpiration(JWT_TOKEN),
+                () -> verify(jwtTokenService).issueAccessToken(testDto.getUsername(), testDto.getRole()),
+                () -> verify(jwtTokenService, never()).getAccessTokenExpiration(anyString()),
                 () -> verify(refreshTokenService).createRefreshToken(null, testDto.getUsername()),
                 () -> verify(jwtTokenService).getRefreshTokenExpiration(any(ZonedDateTime.class))
         );
     }
 
+    @Test
+    void login_whenCredentialsAreValid_shouldFinalizeAuthenticatedUser() {
+        mockJwtTokenServiceForCreationAccessAndRefreshTokens();
+        var testDto = createTestDto();
+        when(userService.authenticate(EXPECTED_USERNAME, "password")).thenReturn(testDto);
+        when(refreshTokenService.createRefreshToken(null, EXPECTED_USERNAME)).thenReturn(REFRESH_TOKEN);
+
+        final var actualUserLoginResponseDto = authService.login(EXPECTED_USERNAME, "password");
+
+        assertAll(
+                () -> checkAccessAndRefreshTokenFieldsInDto(actualUserLoginResponseDto),
+                () -> assertEquals(LocalDateTime.MAX, actualUserLoginResponseDto.getAccessTokenExpirationDate()),
+                () -> verify(userService).authenticate(EXPECTED_USERNAME, "password")
+        );
+    }
+
+    @Test
+    void login_whenCredentialsAreInvalid_shouldNotCreateTokens() {
+        when(userService.authenticate(anyString(), anyString())).thenThrow(new BadCredentialsException(""));
+
+        assertAll(
+                () -> assertThrows(BadCredentialsException.class, () -> authService.login(EXPECTED_USERNAME, "wrong")),
+                () -> verifyNoInteractions(jwtTokenService, refreshTokenService)
+        );
+    }
+
     private UserLoginResponse createTestDto() {
         var dto = new UserLoginResponse();
         dto.setEmail("user@mail.ua");
@@ -80,8 +109,8 @@ class AuthServiceTest {
     }
 
     private void mockJwtTokenServiceForCreationAccessAndRefreshTokens() {
-        when(jwtTokenService.createAccessToken(anyString(), any(Role.class))).thenReturn(JWT_TOKEN);
-        when(jwtTokenService.getAccessTokenExpiration(anyString())).thenReturn(LocalDateTime.MAX);
+        when(jwtTokenService.issueAccessToken(anyString(), any(Role.class)))
+                .thenReturn(new JwtTokenService.AccessToken(JWT_TOKEN, LocalDateTime.MAX));
         when(jwtTokenService.getRefreshTokenExpiration(any(ZonedDateTime.class))).thenReturn(REFRESH_TOKEN);
     }
 
@@ -99,14 +128,19 @@ class AuthServiceTest {
 
     @Test
     void renewAccessTokenByRefresh_whenRefreshTokenNotEmpty_shouldCreateNewAccessToken() throws RefreshTokenException {
-        when(refreshTokenService.renewAccessTokenByRefresh(any())).thenReturn(Optional.of(JWT_TOKEN));
+        var session = new RefreshTokenSession(UUID.randomUUID(), EXPECTED_USERNAME, "ROLE_USER", Locale.ENGLISH,
+                LocalDateTime.MAX);
+        when(refreshTokenService.findSession(any())).thenReturn(Optional.of(session));
+        when(jwtTokenService.issueAccessToken(anyString(), anyString()))
+                .thenReturn(new JwtTokenService.AccessToken(JWT_TOKEN, LocalDateTime.MAX));
 
         var refreshTokenDto = authService.renewAccessTokenByRefresh(REFRESH_TOKEN);
 
         assertAll(
                 () -> checkAccessAndRefreshTokenFieldsInDto(refreshTokenDto),
-                () -> verify(refreshTokenService).renewAccessTokenByRefresh(REFRESH_TOKEN),
-                () -> verify(jwtTokenService).getAccessTokenExpiration(JWT_TOKEN),
+                () -> verify(refreshTokenService).findSession(REFRESH_TOKEN),
+                () -> verify(userService).updatePreferableLanguage(session),
+                () -> verify(jwtTokenService).issueAccessToken(EXPECTED_USERNAME, "ROLE_USER"),
                 () -> verify(jwtTokenService).getRefreshTokenExpiration(any(ZonedDateTime.class))
         );
     }
@@ -119,12 +153,9 @@ class AuthServiceTest {
 
     @Test
     void renewAccessTokenByRefresh_whenRefreshTokenIsEmpty_shouldThrowRefreshTokenException() {
-        when(refreshTokenService.renewAccessTokenByRefresh(anyString()))
-                .thenAnswer(i -> Optional.of(i.getArguments()[0]));
-
         assertAll(
                 () -> assertThrows(RefreshTokenException.class, () -> authService.renewAccessTokenByRefresh("")),
-                () -> verifyNoInteractions(jwtTokenService)
+                () -> verifyNoInteractions(refreshTokenService, jwtTokenService)
         );
     }
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package space.obminyashka.items_exchange.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder.BCryptVersion;
+import space.obminyashka.items_exchange.service.util.BoundedBCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedBCryptPasswordEncoderTest {
+
+    private static final String PASSWORD = "xY3#mN8!pQ";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BoundedBCryptPasswordEncoder passwordEncoder =
+            new BoundedBCryptPasswordEncoder(BCryptVersion.$2A, 5, 1, 4, meterRegistry);
+
+    @Test
+    void encode_shouldHashOnDedicatedPoolAndRecordQueueTime() {
+        final var encoded = passwordEncoder.encode(PASSWORD);
+
+        assertAll(
+                () -> assertTrue(encoded.startsWith("$2a$05$")),
+                () -> assertTrue(passwordEncoder.matches(PASSWORD, encoded)),
+                () -> assertFalse(passwordEncoder.matches(PASSWORD + "1", encoded)),
+                () -> assertEquals(3, meterRegistry.get("password.hashing.queue.time").timer().count())
+        );
+    }
+
+    @Test
+    void upgradeEncoding_whenHashIsWeakerThanConfigured_shouldRequestRehash() {
+        final var weakHash = new BCryptPasswordEncoder(BCryptVersion.$2A, 4).encode(PASSWORD);
+
+        assertAll(
+                () -> assertTrue(passwordEncoder.upgradeEncoding(weakHash)),
+                () -> assertFalse(passwordEncoder.upgradeEncoding(passwordEncoder.encode(PASSWORD)))
+        );
+    }
+}
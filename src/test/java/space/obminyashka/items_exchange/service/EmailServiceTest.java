@@ -16,7 +16,7 @@ import space.obminyashka.items_exchange.repository.EmailConfirmationCodeReposito
 import space.obminyashka.items_exchange.repository.UserRepository;
 import space.obminyashka.items_exchange.rest.exception.not_found.EmailValidationCodeNotFoundException;
 import space.obminyashka.items_exchange.repository.model.EmailConfirmationCode;
-import space.obminyashka.items_exchange.service.impl.SendGridService;
+import space.obminyashka.items_exchange.service.impl.MailServiceImpl;
 import space.obminyashka.items_exchange.rest.response.message.MessageSourceProxy;
 import space.obminyashka.items_exchange.service.util.EmailType;
 
@@ -42,7 +42,7 @@ class EmailServiceTest {
     @Captor
     private ArgumentCaptor<UUID> IdArgumentCaptor;
     @InjectMocks
-    private SendGridService sendGridService;
+    private MailServiceImpl mailService;
     @InjectMocks
     private MessageSourceProxy messageSourceProxy;
 
@@ -55,7 +55,7 @@ class EmailServiceTest {
     void validateEmail_whenConfirmationCodeFound_thenShouldReturn() throws EmailValidationCodeNotFoundException {
         final var exceptedConfirmCode = new EmailConfirmationCode(EXPECTED_ID, null, 1, EmailType.REGISTRATION.name());
         when(emailConfirmationCodeRepository.findById(EXPECTED_ID)).thenReturn(Optional.of(exceptedConfirmCode));
-        sendGridService.validateEmail(EXPECTED_ID);
+        mailService.validateEmail(EXPECTED_ID);
 
         verify(userRepository).setValidatedEmailToUserByEmailId(IdArgumentCaptor.capture());
         assertEquals(exceptedConfirmCode.getId(), IdArgumentCaptor.getValue());
@@ -65,7 +65,7 @@ class EmailServiceTest {
     @MethodSource("exception_whenEmailNotFoundOrExpiryDateOut")
     void testValidateEmail_whenServiceThrewException_shouldCatchException(EmailConfirmationCode email, Exception expectedException) {
         when(emailConfirmationCodeRepository.findById(EXPECTED_ID)).thenReturn(Optional.ofNullable(email));
-        assertThrows(expectedException.getClass(), () -> sendGridService.validateEmail(EXPECTED_ID));
+        assertThrows(expectedException.getClass(), () -> mailService.validateEmail(EXPECTED_ID));
     }
 
     private static Stream<Arguments> exception_whenEmailNotFoundOrExpiryDateOut() {
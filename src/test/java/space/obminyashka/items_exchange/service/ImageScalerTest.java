@@ -0,0 +1,46 @@
+package space.obminyashka.items_exchange.service;
+
+import org.junit.jupiter.api.Test;
+import space.obminyashka.items_exchange.service.util.ImageScaler;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageScalerTest {
+
+    @Test
+    void scale_whenManyHalvingStepsRequired_shouldReturnOpaqueImageOfTargetSize() {
+        var source = filledImage(4000, 3000, BufferedImage.TYPE_3BYTE_BGR, new Color(200, 40, 40));
+
+        var result = ImageScaler.scale(source, 400, 300);
+
+        assertAll(
+                () -> assertEquals(400, result.getWidth()),
+                () -> assertEquals(300, result.getHeight()),
+                () -> assertEquals(BufferedImage.TYPE_INT_RGB, result.getType()),
+                () -> assertEquals(new Color(200, 40, 40).getRGB(), result.getRGB(200, 150)),
+                () -> assertEquals(new Color(200, 40, 40).getRGB(), result.getRGB(399, 299))
+        );
+    }
+
+    @Test
+    void scale_whenSourceIsTransparent_shouldFillBackgroundWithWhite() {
+        var source = filledImage(600, 600, BufferedImage.TYPE_INT_ARGB, new Color(0, 0, 0, 0));
+
+        var result = ImageScaler.scale(source, 300, 300);
+
+        assertEquals(Color.WHITE.getRGB(), result.getRGB(150, 150));
+    }
+
+    private static BufferedImage filledImage(int width, int height, int type, Color color) {
+        var image = new BufferedImage(width, height, type);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setComposite(AlphaComposite.Src);
+        graphics.setColor(color);
+        graphics.fillRect(0, 0, width, height);
+        graphics.dispose();
+        return image;
+    }
+}
@@ -1,5 +1,7 @@
 package space.obminyashka.items_exchange.service;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,20 +11,29 @@ import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.web.multipart.MultipartFile;
 import space.obminyashka.items_exchange.repository.ImageRepository;
+import space.obminyashka.items_exchange.repository.projection.ImageResourceProjection;
 import space.obminyashka.items_exchange.rest.exception.ElementsNumberExceedException;
 import space.obminyashka.items_exchange.rest.exception.UnsupportedMediaTypeException;
 import space.obminyashka.items_exchange.rest.response.ImageView;
 import space.obminyashka.items_exchange.repository.model.Image;
+import space.obminyashka.items_exchange.service.util.EncodedImage;
+import space.obminyashka.items_exchange.service.util.ImageVariant;
+import space.obminyashka.items_exchange.service.util.SupportedMediaTypes;
 import space.obminyashka.items_exchange.util.BasicImageCreator;
 
+import javax.imageio.ImageIO;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.lang.reflect.UndeclaredThrowableException;
-import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
+import static space.obminyashka.items_exchange.rest.api.ApiKey.IMAGE_LEGACY_CONTENT;
 
 @SpringBootTest
 class ImageServiceIntegrationTest extends BasicImageCreator{
@@ -30,6 +41,10 @@ class ImageServiceIntegrationTest extends BasicImageCreator{
     private ImageRepository imageRepository;
     @Autowired
     private ImageService imageService;
+    @Autowired
+    private ImageStorage imageStorage;
+    @Autowired
+    private MeterRegistry meterRegistry;
     private Image jpeg;
     private MockMultipartFile testJpg;
     private MockMultipartFile testPng;
@@ -37,7 +52,9 @@ class ImageServiceIntegrationTest extends BasicImageCreator{
 
     @BeforeEach
     void setUp() throws IOException {
-        jpeg = new Image("test jpeg".getBytes(), null);
+        jpeg = new Image();
+        jpeg.setId(UUID.randomUUID());
+        jpeg.setResource("test jpeg".getBytes());
         testJpg = getImageBytes(MediaType.IMAGE_JPEG);
         testPng = getImageBytes(MediaType.IMAGE_PNG);
         testTxt = new MockMultipartFile("image", "text.txt", MediaType.TEXT_PLAIN_VALUE, "plain text".getBytes());
@@ -45,11 +62,16 @@ class ImageServiceIntegrationTest extends BasicImageCreator{
 
     @Test
     void getImagesResourceByAdvertisementId_shouldReturnAllImagesLinkedToAdvertisement_whenAdvertisementExistsAndContainsImages() {
-        when(imageRepository.getImagesResourceByAdvertisementId(any()))
-                .thenReturn(Collections.singletonList(jpeg.getResource()));
+        var storedResource = "stored jpeg".getBytes();
+        var storedImageHash = imageStorage.store(storedResource);
+        when(imageRepository.getImagesResourceByAdvertisementId(any())).thenReturn(List.of(
+                new ImageResource(UUID.randomUUID(), null, jpeg.getResource()),
+                new ImageResource(UUID.randomUUID(), storedImageHash, null)));
 
         List<byte[]> result = imageService.getImagesResourceByAdvertisementId(UUID.randomUUID());
-        assertEquals(jpeg.getResource(), result.getFirst(), "Images' resources should be equal");
+        assertAll("Images' resources should be equal",
+                () -> assertArrayEquals(jpeg.getResource(), result.get(0)),
+                () -> assertArrayEquals(storedResource, result.get(1)));
         verify(imageRepository).getImagesResourceByAdvertisementId(any());
     }
 
@@ -60,7 +82,7 @@ class ImageServiceIntegrationTest extends BasicImageCreator{
         ImageView imageView = imageService.getByAdvertisementId(UUID.randomUUID()).getFirst();
         assertAll("Checking objects' data equal",
                 () -> assertEquals(jpeg.getId(), imageView.getId()),
-                () -> assertArrayEquals(jpeg.getResource(), imageView.getResource()));
+                () -> assertEquals(IMAGE_LEGACY_CONTENT.replace("{image_id}", jpeg.getId().toString()), imageView.getUrl()));
         verify(imageRepository).findByAdvertisementId(any());
     }
 
@@ -81,6 +103,7 @@ class ImageServiceIntegrationTest extends BasicImageCreator{
 
         imageService.saveToAdvertisement(UUID.randomUUID(), testImages);
         verify(imageRepository, times(testImages.size())).createImage(any(), any(), any());
+        verify(imageRepository, timeout(5000).times(testImages.size())).updateVariantHashes(any(), any(), any(), any());
     }
 
     @Test
@@ -113,4 +136,53 @@ class ImageServiceIntegrationTest extends BasicImageCreator{
         byte[] result = imageService.scale(bytes);
         assertTrue(bytes.length >= result.length, "Images' resources should have a smaller size");
     }
-}
\ No newline at end of file
+
+    @Test
+    void createVariants_shouldScaleOnlyImagesLargerThanVariantEdge() throws IOException {
+        byte[] bytes = testJpg.getBytes();
+        Map<ImageVariant, EncodedImage> variants = imageService.createVariants(bytes);
+        assertAll("Every variant should be created",
+                () -> assertEquals(Set.of(ImageVariant.values()), variants.keySet()),
+                () -> assertTrue(bytes.length > variants.get(ImageVariant.FULL).content().length),
+                () -> assertArrayEquals(variants.get(ImageVariant.FULL).content(), variants.get(ImageVariant.MEDIUM).content()),
+                () -> assertTrue(bytes.length > variants.get(ImageVariant.THUMBNAIL).content().length));
+    }
+
+    @Test
+    void createVariants_shouldDecodeImageOnlyOnce() throws IOException {
+        long decodedBefore = countDecodedImages();
+        imageService.createVariants(testJpg.getBytes());
+        assertEquals(decodedBefore + 1, countDecodedImages());
+    }
+
+    @Test
+    void createVariants_shouldStoreWebpAlternativeOfScaledVariant() throws IOException {
+        byte[] webp = imageService.createVariants(testJpg.getBytes()).get(ImageVariant.THUMBNAIL)
+                .alternatives().get("webp");
+
+        assertNotNull(webp, "A WebP alternative should be created by the bundled ImageIO writer");
+        assertEquals(Optional.of(SupportedMediaTypes.WEBP), SupportedMediaTypes.detect(webp));
+        assertNotNull(ImageIO.read(new ByteArrayInputStream(webp)), "The WebP alternative should be readable");
+    }
+
+    @Test
+    void createVariants_whenImageCanNotBeDecoded_shouldKeepOriginalForEveryVariant() {
+        byte[] broken = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 16, 'J', 'F', 'I', 'F', 0, 1, 2, 3};
+
+        Map<ImageVariant, EncodedImage> variants = imageService.createVariants(broken);
+
+        assertAll("The original should stand for every variant",
+                () -> assertEquals(Set.of(ImageVariant.values()), variants.keySet()),
+                () -> variants.values().forEach(variant -> assertArrayEquals(broken, variant.content())));
+    }
+
+    private long countDecodedImages() {
+        return Optional.ofNullable(meterRegistry.find("image.decoded.bytes").summary())
+                .map(DistributionSummary::count)
+                .orElse(0L);
+    }
+
+    private record ImageResource(UUID getId, String getResourceHash, byte[] getResource)
+            implements ImageResourceProjection {
+    }
+}
@@ -0,0 +1,49 @@
+package space.obminyashka.items_exchange.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import space.obminyashka.items_exchange.service.impl.InMemoryTokenRevocationStore;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryTokenRevocationStoreTest {
+
+    private static final long BUCKET_MILLIS = 100;
+
+    private SimpleMeterRegistry meterRegistry;
+    private InMemoryTokenRevocationStore tokenRevocationStore;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tokenRevocationStore = new InMemoryTokenRevocationStore(BUCKET_MILLIS, meterRegistry);
+    }
+
+    @Test
+    void revoke_whenTokenIsNotExpired_shouldKeepItUntilExpiration() throws InterruptedException {
+        tokenRevocationStore.revoke("short", Instant.now().plusMillis(BUCKET_MILLIS));
+        tokenRevocationStore.revoke("long", Instant.now().plusSeconds(60));
+
+        tokenRevocationStore.removeExpired();
+        assertTrue(tokenRevocationStore.isRevoked("short"));
+
+        Thread.sleep(3 * BUCKET_MILLIS);
+        tokenRevocationStore.removeExpired();
+        assertAll(
+                () -> assertFalse(tokenRevocationStore.isRevoked("short")),
+                () -> assertTrue(tokenRevocationStore.isRevoked("long")),
+                () -> assertEquals(1, meterRegistry.get("jwt.revocations.size").gauge().value()),
+                () -> assertEquals(1, meterRegistry.get("jwt.revocations.evicted").counter().count())
+        );
+    }
+
+    @Test
+    void revoke_whenTokenIsExpired_shouldNotKeepIt() {
+        tokenRevocationStore.revoke("expired", Instant.now().minusSeconds(1));
+
+        assertFalse(tokenRevocationStore.isRevoked("expired"));
+    }
+}
@@ -0,0 +1,135 @@
+package space.obminyashka.items_exchange.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import space.obminyashka.items_exchange.service.impl.LocalFileImageStorage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalFileImageStorageTest {
+
+    private static final byte[] IMAGE = "test image png".getBytes();
+
+    @TempDir
+    private Path root;
+    private LocalFileImageStorage imageStorage;
+
+    @BeforeEach
+    void setUp() {
+        imageStorage = new LocalFileImageStorage(root.toString());
+    }
+
+    @Test
+    void store_shouldSaveContentIntoShardedDirectoryNamedByHash() {
+        var hash = imageStorage.store(IMAGE);
+
+        assertAll(
+                () -> assertTrue(hash.matches("[0-9a-f]{64}")),
+                () -> assertTrue(Files.exists(root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash))),
+                () -> assertArrayEquals(IMAGE, imageStorage.load(hash).orElseThrow())
+        );
+    }
+
+    @Test
+    void store_whenSameContentStoredTwice_shouldKeepSingleFile() throws IOException {
+        var firstHash = imageStorage.store(IMAGE);
+        var secondHash = imageStorage.store(IMAGE.clone());
+
+        try (var files = Files.walk(root)) {
+            assertAll(
+                    () -> assertEquals(firstHash, secondHash),
+                    () -> assertEquals(1, files.filter(Files::isRegularFile).count())
+            );
+        }
+    }
+
+    @Test
+    void store_whenContentIsStreamed_shouldUseSameHashAndLeaveNoTemporaryFiles() throws IOException {
+        var streamedHash = imageStorage.store(new ByteArrayInputStream(IMAGE));
+        var secondStreamedHash = imageStorage.store(new ByteArrayInputStream(IMAGE));
+
+        try (var files = Files.walk(root)) {
+            assertAll(
+                    () -> assertEquals(imageStorage.store(IMAGE), streamedHash),
+                    () -> assertEquals(streamedHash, secondStreamedHash),
+                    () -> assertArrayEquals(IMAGE, imageStorage.load(streamedHash).orElseThrow()),
+                    () -> assertEquals(1, files.filter(Files::isRegularFile).count())
+            );
+        }
+    }
+
+    @Test
+    void load_whenImageIsMissingOrHashIsInvalid_shouldReturnEmpty() {
+        assertAll(
+                () -> assertTrue(imageStorage.load("a".repeat(64)).isEmpty()),
+                () -> assertTrue(imageStorage.load("../../etc/passwd").isEmpty()),
+                () -> assertFalse(imageStorage.exists(null))
+        );
+    }
+
+    @Test
+    void loadOrLegacy_shouldPreferStoredContentAndFallbackToLegacyOne() {
+        var hash = imageStorage.store(IMAGE);
+        var legacy = "legacy".getBytes();
+
+        assertAll(
+                () -> assertArrayEquals(IMAGE, imageStorage.loadOrLegacy(hash, legacy)),
+                () -> assertArrayEquals(legacy, imageStorage.loadOrLegacy(null, legacy)),
+                () -> assertArrayEquals(new byte[0], imageStorage.loadOrLegacy(null, null))
+        );
+    }
+
+    @Test
+    void storeAlternative_shouldKeepAlternativeNextToImage() {
+        var hash = imageStorage.store(IMAGE);
+        var webp = "test image webp".getBytes();
+        imageStorage.storeAlternative(hash, "webp", webp);
+
+        assertAll(
+                () -> assertArrayEquals(webp, imageStorage.loadAlternativeAsResource(hash, "webp").orElseThrow().getContentAsByteArray()),
+                () -> assertTrue(imageStorage.loadAlternativeAsResource(hash, "avif").isEmpty()),
+                () -> assertTrue(imageStorage.loadAlternativeAsResource(hash, "../x").isEmpty()),
+                () -> assertThrows(IllegalArgumentException.class, () -> imageStorage.storeAlternative(hash, "../x", webp))
+        );
+    }
+
+    @Test
+    void delete_shouldRemoveImageWithAlternativesAndKeepOtherImages() {
+        var hash = imageStorage.store(IMAGE);
+        var otherHash = imageStorage.store("other image".getBytes());
+        imageStorage.storeAlternative(hash, "webp", "test image webp".getBytes());
+
+        imageStorage.delete(hash);
+        imageStorage.delete(hash);
+
+        assertAll(
+                () -> assertFalse(imageStorage.exists(hash)),
+                () -> assertTrue(imageStorage.loadAlternativeAsResource(hash, "webp").isEmpty()),
+                () -> assertTrue(imageStorage.exists(otherHash))
+        );
+    }
+
+    @Test
+    void store_whenSameContentStoredAgain_shouldRefreshLastStoredTime() throws IOException {
+        var hash = imageStorage.store(IMAGE);
+        var image = root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+        var longAgo = Instant.now().minus(1, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+        Files.setLastModifiedTime(image, FileTime.from(longAgo));
+        assertEquals(Optional.of(longAgo), imageStorage.lastStored(hash));
+
+        imageStorage.store(new ByteArrayInputStream(IMAGE));
+
+        assertTrue(imageStorage.lastStored(hash).orElseThrow().isAfter(longAgo));
+        assertTrue(imageStorage.lastStored("f".repeat(64)).isEmpty());
+    }
+}
@@ -0,0 +1,173 @@
+package space.obminyashka.items_exchange.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import space.obminyashka.items_exchange.repository.OutboxMailRepository;
+import space.obminyashka.items_exchange.repository.model.OutboxMail;
+import space.obminyashka.items_exchange.rest.exception.EmailSendingException;
+import space.obminyashka.items_exchange.service.util.EmailType;
+import space.obminyashka.items_exchange.service.util.MailOutboxDispatcher;
+import space.obminyashka.items_exchange.service.util.OutgoingMail;
+
+import java.time.LocalDateTime;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MailOutboxDispatcherTest {
+    private static final int BATCH_SIZE = 2;
+    private static final int MAX_BATCHES_PER_RUN = 3;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long INITIAL_BACKOFF_MS = 1000;
+    private static final long MAX_BACKOFF_MS = 3000;
+    @Mock
+    private OutboxMailRepository outboxMailRepository;
+    @Mock
+    private MailSender mailSender;
+    private SimpleMeterRegistry meterRegistry;
+    private MailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = new MailOutboxDispatcher(outboxMailRepository, mailSender, meterRegistry,
+                BATCH_SIZE, MAX_BATCHES_PER_RUN, MAX_ATTEMPTS, INITIAL_BACKOFF_MS, MAX_BACKOFF_MS, 60000);
+        lenient().when(outboxMailRepository.claim(any(), any(), any())).thenReturn(1);
+        lenient().when(outboxMailRepository.findOldestPendingCreated()).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void dispatch_whenBatchIsFull_shouldSendNextBatchAndDeleteSentMails() {
+        final var first = createOutboxMail(0);
+        final var second = createOutboxMail(0);
+        final var third = createOutboxMail(0);
+        when(outboxMailRepository.findDue(any(), any())).thenReturn(List.of(first, second), List.of(third));
+
+        final var sent = dispatcher.dispatch();
+
+        assertAll(
+                () -> assertEquals(3, sent),
+                () -> verify(mailSender).sendAll(argThat(mails -> mails.size() == 2)),
+                () -> verify(mailSender).sendAll(argThat(mails -> mails.size() == 1)),
+                () -> verify(outboxMailRepository).deleteAllByIdInBatch(List.of(first.getId(), second.getId())),
+                () -> verify(outboxMailRepository).deleteAllByIdInBatch(List.of(third.getId())),
+                () -> assertEquals(3, meterRegistry.get("mail.outbox.sent").counter().count())
+        );
+    }
+
+    @Test
+    void dispatch_whenBatchesAreAlwaysFull_shouldStopAfterMaxBatchesPerRun() {
+        when(outboxMailRepository.findDue(any(), any()))
+                .thenAnswer(invocation -> List.of(createOutboxMail(0), createOutboxMail(0)));
+
+        final var sent = dispatcher.dispatch();
+
+        assertAll(
+                () -> assertEquals(BATCH_SIZE * MAX_BATCHES_PER_RUN, sent),
+                () -> verify(outboxMailRepository, times(MAX_BATCHES_PER_RUN)).findDue(any(), any())
+        );
+    }
+
+    @Test
+    void dispatch_whenMailIsTakenByAnotherNode_shouldSkipIt() {
+        final var mail = createOutboxMail(0);
+        when(outboxMailRepository.findDue(any(), any())).thenReturn(List.of(mail));
+        when(outboxMailRepository.claim(any(), any(), any())).thenReturn(0);
+
+        assertEquals(0, dispatcher.dispatch());
+        verifyNoInteractions(mailSender);
+    }
+
+    @Test
+    void dispatch_whenSomeMailsFailed_shouldDeleteOnlySentMails() {
+        final var sentMail = createOutboxMail(0);
+        final var failedMail = createOutboxMail(0);
+        when(outboxMailRepository.findDue(any(), any())).thenReturn(List.of(sentMail, failedMail), List.of());
+        when(mailSender.sendAll(any())).thenAnswer(invocation -> {
+            final List<OutgoingMail> mails = invocation.getArgument(0);
+            final Map<OutgoingMail, EmailSendingException> failed = new IdentityHashMap<>();
+            mails.stream()
+                    .filter(mail -> mail.codeId().equals(failedMail.getCodeId()))
+                    .forEach(mail -> failed.put(mail, new EmailSendingException("Expected exception!")));
+            return failed;
+        });
+
+        assertEquals(1, dispatcher.dispatch());
+
+        assertAll(
+                () -> verify(outboxMailRepository).deleteAllByIdInBatch(List.of(sentMail.getId())),
+                () -> verify(outboxMailRepository).reschedule(eq(failedMail.getId()), eq(1), any(), eq("Expected exception!"))
+        );
+    }
+
+    @Test
+    void dispatch_whenSendingFailed_shouldRetryWithExponentialBackoff() {
+        final var mail = createOutboxMail(1);
+        when(outboxMailRepository.findDue(any(), any())).thenReturn(List.of(mail));
+        doThrow(new EmailSendingException("Expected exception!")).when(mailSender).sendAll(any());
+        final var expectedNextAttempt = LocalDateTime.now().plusNanos(INITIAL_BACKOFF_MS * 2 * 1_000_000);
+
+        assertEquals(0, dispatcher.dispatch());
+
+        assertAll(
+                () -> verify(outboxMailRepository).reschedule(eq(mail.getId()), eq(2),
+                        argThat(next -> !next.isBefore(expectedNextAttempt)
+                                && next.isBefore(expectedNextAttempt.plusSeconds(1))),
+                        eq("Expected exception!")),
+                () -> verify(outboxMailRepository, never()).deleteAllByIdInBatch(any()),
+                () -> assertEquals(1, meterRegistry.get("mail.outbox.retried").counter().count())
+        );
+    }
+
+    @Test
+    void dispatch_whenLastAttemptFailed_shouldStopRetrying() {
+        final var mail = createOutboxMail(MAX_ATTEMPTS - 1);
+        when(outboxMailRepository.findDue(any(), any())).thenReturn(List.of(mail));
+        doThrow(new EmailSendingException("Expected exception!")).when(mailSender).sendAll(any());
+
+        dispatcher.dispatch();
+
+        assertAll(
+                () -> verify(outboxMailRepository).reschedule(eq(mail.getId()), eq(MAX_ATTEMPTS), isNull(), any()),
+                () -> assertEquals(1, meterRegistry.get("mail.outbox.failed").counter().count())
+        );
+    }
+
+    @Test
+    void dispatch_shouldExposeAgeOfOldestPendingMail() {
+        when(outboxMailRepository.findDue(any(), any())).thenReturn(List.of());
+        when(outboxMailRepository.findOldestPendingCreated()).thenReturn(Optional.of(LocalDateTime.now().minusMinutes(2)));
+
+        dispatcher.dispatch();
+
+        assertEquals(120, meterRegistry.get("mail.outbox.lag").gauge().value(), 1);
+    }
+
+    private static OutboxMail createOutboxMail(int attempts) {
+        final var mail = new OutboxMail();
+        mail.setId(UUID.randomUUID());
+        mail.setEmailTo("test@mail.ua");
+        mail.setEmailType(EmailType.REGISTRATION.name());
+        mail.setCodeId(UUID.randomUUID());
+        mail.setHost("obminyashka.space");
+        mail.setLanguage(Locale.ENGLISH);
+        mail.setAttempts(attempts);
+        mail.setNextAttemptAt(LocalDateTime.now());
+        return mail;
+    }
+}
@@ -5,6 +5,7 @@ import com.sendgrid.Request;
 import com.sendgrid.Response;
 import com.sendgrid.SendGrid;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -15,14 +16,24 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.MessageSource;
+import space.obminyashka.items_exchange.rest.exception.EmailSendingException;
 import space.obminyashka.items_exchange.service.impl.SendGridService;
 import space.obminyashka.items_exchange.service.util.EmailType;
+import space.obminyashka.items_exchange.service.util.OutgoingMail;
 import space.obminyashka.items_exchange.rest.response.message.MessageSourceProxy;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -32,6 +43,8 @@ class MailServiceTest {
     private MessageSourceProxy messageSourceProxy;
     @Mock
     private SendGrid sendGrid;
+    @Mock
+    private MessageSource messageSource;
     @Captor
     private ArgumentCaptor<Request> requestCapture;
     @InjectMocks
@@ -39,7 +52,7 @@ class MailServiceTest {
 
     @BeforeEach
     void setUp() {
-        messageSourceProxy.setMSource(mock(MessageSource.class));
+        messageSourceProxy.setMSource(messageSource);
     }
 
     @ParameterizedTest
@@ -49,14 +62,117 @@ class MailServiceTest {
 
         final var emailTo = "test@mail.ua";
         var expectedHost = "https://obminyashka.space";
-        var confirmationCode = mailService.sendEmailTemplateAndGenerateConfrimationCode(emailTo, emailType, expectedHost);
+        mailService.send(new OutgoingMail(emailTo, emailType, UUID.randomUUID(), expectedHost, Locale.ENGLISH));
 
         verify(sendGrid).api(requestCapture.capture());
         Request capturedRequest = requestCapture.getValue();
         verify(sendGrid).api(argThat(request -> capturedRequest.getMethod() == Method.POST &&
                 capturedRequest.getEndpoint().equals("mail/send") &&
                 capturedRequest.getBody().contains(emailTo)));
-        assertNotNull(confirmationCode);
+    }
+
+    @Test
+    void sendMail_whenSendGridFailed_shouldThrowEmailSendingException() throws IOException {
+        when(sendGrid.api(any())).thenThrow(new IOException("Expected exception!"));
+        final var mail = new OutgoingMail("test@mail.ua", EmailType.REGISTRATION, UUID.randomUUID(),
+                "https://obminyashka.space", Locale.ENGLISH);
+
+        final var exception = assertThrows(EmailSendingException.class, () -> mailService.send(mail));
+        assertEquals("Expected exception!", exception.getCause().getMessage());
+    }
+
+    @Test
+    void sendAll_shouldGroupMailsOfSameTypeAndLocaleIntoRequestsOfUpToThousandPersonalizations() throws IOException {
+        when(sendGrid.api(any())).thenReturn(new Response());
+        final var mails = new ArrayList<OutgoingMail>();
+        IntStream.range(0, 2500).forEach(i -> mails.add(createMail("user" + i + "@mail.ua", EmailType.REGISTRATION)));
+        mails.add(createMail("reset@mail.ua", EmailType.RESET));
+
+        final var failed = mailService.sendAll(mails);
+
+        verify(sendGrid, times(4)).api(requestCapture.capture());
+        assertAll(
+                () -> assertTrue(failed.isEmpty()),
+                () -> assertEquals(List.of(1000, 1000, 500, 1), requestCapture.getAllValues().stream()
+                        .map(request -> countPersonalizations(request.getBody()))
+                        .toList()),
+                () -> verify(messageSource, times(2 * SendGridService.EMAIL_TEMPLATE_KEYS.size()))
+                        .getMessage(anyString(), any(), any(Locale.class))
+        );
+    }
+
+    @Test
+    void sendAll_whenRequestFailed_shouldReturnOnlyMailsOfThatRequest() throws IOException {
+        when(sendGrid.api(any()))
+                .thenReturn(new Response())
+                .thenThrow(new IOException("Expected exception!"));
+        final var registration = createMail("user@mail.ua", EmailType.REGISTRATION);
+        final var reset = createMail("reset@mail.ua", EmailType.RESET);
+
+        final var failed = mailService.sendAll(List.of(registration, reset));
+
+        assertEquals(Set.of(reset), failed.keySet());
+    }
+
+    @Test
+    void sendAll_whenRequestRejected_shouldResendHalvesAndReturnOnlyRejectedMail() throws IOException {
+        final var rejected = createMail("invalid@mail", EmailType.REGISTRATION);
+        when(sendGrid.api(any())).thenAnswer(invocation -> {
+            final Request request = invocation.getArgument(0);
+            return request.getBody().contains(rejected.emailTo())
+                    ? new Response(400, "{\"errors\":[{\"message\":\"Invalid email\"," +
+                    "\"field\":\"personalizations.0.to.0.email\"}]}", Map.of())
+                    : new Response(202, "", Map.of());
+        });
+        final var mails = new ArrayList<OutgoingMail>();
+        IntStream.range(0, 4).forEach(i -> mails.add(createMail("user" + i + "@mail.ua", EmailType.REGISTRATION)));
+        mails.add(rejected);
+
+        final var failed = mailService.sendAll(mails);
+
+        assertAll(
+                () -> assertEquals(Set.of(rejected), failed.keySet()),
+                () -> assertTrue(failed.get(rejected).getCause().getMessage().contains("Invalid email")),
+                () -> verify(sendGrid, times(7)).api(any())
+        );
+    }
+
+    @Test
+    void sendAll_whenRequestRejectedNotForPersonalizations_shouldFailWholeRequestWithoutSplitting() throws IOException {
+        when(sendGrid.api(any())).thenReturn(new Response(400,
+                "{\"errors\":[{\"message\":\"The template_id must be a valid GUID\",\"field\":\"template_id\"}]}",
+                Map.of()));
+        final var mails = new ArrayList<OutgoingMail>();
+        IntStream.range(0, 5).forEach(i -> mails.add(createMail("user" + i + "@mail.ua", EmailType.REGISTRATION)));
+
+        final var failed = mailService.sendAll(mails);
+
+        assertAll(
+                () -> assertEquals(5, failed.size()),
+                () -> verify(sendGrid).api(any())
+        );
+    }
+
+    @Test
+    void sendAll_whenServiceUnavailable_shouldFailWholeRequestWithoutSplitting() throws IOException {
+        when(sendGrid.api(any())).thenReturn(new Response(503, "", Map.of()));
+        final var mails = List.of(createMail("first@mail.ua", EmailType.REGISTRATION),
+                createMail("second@mail.ua", EmailType.REGISTRATION));
+
+        final var failed = mailService.sendAll(mails);
+
+        assertAll(
+                () -> assertEquals(2, failed.size()),
+                () -> verify(sendGrid).api(any())
+        );
+    }
+
+    private static OutgoingMail createMail(String emailTo, EmailType emailType) {
+        return new OutgoingMail(emailTo, emailType, UUID.randomUUID(), "obminyashka.space", Locale.ENGLISH);
+    }
+
+    private static int countPersonalizations(String body) {
+        return body.split("\"to\":").length - 1;
     }
 
     private static Stream<Arguments> listEmailType() {
@@ -1,18 +1,17 @@
 package space.obminyashka.items_exchange.service;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import space.obminyashka.items_exchange.repository.RefreshTokenRepository;
-import space.obminyashka.items_exchange.repository.model.RefreshToken;
-import space.obminyashka.items_exchange.repository.model.Role;
-import space.obminyashka.items_exchange.repository.model.User;
+import space.obminyashka.items_exchange.repository.projection.RefreshTokenSession;
 import space.obminyashka.items_exchange.service.impl.RefreshTokenServiceImpl;
+import space.obminyashka.items_exchange.service.util.RefreshTokenCache;
 
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -24,96 +23,102 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class RefreshTokenServiceTest {
     private final static String EXPECTED_USERNAME = "user";
-    private final static String EXPECTED_ACCESS_TOKEN = "access_token";
     private final static String EXPECTED_REFRESH_TOKEN = "refresh_token";
+    private final static String EXPECTED_REFRESH_TOKEN_HASH = JwtTokenService.hashRefreshToken(EXPECTED_REFRESH_TOKEN);
     private final static int ADD_HOUR_TO_CURRENT_TIME = 1;
     private final static int MINUS_HOUR_FROM_CURRENT_TIME= -1;
     @Mock
     private JwtTokenService jwtTokenService;
     @Mock
     private RefreshTokenRepository refreshTokenRepository;
-    @InjectMocks
     private RefreshTokenServiceImpl refreshTokenService;
 
+    @BeforeEach
+    void setUp() {
+        refreshTokenService = new RefreshTokenServiceImpl(jwtTokenService, refreshTokenRepository,
+                new RefreshTokenCache(60_000, 100));
+    }
 
     @Test
     void createRefreshToken_whenRefreshTokenIsNullOrDoesNotExistInDB_shouldCreateToken() {
-        var mockRefreshToken = new RefreshToken().setToken(null);
-        mockJwtRefreshTokenData(EXPECTED_REFRESH_TOKEN);
+        mockJwtRefreshTokenData();
 
-        final var actualRefreshToken = refreshTokenService.createRefreshToken(mockRefreshToken.getToken(), EXPECTED_USERNAME);
+        final var actualRefreshToken = refreshTokenService.createRefreshToken(null, EXPECTED_USERNAME);
 
         assertAll(
-                () -> assertEquals(EXPECTED_REFRESH_TOKEN, actualRefreshToken.getToken()),
-                () -> verify(jwtTokenService).generateRefreshToken(EXPECTED_USERNAME),
+                () -> assertEquals(EXPECTED_REFRESH_TOKEN, actualRefreshToken),
+                () -> verify(jwtTokenService).generateRefreshToken(),
                 () -> verify(jwtTokenService).generateRefreshTokenExpirationTime(),
                 () -> verify(refreshTokenRepository)
-                        .createRefreshToken(eq(EXPECTED_USERNAME), eq(EXPECTED_REFRESH_TOKEN), any())
+                        .createRefreshToken(eq(EXPECTED_USERNAME), eq(EXPECTED_REFRESH_TOKEN_HASH), any())
         );
     }
 
     @Test
     void createRefreshToken_whenRefreshTokenExistsInDB_shouldUpdateToken() {
-        var expectedRefreshToken = new RefreshToken().setToken("");
-        mockJwtRefreshTokenData(expectedRefreshToken.getToken());
+        mockJwtRefreshTokenData();
 
-        final var actualRefreshToken = refreshTokenService
-                .createRefreshToken(expectedRefreshToken.getToken(), EXPECTED_USERNAME);
+        final var actualRefreshToken = refreshTokenService.createRefreshToken("", EXPECTED_USERNAME);
 
         assertAll(
-                () -> assertEquals(expectedRefreshToken.getToken(), actualRefreshToken.getToken()),
-                () -> verify(jwtTokenService).generateRefreshToken(EXPECTED_USERNAME),
+                () -> assertEquals(EXPECTED_REFRESH_TOKEN, actualRefreshToken),
+                () -> verify(jwtTokenService).generateRefreshToken(),
                 () -> verify(jwtTokenService).generateRefreshTokenExpirationTime(),
                 () -> verify(refreshTokenRepository)
-                        .updateRefreshToken(eq(EXPECTED_USERNAME), eq(expectedRefreshToken.getToken()), any())
+                        .updateRefreshToken(eq(EXPECTED_USERNAME), eq(EXPECTED_REFRESH_TOKEN_HASH), any())
         );
     }
 
-    private void mockJwtRefreshTokenData(String refreshToken) {
-        when(jwtTokenService.generateRefreshToken(anyString())).thenReturn(refreshToken);
+    private void mockJwtRefreshTokenData() {
+        when(jwtTokenService.generateRefreshToken()).thenReturn(EXPECTED_REFRESH_TOKEN);
         when(jwtTokenService.generateRefreshTokenExpirationTime()).thenReturn(LocalDateTime.MAX);
     }
 
     @Test
-    void renewAccessTokenByRefreshToken_whenAccessTokenExpires_shouldRenewAccessToken() {
-        var existRefreshToken = createRefreshToken(ADD_HOUR_TO_CURRENT_TIME);
-        when(refreshTokenRepository.findByToken(any())).thenReturn(Optional.of(existRefreshToken));
-        when(jwtTokenService.createAccessToken(anyString(), any(Role.class))).thenReturn(EXPECTED_ACCESS_TOKEN);
+    void findSession_whenRefreshTokenIsNotExpired_shouldReturnSessionAndCacheIt() {
+        var existSession = createSession(ADD_HOUR_TO_CURRENT_TIME);
+        when(refreshTokenRepository.findSessionByTokenHash(anyString())).thenReturn(Optional.of(existSession));
 
-        var actualAccessToken = refreshTokenService.renewAccessTokenByRefresh(existRefreshToken.getToken());
+        var actualSession = refreshTokenService.findSession(EXPECTED_REFRESH_TOKEN);
+        var cachedSession = refreshTokenService.findSession(EXPECTED_REFRESH_TOKEN);
 
         assertAll(
-                () -> assertTrue(actualAccessToken.isPresent()),
-                () -> assertEquals(Optional.of(EXPECTED_ACCESS_TOKEN), actualAccessToken),
-                () -> verify(refreshTokenRepository).findByToken(existRefreshToken.getToken()),
-                () -> verify(jwtTokenService)
-                        .createAccessToken(EXPECTED_USERNAME, existRefreshToken.getUser().getRole())
+                () -> assertEquals(Optional.of(existSession), actualSession),
+                () -> assertEquals(Optional.of(existSession), cachedSession),
+                () -> verify(refreshTokenRepository).findSessionByTokenHash(EXPECTED_REFRESH_TOKEN_HASH),
+                () -> verifyNoMoreInteractions(refreshTokenRepository)
         );
     }
 
     @Test
-    void renewAccessTokenByRefreshToken_whenAccessTokenDoesNotExpiry_shouldNotRenewAccessToken() {
-        var existRefreshToken = createRefreshToken(MINUS_HOUR_FROM_CURRENT_TIME);
-        when(refreshTokenRepository.findByToken(any())).thenReturn(Optional.of(existRefreshToken));
+    void findSession_whenRefreshTokenIsExpired_shouldDeleteTokenAndReturnEmpty() {
+        var existSession = createSession(MINUS_HOUR_FROM_CURRENT_TIME);
+        when(refreshTokenRepository.findSessionByTokenHash(anyString())).thenReturn(Optional.of(existSession));
 
-        var actualAccessToken = refreshTokenService.renewAccessTokenByRefresh(existRefreshToken.getToken());
+        var actualSession = refreshTokenService.findSession(EXPECTED_REFRESH_TOKEN);
 
         assertAll(
-                () -> assertFalse(actualAccessToken.isPresent()),
-                () -> assertTrue(actualAccessToken.isEmpty()),
-                () -> verify(refreshTokenRepository).findByToken(existRefreshToken.getToken()),
+                () -> assertTrue(actualSession.isEmpty()),
+                () -> verify(refreshTokenRepository).deleteByTokenHash(EXPECTED_REFRESH_TOKEN_HASH),
                 () -> verifyNoInteractions(jwtTokenService)
         );
     }
 
-    private User createUser() {
-        return new User().setUsername("user").setRole(new Role(UUID.randomUUID(), "ROLE_USER", List.of()));
+    @Test
+    void findSession_whenUserLoggedOut_shouldNotReturnCachedSession() {
+        when(refreshTokenRepository.findSessionByTokenHash(anyString()))
+                .thenReturn(Optional.of(createSession(ADD_HOUR_TO_CURRENT_TIME)))
+                .thenReturn(Optional.empty());
+
+        refreshTokenService.findSession(EXPECTED_REFRESH_TOKEN);
+        refreshTokenService.deleteByUsername(EXPECTED_USERNAME);
+
+        assertTrue(refreshTokenService.findSession(EXPECTED_REFRESH_TOKEN).isEmpty());
     }
 
-    private RefreshToken createRefreshToken(int hours) {
-        var refreshToken = new RefreshToken().setExpiryDate(LocalDateTime.now().plusHours(hours));
-        refreshToken.setUser(createUser());
-        return refreshToken;
+    private RefreshTokenSession createSession(int hours) {
+        return new RefreshTokenSession(UUID.randomUUID(), EXPECTED_USERNAME, "ROLE_USER", Locale.ENGLISH,
+                LocalDateTime.now().plusHours(hours));
     }
 
     @Test
@@ -122,4 +127,4 @@ class RefreshTokenServiceTest {
 
         verify(refreshTokenRepository).deleteByUserUsername(EXPECTED_USERNAME);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,93 @@
+package space.obminyashka.items_exchange.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import space.obminyashka.items_exchange.repository.EmailConfirmationCodeRepository;
+import space.obminyashka.items_exchange.repository.OutboxMailRepository;
+import space.obminyashka.items_exchange.repository.RefreshTokenRepository;
+import space.obminyashka.items_exchange.service.impl.RetentionServiceImpl;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RetentionServiceTest {
+    private static final int CHUNK_SIZE = 10;
+    private static final int DAYS_TO_KEEP_EMAIL_CODES = 7;
+    private static final int DAYS_TO_KEEP_FAILED_MAILS = 3;
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+    @Mock
+    private EmailConfirmationCodeRepository emailConfirmationCodeRepository;
+    @Mock
+    private OutboxMailRepository outboxMailRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private RetentionService retentionService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        retentionService = new RetentionServiceImpl(refreshTokenRepository, emailConfirmationCodeRepository,
+                outboxMailRepository, meterRegistry, CHUNK_SIZE, 0, DAYS_TO_KEEP_EMAIL_CODES, DAYS_TO_KEEP_FAILED_MAILS);
+    }
+
+    @Test
+    void purgeExpiredRefreshTokens_whenChunkIsFull_shouldDeleteNextChunkUntilPartialOne() {
+        when(refreshTokenRepository.deleteExpiredBefore(any(), eq(CHUNK_SIZE))).thenReturn(CHUNK_SIZE, CHUNK_SIZE, 3);
+
+        final var deleted = retentionService.purgeExpiredRefreshTokens();
+
+        assertAll(
+                () -> assertEquals(23, deleted),
+                () -> verify(refreshTokenRepository, times(3)).deleteExpiredBefore(any(), eq(CHUNK_SIZE)),
+                () -> assertEquals(23, meterRegistry.get("retention.deleted").tag("table", "refresh_token")
+                        .counter().count())
+        );
+    }
+
+    @Test
+    void purgeExpiredEmailConfirmationCodes_shouldKeepCodesWithinGracePeriod() {
+        final var expectedThreshold = LocalDateTime.now().minusDays(DAYS_TO_KEEP_EMAIL_CODES);
+
+        retentionService.purgeExpiredEmailConfirmationCodes();
+
+        verify(emailConfirmationCodeRepository).deleteExpiredBefore(
+                argThat(threshold -> !threshold.isBefore(expectedThreshold)
+                        && threshold.isBefore(expectedThreshold.plusMinutes(1))),
+                eq(CHUNK_SIZE));
+    }
+
+    @Test
+    void purgeFailedOutboxMails_shouldKeepMailsWithinGracePeriod() {
+        final var expectedThreshold = LocalDateTime.now().minusDays(DAYS_TO_KEEP_FAILED_MAILS);
+        when(outboxMailRepository.deleteFailedBefore(any(), eq(CHUNK_SIZE))).thenReturn(CHUNK_SIZE, 1);
+
+        assertEquals(CHUNK_SIZE + 1, retentionService.purgeFailedOutboxMails());
+        verify(outboxMailRepository, times(2)).deleteFailedBefore(
+                argThat(threshold -> !threshold.isBefore(expectedThreshold)
+                        && threshold.isBefore(expectedThreshold.plusMinutes(1))),
+                eq(CHUNK_SIZE));
+    }
+
+    @Test
+    void purgeExpired_whenNothingIsExpired_shouldRunSingleStatementPerTable() {
+        retentionService.purgeExpired();
+
+        assertAll(
+                () -> verify(refreshTokenRepository).deleteExpiredBefore(any(), eq(CHUNK_SIZE)),
+                () -> verify(emailConfirmationCodeRepository).deleteExpiredBefore(any(), eq(CHUNK_SIZE)),
+                () -> verify(outboxMailRepository).deleteFailedBefore(any(), eq(CHUNK_SIZE)),
+                () -> verifyNoMoreInteractions(refreshTokenRepository, emailConfirmationCodeRepository,
+                        outboxMailRepository)
+        );
+    }
+}
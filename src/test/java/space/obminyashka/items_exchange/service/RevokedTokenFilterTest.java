@@ -0,0 +1,84 @@
+package space.obminyashka.items_exchange.service;
+
+import org.junit.jupiter.api.Test;
+import space.obminyashka.items_exchange.service.util.RevokedTokenFilter;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RevokedTokenFilterTest {
+
+    private static final int EXPECTED_REVOCATIONS = 10_000;
+    private static final long TOKEN_LIFETIME_MS = 60_000;
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private final RevokedTokenFilter revokedTokenFilter =
+            new RevokedTokenFilter(EXPECTED_REVOCATIONS, 0.01, TOKEN_LIFETIME_MS, nanoTime::get);
+
+    @Test
+    void mightContain_whenExpectedNumberOfTokensRevoked_shouldFindAllOfThemAndFewOthers() {
+        final var revoked = randomIds(EXPECTED_REVOCATIONS);
+        revoked.forEach(revokedTokenFilter::put);
+
+        final long falsePositives = randomIds(EXPECTED_REVOCATIONS).stream()
+                .filter(revokedTokenFilter::mightContain)
+                .count();
+
+        assertAll(
+                () -> assertTrue(revoked.stream().allMatch(revokedTokenFilter::mightContain)),
+                () -> assertTrue(falsePositives < EXPECTED_REVOCATIONS * 0.02, "False positives: " + falsePositives)
+        );
+    }
+
+    @Test
+    void rotate_shouldForgetTokensOnlyAfterTwoRotations() {
+        final var tokenId = UUID.randomUUID().toString();
+        revokedTokenFilter.put(tokenId);
+
+        passTokenLifetime();
+        assertTrue(revokedTokenFilter.rotate());
+        assertTrue(revokedTokenFilter.mightContain(tokenId));
+
+        passTokenLifetime();
+        assertTrue(revokedTokenFilter.rotate());
+        assertFalse(revokedTokenFilter.mightContain(tokenId));
+    }
+
+    @Test
+    void rotate_whenRunTwiceInRow_shouldKeepTokensRevokedBeforeFirstRotation() {
+        final var tokenId = UUID.randomUUID().toString();
+        passTokenLifetime();
+        revokedTokenFilter.put(tokenId);
+
+        assertAll(
+                () -> assertTrue(revokedTokenFilter.rotate()),
+                () -> assertFalse(revokedTokenFilter.rotate()),
+                () -> assertTrue(revokedTokenFilter.mightContain(tokenId))
+        );
+    }
+
+    @Test
+    void rotate_whenCurrentGenerationIsYoungerThanTokenLifetime_shouldDoNothing() {
+        final var tokenId = UUID.randomUUID().toString();
+        revokedTokenFilter.put(tokenId);
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(TOKEN_LIFETIME_MS) - 1);
+
+        assertFalse(revokedTokenFilter.rotate());
+        assertTrue(revokedTokenFilter.mightContain(tokenId));
+    }
+
+    private void passTokenLifetime() {
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(TOKEN_LIFETIME_MS));
+    }
+
+    private static List<String> randomIds(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> UUID.randomUUID().toString())
+                .toList();
+    }
+}
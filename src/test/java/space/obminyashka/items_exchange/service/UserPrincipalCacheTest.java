@@ -0,0 +1,93 @@
+package space.obminyashka.items_exchange.service;
+
+import org.junit.jupiter.api.Test;
+import space.obminyashka.items_exchange.repository.projection.UserPrincipal;
+import space.obminyashka.items_exchange.service.util.UserPrincipalCache;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserPrincipalCacheTest {
+
+    private static final UserPrincipal PRINCIPAL = new UserPrincipal(UUID.randomUUID(), "admin", "admin@gmail.com", "ROLE_ADMIN");
+
+    private final UserPrincipalCache userPrincipalCache = new UserPrincipalCache(60_000, 2);
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<String, Optional<UserPrincipal>> loader = usernameOrEmail -> {
+        loads.incrementAndGet();
+        return usernameOrEmail.startsWith("admin") ? Optional.of(PRINCIPAL) : Optional.empty();
+    };
+
+    @Test
+    void get_whenPrincipalIsCached_shouldNotLoadItAgain() {
+        userPrincipalCache.get("admin", loader);
+        final var principal = userPrincipalCache.get("admin", loader);
+
+        assertAll(
+                () -> assertEquals(Optional.of(PRINCIPAL), principal),
+                () -> assertEquals(1, loads.get())
+        );
+    }
+
+    @Test
+    void get_whenUserIsMissing_shouldNotCacheIt() {
+        userPrincipalCache.get("unknown", loader);
+        userPrincipalCache.get("unknown", loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void evictOwner_shouldDropPrincipalCachedByEmailToo() {
+        userPrincipalCache.get("admin", loader);
+        userPrincipalCache.get("admin@gmail.com", loader);
+
+        userPrincipalCache.evictOwner("admin");
+        userPrincipalCache.get("admin", loader);
+        userPrincipalCache.get("admin@gmail.com", loader);
+
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void get_whenCacheIsFull_shouldDropEntryExpiringFirst() {
+        userPrincipalCache.get("admin", loader);
+        userPrincipalCache.get("admin@gmail.com", loader);
+        userPrincipalCache.get("admin2", loader);
+        userPrincipalCache.get("admin2", loader);
+        userPrincipalCache.get("admin@gmail.com", loader);
+        assertEquals(3, loads.get());
+
+        userPrincipalCache.get("admin", loader);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void get_whenOwnerIsEvictedWhileLoading_shouldNotCacheStaleValue() {
+        final var principal = userPrincipalCache.get("admin", usernameOrEmail -> {
+            userPrincipalCache.evictOwner("admin");
+            return loader.apply(usernameOrEmail);
+        });
+        userPrincipalCache.get("admin", loader);
+
+        assertAll(
+                () -> assertEquals(Optional.of(PRINCIPAL), principal),
+                () -> assertEquals(2, loads.get())
+        );
+    }
+
+    @Test
+    void evictOwner_shouldKeepPrincipalsOfOtherUsers() {
+        final var other = new UserPrincipal(UUID.randomUUID(), "user", "user@gmail.com", "ROLE_USER");
+        userPrincipalCache.get("admin", loader);
+        userPrincipalCache.get("user", username -> Optional.of(other));
+
+        userPrincipalCache.evictOwner("admin");
+
+        assertEquals(Optional.of(other), userPrincipalCache.get("user", username -> Optional.empty()));
+    }
+}
@@ -18,8 +18,8 @@ import org.springframework.security.oauth2.core.oidc.OidcIdToken;
 import org.springframework.security.oauth2.core.oidc.OidcUserInfo;
 import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
 import space.obminyashka.items_exchange.repository.UserRepository;
-import space.obminyashka.items_exchange.repository.model.Role;
 import space.obminyashka.items_exchange.repository.model.User;
+import space.obminyashka.items_exchange.repository.projection.RefreshTokenSession;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -44,8 +44,6 @@ class UserServiceIntegrationTest {
     @MockBean
     private RoleService roleService;
     @Captor
-    private ArgumentCaptor<User> userArgumentCaptor;
-    @Captor
     private ArgumentCaptor<String> oauth2UserArgumentCaptor;
     @Captor
     private ArgumentCaptor<String> usernameArgumentCaptor;
@@ -105,12 +103,15 @@ class UserServiceIntegrationTest {
 
     @Test
     void permanentlyDeleteUsers_shouldDeleteUserAndValidateCronSchedule() {
-        List<User> userToRemove = List.of(new User().setRole(new Role(UUID.randomUUID(), "ROLE_SELF_REMOVING", List.of())));
-        when(userRepository.findAllByUpdatedLessThanEqualAndRoleName(any(), anyString())).thenReturn(userToRemove);
+        List<UUID> userToRemove = List.of(UUID.randomUUID());
+        when(userRepository.countByUpdatedLessThanEqualAndRoleName(any(), eq("ROLE_SELF_REMOVING"))).thenReturn(1L);
+        when(userRepository.findIdsByUpdatedLessThanEqualAndRoleName(any(), eq("ROLE_SELF_REMOVING"), any()))
+                .thenReturn(userToRemove);
+        when(userRepository.eraseAllByIds(userToRemove)).thenReturn(1);
 
         userService.permanentlyDeleteUsers();
 
-        verify(userRepository).deleteAll(userToRemove);
+        verify(userRepository).eraseAllByIds(userToRemove);
         assertThat(CronExpression.parse(selfRemovedUsersCleanupTime)
                 .next(LocalDateTime.of(2023, Calendar.JULY, 1, 9, 53, 50)))
                 .as("Checking permanently delete users nearest scheduled date time")
@@ -121,13 +122,21 @@ class UserServiceIntegrationTest {
     @MethodSource("getTestLocales")
     void updatePreferableLanguage_shouldSetLanguageAccordingContext(Locale expectedLocale) {
         LocaleContextHolder.setLocale(expectedLocale);
-        final var user = new User();
-        user.setLanguage(Locale.FRANCE);
-        when(userRepository.findByRefreshToken_Token(anyString())).thenReturn(Optional.of(user));
+        final var session = new RefreshTokenSession(UUID.randomUUID(), "user", "ROLE_USER", Locale.FRANCE,
+                LocalDateTime.now().plusHours(1));
+
+        userService.updatePreferableLanguage(session);
+        verify(userRepository).updateLanguage(session.userId(), expectedLocale);
+    }
+
+    @Test
+    void updatePreferableLanguage_whenLanguageIsTheSame_shouldNotUpdateUser() {
+        LocaleContextHolder.setLocale(Locale.ENGLISH);
+        final var session = new RefreshTokenSession(UUID.randomUUID(), "user", "ROLE_USER", Locale.ENGLISH,
+                LocalDateTime.now().plusHours(1));
 
-        userService.updatePreferableLanguage("mocked token");
-        verify(userRepository).saveAndFlush(userArgumentCaptor.capture());
-        assertEquals(expectedLocale, userArgumentCaptor.getValue().getLanguage());
+        userService.updatePreferableLanguage(session);
+        verify(userRepository, never()).updateLanguage(any(), any());
     }
 
     private static List<Locale> getTestLocales() {
@@ -7,8 +7,11 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.projection.ProjectionFactory;
 import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.LockedException;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -17,32 +20,45 @@ import org.springframework.security.oauth2.core.oidc.OidcUserInfo;
 import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
 import space.obminyashka.items_exchange.repository.EmailConfirmationCodeRepository;
 import space.obminyashka.items_exchange.repository.UserRepository;
+import space.obminyashka.items_exchange.repository.enums.Status;
+import space.obminyashka.items_exchange.rest.request.UserRegistrationRequest;
 import space.obminyashka.items_exchange.rest.response.UserLoginResponse;
 import space.obminyashka.items_exchange.rest.mapper.PhoneMapper;
 import space.obminyashka.items_exchange.rest.mapper.UserMapper;
+import space.obminyashka.items_exchange.repository.model.EmailConfirmationCode;
 import space.obminyashka.items_exchange.repository.model.RefreshToken;
 import space.obminyashka.items_exchange.repository.model.Role;
 import space.obminyashka.items_exchange.repository.model.User;
 import space.obminyashka.items_exchange.repository.projection.UserAuthProjection;
 import space.obminyashka.items_exchange.repository.projection.UserProjection;
 import space.obminyashka.items_exchange.service.impl.UserServiceImpl;
+import space.obminyashka.items_exchange.service.util.EmailType;
+import space.obminyashka.items_exchange.service.util.RefreshTokenCache;
+import space.obminyashka.items_exchange.service.util.StoredImagesReleasedEvent;
+import space.obminyashka.items_exchange.service.util.UserErasureJob;
+import space.obminyashka.items_exchange.service.util.UserPrincipalCache;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class UserServiceTest {
     private static final String NEW_USER_EMAIL = "user@mail.ua";
     private static final String EXPECTED_USERNAME = "user";
+    private static final String PASSWORD = "password";
+    private static final String PASSWORD_HASH = "$2a$10$hash";
     private final ProjectionFactory factory = new SpelAwareProxyProjectionFactory();
     private final Role role = new Role(null, "ROLE_USER", Collections.emptyList());
     @Mock
@@ -57,6 +73,18 @@ class UserServiceTest {
     private RoleService roleService;
     @Mock
     private UserMapper userMapper;
+    @Mock
+    private ImageStorage imageStorage;
+    @Mock
+    private UserPrincipalCache userPrincipalCache;
+    @Mock
+    private RefreshTokenCache refreshTokenCache;
+    @Mock
+    private UserErasureJob userErasureJob;
+    @Mock
+    private MailService mailService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     @Value("${number.of.hours.to.keep.email.confirmation.code}")
     private int numberOfHoursToKeepEmailConformationToken;
     private UserServiceImpl userService;
@@ -65,7 +93,8 @@ class UserServiceTest {
     @BeforeEach
     void setUp() {
         userService = new UserServiceImpl(bCryptPasswordEncoder, userRepository, emailConfirmationCodeRepository,
-                phoneMapper, roleService, userMapper, numberOfHoursToKeepEmailConformationToken);
+                phoneMapper, roleService, userMapper, imageStorage, userPrincipalCache, refreshTokenCache, userErasureJob,
+                mailService, eventPublisher, numberOfHoursToKeepEmailConformationToken);
     }
 
     @Test
@@ -149,6 +178,139 @@ class UserServiceTest {
         );
     }
 
+    @Test
+    void authenticate_whenPasswordMatches_shouldReturnUserLoginResponseDto() {
+        var expectedProjection = creatUserAuthProjection(Status.ACTIVE);
+        var expectedUserLoginDto = createUserLoginDto(expectedProjection);
+        when(userRepository.findAuthDataByEmailOrUsername(anyString(), anyString()))
+                .thenReturn(Optional.of(expectedProjection));
+        when(bCryptPasswordEncoder.matches(PASSWORD, PASSWORD_HASH)).thenReturn(true);
+        when(userMapper.toLoginResponseDto(expectedProjection)).thenReturn(expectedUserLoginDto);
+
+        var actualUserLoginDto = userService.authenticate(EXPECTED_USERNAME, PASSWORD);
+
+        assertAll(
+                () -> assertEquals(expectedUserLoginDto, actualUserLoginDto),
+                () -> verify(userRepository).findAuthDataByEmailOrUsername(EXPECTED_USERNAME, EXPECTED_USERNAME),
+                () -> verify(userRepository, never()).saveUserPasswordByUsername(anyString(), anyString())
+        );
+    }
+
+    @Test
+    void authenticate_whenPasswordDoesNotMatch_shouldThrowBadCredentialsException() {
+        when(userRepository.findAuthDataByEmailOrUsername(anyString(), anyString()))
+                .thenReturn(Optional.of(creatUserAuthProjection(Status.ACTIVE)));
+        when(bCryptPasswordEncoder.matches(PASSWORD, PASSWORD_HASH)).thenReturn(false);
+
+        assertAll(
+                () -> assertThatThrownBy(() -> userService.authenticate(EXPECTED_USERNAME, PASSWORD))
+                        .isInstanceOf(BadCredentialsException.class),
+                () -> verifyNoInteractions(userMapper)
+        );
+    }
+
+    @Test
+    void authenticate_whenUserDoesNotExistInDB_shouldCheckPasswordAndThrowBadCredentialsException() {
+        when(userRepository.findAuthDataByEmailOrUsername(anyString(), anyString())).thenReturn(Optional.empty());
+        when(bCryptPasswordEncoder.encode(anyString())).thenReturn(PASSWORD_HASH);
+
+        assertAll(
+                () -> assertThatThrownBy(() -> userService.authenticate(EXPECTED_USERNAME, PASSWORD))
+                        .isInstanceOf(BadCredentialsException.class),
+                () -> verify(bCryptPasswordEncoder).matches(PASSWORD, PASSWORD_HASH),
+                () -> verifyNoInteractions(userMapper)
+        );
+    }
+
+    @Test
+    void authenticate_whenUserIsBanned_shouldThrowLockedExceptionWithoutPasswordCheck() {
+        when(userRepository.findAuthDataByEmailOrUsername(anyString(), anyString()))
+                .thenReturn(Optional.of(creatUserAuthProjection(Status.BANNED)));
+
+        assertAll(
+                () -> assertThatThrownBy(() -> userService.authenticate(EXPECTED_USERNAME, PASSWORD))
+                        .isInstanceOf(LockedException.class),
+                () -> verifyNoInteractions(bCryptPasswordEncoder, userMapper)
+        );
+    }
+
+    @Test
+    void selfDeleteRequest_shouldEvictCachedPrincipalAndRefreshTokenSession() {
+        userService.selfDeleteRequest(EXPECTED_USERNAME);
+
+        assertAll(
+                () -> verify(userRepository).updateUserByUsernameWithRole(EXPECTED_USERNAME, "ROLE_SELF_REMOVING"),
+                () -> verify(userPrincipalCache).evictOwner(EXPECTED_USERNAME),
+                () -> verify(refreshTokenCache).evictOwner(EXPECTED_USERNAME)
+        );
+    }
+
+    @Test
+    void setUserAvatar_whenAvatarIsReplaced_shouldReleasePreviousImage() {
+        final var newAvatar = "new avatar".getBytes();
+        when(userRepository.findAvatarImageHashByUsername(EXPECTED_USERNAME)).thenReturn(Optional.of("old-hash"));
+        when(imageStorage.store(newAvatar)).thenReturn("new-hash");
+
+        userService.setUserAvatar(EXPECTED_USERNAME, newAvatar);
+
+        assertAll(
+                () -> verify(userRepository).updateAvatarByUsername(EXPECTED_USERNAME, "new-hash"),
+                () -> verify(eventPublisher).publishEvent(new StoredImagesReleasedEvent(List.of("old-hash")))
+        );
+    }
+
+    @Test
+    void setUserAvatar_whenSameAvatarIsUploaded_shouldKeepImage() {
+        final var avatar = "same avatar".getBytes();
+        when(userRepository.findAvatarImageHashByUsername(EXPECTED_USERNAME)).thenReturn(Optional.of("same-hash"));
+        when(imageStorage.store(avatar)).thenReturn("same-hash");
+
+        userService.setUserAvatar(EXPECTED_USERNAME, avatar);
+
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void registerNewUser_shouldHashPasswordBeforeSavingCodeWithQueuedMail() {
+        final var request = new UserRegistrationRequest(EXPECTED_USERNAME, NEW_USER_EMAIL, PASSWORD, PASSWORD);
+        when(bCryptPasswordEncoder.encode(PASSWORD)).thenReturn(PASSWORD_HASH);
+        when(emailConfirmationCodeRepository.save(any())).thenAnswer(invocation -> {
+            final EmailConfirmationCode code = invocation.getArgument(0);
+            code.getUser().setId(UUID.randomUUID());
+            return code;
+        });
+        when(mailService.sendEmailTemplateAndGenerateConfrimationCode(eq(NEW_USER_EMAIL), eq(EmailType.REGISTRATION),
+                eq("obminyashka.space"), any())).thenAnswer(invocation -> {
+            final var codeId = UUID.randomUUID();
+            invocation.<Consumer<UUID>>getArgument(3).accept(codeId);
+            return codeId;
+        });
+
+        final var registered = userService.registerNewUser(request, "obminyashka.space");
+
+        final var inOrder = inOrder(bCryptPasswordEncoder, mailService, emailConfirmationCodeRepository);
+        assertAll(
+                () -> assertTrue(registered),
+                () -> inOrder.verify(bCryptPasswordEncoder).encode(PASSWORD),
+                () -> inOrder.verify(mailService).sendEmailTemplateAndGenerateConfrimationCode(eq(NEW_USER_EMAIL),
+                        eq(EmailType.REGISTRATION), eq("obminyashka.space"), any()),
+                () -> inOrder.verify(emailConfirmationCodeRepository).save(argThat(code ->
+                        code.getUser().getPassword().equals(PASSWORD_HASH)))
+        );
+    }
+
+    private UserAuthProjection creatUserAuthProjection(Status status) {
+        Map<String, Object> map = Map.of(
+                "id", UUID.randomUUID(),
+                "username", EXPECTED_USERNAME,
+                "password", PASSWORD_HASH,
+                "status", status,
+                "language", "ua",
+                "refreshToken", new RefreshToken("token", LocalDateTime.now())
+        );
+        return factory.createProjection(UserAuthProjection.class, map);
+    }
+
     private UserAuthProjection creatUserAuthProjection() {
         RefreshToken refreshToken = new RefreshToken("token", LocalDateTime.now());
         Map<String, Object> map = Map.of(